@@ -0,0 +1,65 @@
+package com.mirror.capture;
+
+import com.microsoft.playwright.Page;
+
+/**
+ * Makes captures deterministic without waiting for animations to play out.
+ *
+ * A stylesheet collapses every CSS animation and transition to zero duration,
+ * so elements jump straight to their end state. Page timers and
+ * requestAnimationFrame run on Playwright's virtual clock, which keeps flowing
+ * normally (the readiness waits rely on it) but is fast-forwarded once the page
+ * has loaded, so timer-driven effects such as delayed reveals complete instantly.
+ */
+public class AnimationFreezer {
+
+    static final String FREEZE_CSS = """
+            *, *::before, *::after {
+                animation-delay: 0s !important;
+                animation-duration: 0s !important;
+                animation-iteration-count: 1 !important;
+                transition-delay: 0s !important;
+                transition-duration: 0s !important;
+                scroll-behavior: auto !important;
+                caret-color: transparent !important;
+            }
+            """;
+
+    private final CaptureConfig config;
+
+    public AnimationFreezer(CaptureConfig config) {
+        this.config = config;
+    }
+
+    public boolean isEnabled() {
+        return config.freezeAnimations;
+    }
+
+    /**
+     * Installs the virtual clock. Must run before navigation so the page's timers
+     * are created on it.
+     */
+    public void beforeNavigation(Page page) {
+        if (isEnabled()) {
+            page.clock().install();
+        }
+    }
+
+    /**
+     * Injects the freeze stylesheet once the document exists.
+     */
+    public void afterNavigation(Page page) {
+        if (isEnabled()) {
+            page.addStyleTag(new Page.AddStyleTagOptions().setContent(FREEZE_CSS));
+        }
+    }
+
+    /**
+     * Fires every timer and animation frame due within the fast-forward window.
+     */
+    public void fastForward(Page page) {
+        if (isEnabled() && config.clockFastForwardMs > 0) {
+            page.clock().runFor(config.clockFastForwardMs);
+        }
+    }
+}
@@ -0,0 +1,670 @@
+package com.mirror.capture;
+
+import com.microsoft.playwright.Browser;
+import com.microsoft.playwright.BrowserContext;
+import com.microsoft.playwright.BrowserType;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.Playwright;
+import com.mirror.model.Viewport;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded pool of long-lived headless Chromium instances.
+ *
+ * Every job gets its own isolated BrowserContext on a pooled browser. Playwright
+ * objects are not thread-safe, so each browser runs in its own Playwright instance
+ * and is only driven by the thread currently holding its lease.
+ *
+ * With persistent profiles enabled, a capture whose origin profile is free gets
+ * its own Chromium launched on that profile instead. When the lease closes, its
+ * pages are closed and the browser stays running on the still locked profile, so
+ * the next capture of that origin skips the launch; at most
+ * {@code maxIdleProfileBrowsers} such browsers idle at once, the least recently
+ * used one is shut down beyond that.
+ *
+ * At most {@code browserPoolSize} Chromium processes run at once, counting idle
+ * shared and idle profile browsers: before launching past that, the least
+ * recently used idle browser of either kind is shut down.
+ */
+public class BrowserPool implements AutoCloseable {
+
+    private final CaptureConfig config;
+    private final int maxBrowsers;
+    private final Semaphore permits;
+    private final Deque<PooledBrowser> idle = new ArrayDeque<>();
+    // Idle browsers on persistent profiles by origin key, least recently used first
+    private final Map<String, PooledBrowser> idleProfiles = new LinkedHashMap<>();
+    private final BrowserProfileStore profiles;
+
+    private final AtomicInteger liveBrowsers = new AtomicInteger();
+    private final AtomicInteger inUse = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicLong launched = new AtomicLong();
+    private final AtomicLong recycled = new AtomicLong();
+    private final AtomicLong acquired = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+
+    // Signalled whenever a browser goes idle or is shut down, for launches waiting for room
+    private final Object capacity = new Object();
+    private long capacitySignals;
+
+    private volatile boolean closed;
+
+    public BrowserPool(CaptureConfig config) {
+        this.config = config;
+        this.maxBrowsers = Math.max(1, config.browserPoolSize);
+        this.permits = new Semaphore(maxBrowsers, true);
+        this.profiles = config.persistentProfiles ? new BrowserProfileStore(config) : null;
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "browser-pool-shutdown"));
+    }
+
+    /**
+     * Borrows a browser and opens a fresh context sized to the viewport.
+     * Blocks until a browser is free or the acquire timeout expires.
+     */
+    public Lease acquire(Viewport viewport) {
+        return acquire(viewport, null);
+    }
+
+    /**
+     * Like {@link #acquire(Viewport)}, but runs on the persistent profile of the
+     * URL's origin when profiles are enabled and that profile is free.
+     */
+    public Lease acquire(Viewport viewport, String url) {
+        return acquire(viewport, url, config.acquireTimeoutMs);
+    }
+
+    /**
+     * Like {@link #acquire(Viewport, String)}, but gives up waiting for a free
+     * browser after {@code timeoutMs}, e.g. the time left until a capture's deadline.
+     */
+    public Lease acquire(Viewport viewport, String url, long timeoutMs) {
+        if (closed) {
+            throw new IllegalStateException("Browser pool is closed");
+        }
+        long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        awaitPermit(timeoutMs);
+
+        try {
+            if (profiles != null && url != null) {
+                Lease warm = takeIdleProfile(viewport, url);
+                if (warm != null) {
+                    return warm;
+                }
+                BrowserProfileStore.Profile profile = profiles.tryLock(url);
+                if (profile != null) {
+                    return launchOnProfile(viewport, profile, timeoutMs, deadlineNanos);
+                }
+            }
+
+            PooledBrowser pooled = takeHealthyBrowser(timeoutMs, deadlineNanos);
+            BrowserContext context;
+            try {
+                context = pooled.browser.newContext(new Browser.NewContextOptions()
+                        .setViewportSize(viewport.getWidth(), viewport.getHeight()));
+            } catch (RuntimeException e) {
+                // The browser was taken out of the pool, it must go back or be shut down
+                if (!closed && pooled.isHealthy()) {
+                    pooled.releasedAt = System.nanoTime();
+                    synchronized (idle) {
+                        idle.addFirst(pooled);
+                    }
+                    signalCapacity();
+                } else {
+                    dispose(pooled);
+                }
+                throw e;
+            }
+            pooled.uses++;
+            inUse.incrementAndGet();
+            acquired.incrementAndGet();
+            return new Lease(pooled, context, viewport);
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Takes the idle browser still running on the URL's profile, or returns null
+     * if there is none.
+     */
+    private Lease takeIdleProfile(Viewport viewport, String url) {
+        String key = BrowserProfileStore.originKey(url);
+        if (key == null) {
+            return null;
+        }
+        PooledBrowser pooled;
+        synchronized (idleProfiles) {
+            pooled = idleProfiles.remove(key);
+        }
+        if (pooled == null) {
+            return null;
+        }
+        if (!pooled.isHealthy()) {
+            System.out.println("Discarding closed Chromium #" + pooled.id + " on browser profile " + key);
+            dispose(pooled);
+            return null;
+        }
+        pooled.uses++;
+        inUse.incrementAndGet();
+        acquired.incrementAndGet();
+        System.out.println("Reusing Chromium #" + pooled.id + " on browser profile " + key);
+        return new Lease(pooled, pooled.persistentContext, viewport);
+    }
+
+    private void awaitPermit(long timeoutMs) {
+        long start = System.nanoTime();
+        waiting.incrementAndGet();
+        try {
+            if (!permits.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new RuntimeException("Timed out after " + timeoutMs
+                        + " ms waiting for a pooled browser (" + stats() + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for a pooled browser", e);
+        } finally {
+            waiting.decrementAndGet();
+            totalWaitNanos.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Launches a dedicated Chromium on the profile directory. The profile stays
+     * locked until the browser has exited, when it is disposed.
+     */
+    private Lease launchOnProfile(Viewport viewport, BrowserProfileStore.Profile profile, long timeoutMs,
+            long deadlineNanos) {
+        Playwright playwright = null;
+        boolean reserved = false;
+        try {
+            reserveLaunchSlot(timeoutMs, deadlineNanos);
+            reserved = true;
+            playwright = Playwright.create();
+            BrowserContext context = playwright.chromium().launchPersistentContext(profile.dir(),
+                    new BrowserType.LaunchPersistentContextOptions()
+                            .setHeadless(config.headless)
+                            .setViewportSize(viewport.getWidth(), viewport.getHeight())
+                            .setArgs(List.of("--disk-cache-size=" + config.profileDiskCacheBytes)));
+            PooledBrowser pooled = new PooledBrowser(launched.incrementAndGet(), playwright, context, profile);
+            context.onClose(closedContext -> pooled.contextClosed = true);
+            pooled.uses++;
+            inUse.incrementAndGet();
+            acquired.incrementAndGet();
+            System.out.println("Launched Chromium #" + pooled.id + " on browser profile " + profile.key());
+            return new Lease(pooled, context, viewport);
+        } catch (RuntimeException e) {
+            if (playwright != null) {
+                playwright.close();
+            }
+            if (reserved) {
+                liveBrowsers.decrementAndGet();
+                signalCapacity();
+            }
+            profile.close();
+            throw e;
+        }
+    }
+
+    private PooledBrowser takeHealthyBrowser(long timeoutMs, long deadlineNanos) {
+        while (true) {
+            PooledBrowser candidate;
+            synchronized (idle) {
+                candidate = idle.pollFirst();
+            }
+            if (candidate == null) {
+                return launch(timeoutMs, deadlineNanos);
+            }
+            if (candidate.isHealthy()) {
+                return candidate;
+            }
+            System.out.println("Discarding disconnected pooled browser #" + candidate.id);
+            dispose(candidate);
+        }
+    }
+
+    private PooledBrowser launch(long timeoutMs, long deadlineNanos) {
+        reserveLaunchSlot(timeoutMs, deadlineNanos);
+        Playwright playwright = null;
+        try {
+            playwright = Playwright.create();
+            Browser browser = playwright.chromium().launch(new BrowserType.LaunchOptions()
+                    .setHeadless(config.headless));
+            PooledBrowser pooled = new PooledBrowser(launched.incrementAndGet(), playwright, browser);
+            System.out.println("Launched pooled Chromium #" + pooled.id);
+            return pooled;
+        } catch (RuntimeException e) {
+            if (playwright != null) {
+                playwright.close();
+            }
+            liveBrowsers.decrementAndGet();
+            signalCapacity();
+            throw e;
+        }
+    }
+
+    /**
+     * Counts a browser about to be launched against the pool size, shutting
+     * down the least recently used idle browser first when the pool is full.
+     * If none is idle, e.g. another thread is still shutting one down, waits
+     * until a browser goes idle or exits, up to the acquire deadline.
+     */
+    private void reserveLaunchSlot(long timeoutMs, long deadlineNanos) {
+        while (true) {
+            long seen;
+            synchronized (capacity) {
+                seen = capacitySignals;
+            }
+            int live = liveBrowsers.get();
+            if (live < maxBrowsers) {
+                if (liveBrowsers.compareAndSet(live, live + 1)) {
+                    return;
+                }
+                continue;
+            }
+            if (closed) {
+                throw new IllegalStateException("Browser pool is closed");
+            }
+            PooledBrowser victim = takeLeastRecentlyUsedIdle();
+            if (victim != null) {
+                System.out.println("Shutting down idle Chromium #" + victim.id
+                        + " to stay within the pool size of " + maxBrowsers);
+                dispose(victim);
+            } else {
+                awaitCapacity(seen, timeoutMs, deadlineNanos);
+            }
+        }
+    }
+
+    private void awaitCapacity(long seen, long timeoutMs, long deadlineNanos) {
+        boolean signalled = false;
+        synchronized (capacity) {
+            try {
+                while (capacitySignals == seen) {
+                    long leftNanos = deadlineNanos - System.nanoTime();
+                    if (leftNanos <= 0) {
+                        break;
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(capacity, leftNanos);
+                }
+                signalled = capacitySignals != seen;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for a pooled browser", e);
+            }
+        }
+        if (!signalled) {
+            // Outside the monitor, stats() takes the idle list locks
+            throw new RuntimeException("Timed out after " + timeoutMs
+                    + " ms waiting for a pooled browser (" + stats() + ")");
+        }
+    }
+
+    private void signalCapacity() {
+        synchronized (capacity) {
+            capacitySignals++;
+            capacity.notifyAll();
+        }
+    }
+
+    /**
+     * Removes the idle shared or idle profile browser that was released the
+     * longest ago, or returns null if no browser is idle.
+     */
+    private PooledBrowser takeLeastRecentlyUsedIdle() {
+        synchronized (idle) {
+            synchronized (idleProfiles) {
+                PooledBrowser shared = idle.peekLast();
+                Iterator<PooledBrowser> profileBrowsers = idleProfiles.values().iterator();
+                PooledBrowser onProfile = profileBrowsers.hasNext() ? profileBrowsers.next() : null;
+                if (shared != null && (onProfile == null || shared.releasedAt <= onProfile.releasedAt)) {
+                    return idle.pollLast();
+                }
+                if (onProfile != null) {
+                    profileBrowsers.remove();
+                }
+                return onProfile;
+            }
+        }
+    }
+
+    private void release(PooledBrowser pooled, BrowserContext context) {
+        if (pooled.isPersistent()) {
+            releasePersistent(pooled);
+            return;
+        }
+        try {
+            context.close();
+        } catch (RuntimeException e) {
+            System.out.println("Warning: failed to close browser context (" + e.getMessage() + ")");
+        }
+
+        inUse.decrementAndGet();
+        try {
+            if (closed || !pooled.isHealthy()) {
+                dispose(pooled);
+            } else if (pooled.uses >= config.maxUsesPerBrowser) {
+                System.out.println("Recycling pooled Chromium #" + pooled.id + " after " + pooled.uses + " uses");
+                recycled.incrementAndGet();
+                dispose(pooled);
+            } else {
+                pooled.releasedAt = System.nanoTime();
+                synchronized (idle) {
+                    idle.addFirst(pooled);
+                }
+                signalCapacity();
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Keeps a browser on a persistent profile running for the next capture of
+     * its origin, with its pages closed. It is shut down instead when it is worn
+     * out, its profile was invalidated, or replay recording needs the context
+     * closed to write its HAR.
+     */
+    private void releasePersistent(PooledBrowser pooled) {
+        inUse.decrementAndGet();
+        try {
+            boolean keep = !closed && config.maxIdleProfileBrowsers > 0 && !config.replayCacheEnabled
+                    && pooled.isHealthy() && pooled.uses < config.maxUsesPerBrowser
+                    && !pooled.profile.isInvalidated();
+            if (keep) {
+                try {
+                    for (Page page : pooled.persistentContext.pages()) {
+                        page.close();
+                    }
+                } catch (RuntimeException e) {
+                    keep = false;
+                }
+            }
+            if (!keep) {
+                dispose(pooled);
+                return;
+            }
+            pooled.releasedAt = System.nanoTime();
+            List<PooledBrowser> evicted = new ArrayList<>();
+            synchronized (idleProfiles) {
+                idleProfiles.put(pooled.profile.key(), pooled);
+                Iterator<PooledBrowser> oldest = idleProfiles.values().iterator();
+                while (idleProfiles.size() > config.maxIdleProfileBrowsers) {
+                    evicted.add(oldest.next());
+                    oldest.remove();
+                }
+            }
+            signalCapacity();
+            for (PooledBrowser browser : evicted) {
+                System.out.println("Shutting down idle Chromium #" + browser.id + " on browser profile "
+                        + browser.profile.key());
+                dispose(browser);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void dispose(PooledBrowser pooled) {
+        liveBrowsers.decrementAndGet();
+        signalCapacity();
+        if (pooled.isPersistent() && !pooled.contextClosed) {
+            try {
+                // Lets Chromium flush cookies and storage to the profile before exiting
+                pooled.persistentContext.close();
+            } catch (RuntimeException e) {
+                System.out.println("Warning: failed to close browser profile context (" + e.getMessage() + ")");
+            }
+        }
+        try {
+            pooled.playwright.close();
+        } catch (RuntimeException e) {
+            System.out.println("Warning: failed to close pooled browser #" + pooled.id + " (" + e.getMessage() + ")");
+        }
+        if (pooled.isPersistent()) {
+            // Only now that the browser has exited
+            pooled.profile.close();
+        }
+    }
+
+    /**
+     * Invalidates the persistent profile of one origin, or all profiles when
+     * {@code origin} is null, shutting down idle browsers still running on them
+     * first. A profile in use by a capture is wiped before its next use.
+     *
+     * @return number of profiles deleted or marked for wiping
+     */
+    public int invalidateProfiles(String origin) {
+        if (profiles == null) {
+            return 0;
+        }
+        List<PooledBrowser> running = new ArrayList<>();
+        synchronized (idleProfiles) {
+            if (origin == null) {
+                running.addAll(idleProfiles.values());
+                idleProfiles.clear();
+            } else {
+                String key = BrowserProfileStore.originKey(origin);
+                PooledBrowser pooled = key != null ? idleProfiles.remove(key) : null;
+                if (pooled != null) {
+                    running.add(pooled);
+                }
+            }
+        }
+        running.forEach(this::dispose);
+        if (origin == null) {
+            return profiles.invalidateAll();
+        }
+        return profiles.invalidate(origin) ? 1 : 0;
+    }
+
+    /**
+     * The persistent profile store, or null when profiles are disabled.
+     */
+    public BrowserProfileStore profiles() {
+        return profiles;
+    }
+
+    public Stats stats() {
+        int idleCount;
+        synchronized (idle) {
+            idleCount = idle.size();
+        }
+        int idleProfileCount;
+        synchronized (idleProfiles) {
+            idleProfileCount = idleProfiles.size();
+        }
+        long acquiredCount = acquired.get();
+        double avgWaitMs = acquiredCount == 0 ? 0 : totalWaitNanos.get() / 1_000_000.0 / acquiredCount;
+        return new Stats(maxBrowsers, liveBrowsers.get(), idleCount, idleProfileCount, inUse.get(),
+                waiting.get(), launched.get(), recycled.get(), acquiredCount, avgWaitMs);
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        synchronized (idle) {
+            while (!idle.isEmpty()) {
+                dispose(idle.pollFirst());
+            }
+        }
+        List<PooledBrowser> running;
+        synchronized (idleProfiles) {
+            running = new ArrayList<>(idleProfiles.values());
+            idleProfiles.clear();
+        }
+        running.forEach(this::dispose);
+    }
+
+    private static class PooledBrowser {
+        final long id;
+        final Playwright playwright;
+        // Null for a browser launched on a persistent profile, which has only its one context
+        final Browser browser;
+        // Set instead for a browser on a persistent profile, which stays locked while it runs
+        final BrowserContext persistentContext;
+        final BrowserProfileStore.Profile profile;
+        volatile boolean contextClosed;
+        int uses;
+        // When the browser last went idle, to pick the least recently used one to shut down
+        long releasedAt;
+
+        PooledBrowser(long id, Playwright playwright, Browser browser) {
+            this.id = id;
+            this.playwright = playwright;
+            this.browser = browser;
+            this.persistentContext = null;
+            this.profile = null;
+        }
+
+        PooledBrowser(long id, Playwright playwright, BrowserContext persistentContext,
+                BrowserProfileStore.Profile profile) {
+            this.id = id;
+            this.playwright = playwright;
+            this.browser = null;
+            this.persistentContext = persistentContext;
+            this.profile = profile;
+        }
+
+        boolean isPersistent() {
+            return profile != null;
+        }
+
+        boolean isHealthy() {
+            if (isPersistent()) {
+                return !contextClosed;
+            }
+            try {
+                return browser.isConnected();
+            } catch (RuntimeException e) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Exclusive use of one pooled browser and its per-job context.
+     * Closing the lease closes the context and returns the browser to the pool.
+     */
+    public class Lease implements AutoCloseable {
+        private final PooledBrowser pooled;
+        private final BrowserContext context;
+        private final Viewport viewport;
+        private final List<Runnable> closeActions = new ArrayList<>();
+        private boolean released;
+
+        private Lease(PooledBrowser pooled, BrowserContext context, Viewport viewport) {
+            this.pooled = pooled;
+            this.context = context;
+            this.viewport = viewport;
+        }
+
+        public BrowserContext context() {
+            return context;
+        }
+
+        /**
+         * Whether the context runs on a persistent profile, whose HTTP cache is
+         * worth keeping enabled.
+         */
+        public boolean isPersistent() {
+            return pooled.isPersistent();
+        }
+
+        public Page newPage() {
+            Page page = context.newPage();
+            if (pooled.isPersistent()) {
+                // A reused persistent context keeps the viewport it was launched with
+                page.setViewportSize(viewport.getWidth(), viewport.getHeight());
+            }
+            return page;
+        }
+
+        /**
+         * Runs an action once the context has been closed, e.g. to pick up files
+         * Playwright only writes on context close.
+         */
+        public void onClose(Runnable action) {
+            closeActions.add(action);
+        }
+
+        @Override
+        public void close() {
+            if (released) {
+                return;
+            }
+            released = true;
+            release(pooled, context);
+            for (Runnable action : closeActions) {
+                try {
+                    action.run();
+                } catch (RuntimeException e) {
+                    System.out.println("Warning: lease close action failed (" + e.getMessage() + ")");
+                }
+            }
+        }
+    }
+
+    /**
+     * Point-in-time pool metrics.
+     */
+    public static class Stats {
+        private final int maxSize;
+        private final int liveBrowsers;
+        private final int idleBrowsers;
+        private final int idleProfileBrowsers;
+        private final int inUse;
+        private final int queued;
+        private final long launched;
+        private final long recycled;
+        private final long acquired;
+        private final double avgWaitMs;
+
+        Stats(int maxSize, int liveBrowsers, int idleBrowsers, int idleProfileBrowsers, int inUse, int queued,
+                long launched, long recycled, long acquired, double avgWaitMs) {
+            this.maxSize = maxSize;
+            this.liveBrowsers = liveBrowsers;
+            this.idleBrowsers = idleBrowsers;
+            this.idleProfileBrowsers = idleProfileBrowsers;
+            this.inUse = inUse;
+            this.queued = queued;
+            this.launched = launched;
+            this.recycled = recycled;
+            this.acquired = acquired;
+            this.avgWaitMs = avgWaitMs;
+        }
+
+        public int getMaxSize() { return maxSize; }
+        public int getLiveBrowsers() { return liveBrowsers; }
+        public int getIdleBrowsers() { return idleBrowsers; }
+        public int getIdleProfileBrowsers() { return idleProfileBrowsers; }
+        public int getInUse() { return inUse; }
+        public int getQueued() { return queued; }
+        public long getLaunched() { return launched; }
+        public long getRecycled() { return recycled; }
+        public long getAcquired() { return acquired; }
+        public double getAvgWaitMs() { return avgWaitMs; }
+
+        @Override
+        public String toString() {
+            return String.format("size=%d/%d idle=%d idleProfiles=%d inUse=%d queued=%d launched=%d recycled=%d"
+                    + " avgWait=%.1fms", liveBrowsers, maxSize, idleBrowsers, idleProfileBrowsers, inUse, queued,
+                    launched, recycled, avgWaitMs);
+        }
+    }
+}
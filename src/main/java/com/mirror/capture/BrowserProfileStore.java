@@ -0,0 +1,394 @@
+package com.mirror.capture;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Persistent Chromium user-data directories, one per target origin, so that
+ * repeated captures of a site reuse its HTTP disk cache, cookies and storage.
+ *
+ * A profile is used by one browser at a time. Its lock is a file lock next to
+ * the directory, which also holds across capture worker processes; a capture
+ * that finds its origin's profile busy runs in a clean pooled context instead.
+ * The lock file's modification time records the last use and drives LRU
+ * eviction once all profiles together exceed {@code profileMaxBytes}.
+ * Invalidating a busy profile leaves a marker so it is wiped before next use.
+ */
+public class BrowserProfileStore {
+
+    private static final String LOCK_SUFFIX = ".lock";
+    private static final String INVALID_SUFFIX = ".invalid";
+
+    private final Path root;
+    private final long maxBytes;
+
+    private final AtomicLong leases = new AtomicLong();
+    private final AtomicLong busy = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public BrowserProfileStore(CaptureConfig config) {
+        this.root = Paths.get(config.profileDir);
+        this.maxBytes = config.profileMaxBytes;
+        try {
+            Files.createDirectories(root);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to create browser profile directory " + root, e);
+        }
+    }
+
+    /**
+     * Locks the profile of the URL's origin for exclusive use.
+     *
+     * @return the locked profile, or null if the URL has no http(s) origin, the
+     *         profile is in use or it could not be prepared
+     */
+    Profile tryLock(String url) {
+        String key = originKey(url);
+        if (key == null) {
+            return null;
+        }
+        Locked locked = lock(key);
+        if (locked == null) {
+            busy.incrementAndGet();
+            return null;
+        }
+        Path dir = root.resolve(key);
+        try {
+            Path invalid = root.resolve(key + INVALID_SUFFIX);
+            if (Files.exists(invalid)) {
+                System.out.println("Wiping invalidated browser profile " + key);
+                deleteRecursively(dir);
+                Files.deleteIfExists(invalid);
+            }
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            System.out.println("Warning: could not prepare browser profile " + key + " (" + e.getMessage()
+                    + "), using a clean context");
+            locked.release();
+            return null;
+        }
+        leases.incrementAndGet();
+        return new Profile(key, dir, locked);
+    }
+
+    /**
+     * Deletes the profile of the given origin (or any URL on it). A profile in use
+     * is marked instead and wiped before its next use.
+     *
+     * @return true if the profile existed or was marked
+     */
+    public boolean invalidate(String origin) {
+        String key = originKey(origin);
+        return key != null && invalidateKey(key);
+    }
+
+    /**
+     * Invalidates every stored profile.
+     *
+     * @return number of profiles deleted or marked
+     */
+    public int invalidateAll() {
+        int count = 0;
+        for (String key : profileKeys()) {
+            if (invalidateKey(key)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private boolean invalidateKey(String key) {
+        Path dir = root.resolve(key);
+        if (!Files.exists(dir)) {
+            return false;
+        }
+        invalidations.incrementAndGet();
+        Locked locked = lock(key);
+        try {
+            if (locked == null) {
+                Files.write(root.resolve(key + INVALID_SUFFIX), new byte[0]);
+                System.out.println("Browser profile " + key + " is in use, marked for wiping");
+            } else {
+                deleteRecursively(dir);
+                System.out.println("Deleted browser profile " + key);
+            }
+            return true;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to invalidate browser profile " + key, e);
+        } finally {
+            if (locked != null) {
+                locked.release();
+            }
+        }
+    }
+
+    /**
+     * Deletes least recently used idle profiles until all of them together fit
+     * into the size limit.
+     */
+    private synchronized void enforceLimit() {
+        if (maxBytes <= 0) {
+            return;
+        }
+        List<String> keys = profileKeys();
+        long total = 0;
+        for (String key : keys) {
+            total += sizeOf(root.resolve(key));
+        }
+        if (total <= maxBytes) {
+            return;
+        }
+        keys.sort(Comparator.comparing(this::lastUsed));
+        for (String key : keys) {
+            if (total <= maxBytes) {
+                break;
+            }
+            Locked locked = lock(key);
+            if (locked == null) {
+                continue;
+            }
+            try {
+                Path dir = root.resolve(key);
+                long size = sizeOf(dir);
+                deleteRecursively(dir);
+                total -= size;
+                evictions.incrementAndGet();
+                System.out.printf("Evicted browser profile %s (%.1f MB)%n", key, size / 1024.0 / 1024.0);
+            } catch (IOException e) {
+                System.out.println("Warning: could not evict browser profile " + key + " (" + e.getMessage() + ")");
+            } finally {
+                locked.release();
+            }
+        }
+    }
+
+    public Stats stats() {
+        List<String> keys = profileKeys();
+        long total = 0;
+        for (String key : keys) {
+            total += sizeOf(root.resolve(key));
+        }
+        return new Stats(keys.size(), total, maxBytes, leases.get(), busy.get(), evictions.get(),
+                invalidations.get());
+    }
+
+    /**
+     * Directory name for a URL's origin, e.g. {@code https_example.com_443}, or
+     * null if it is not an http(s) URL.
+     */
+    static String originKey(String url) {
+        URI uri;
+        try {
+            uri = URI.create(url.trim());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        String scheme = uri.getScheme() != null ? uri.getScheme().toLowerCase(Locale.ROOT) : "";
+        if ((!"http".equals(scheme) && !"https".equals(scheme)) || uri.getHost() == null) {
+            return null;
+        }
+        int port = uri.getPort() != -1 ? uri.getPort() : "https".equals(scheme) ? 443 : 80;
+        String host = uri.getHost().toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9.-]", "_");
+        return scheme + "_" + host + "_" + port;
+    }
+
+    private List<String> profileKeys() {
+        List<String> keys = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(root, Files::isDirectory)) {
+            for (Path entry : entries) {
+                keys.add(entry.getFileName().toString());
+            }
+        } catch (IOException e) {
+            System.out.println("Warning: could not list browser profiles (" + e.getMessage() + ")");
+        }
+        return keys;
+    }
+
+    private FileTime lastUsed(String key) {
+        try {
+            return Files.getLastModifiedTime(root.resolve(key + LOCK_SUFFIX));
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private Locked lock(String key) {
+        Path lockFile = root.resolve(key + LOCK_SUFFIX);
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            FileLock lock = channel.tryLock();
+            if (lock != null) {
+                return new Locked(lockFile, channel, lock);
+            }
+        } catch (OverlappingFileLockException e) {
+            // Held by another capture in this process
+        } catch (IOException e) {
+            System.out.println("Warning: could not lock browser profile " + key + " (" + e.getMessage() + ")");
+        }
+        closeQuietly(channel);
+        return null;
+    }
+
+    private static long sizeOf(Path dir) {
+        if (!Files.exists(dir)) {
+            return 0;
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile).mapToLong(file -> {
+                try {
+                    return Files.size(file);
+                } catch (IOException e) {
+                    return 0;
+                }
+            }).sum();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // Nothing left to release
+        }
+    }
+
+    private static class Locked {
+        final Path lockFile;
+        final FileChannel channel;
+        final FileLock lock;
+
+        Locked(Path lockFile, FileChannel channel, FileLock lock) {
+            this.lockFile = lockFile;
+            this.channel = channel;
+            this.lock = lock;
+        }
+
+        void release() {
+            try {
+                lock.release();
+            } catch (IOException ignored) {
+                // Released with the channel below
+            }
+            closeQuietly(channel);
+        }
+    }
+
+    /**
+     * An origin's profile directory, locked until closed. Close it only after the
+     * browser using it has exited.
+     */
+    class Profile implements AutoCloseable {
+        private final String key;
+        private final Path dir;
+        private final Locked locked;
+        private boolean closed;
+
+        private Profile(String key, Path dir, Locked locked) {
+            this.key = key;
+            this.dir = dir;
+            this.locked = locked;
+        }
+
+        String key() {
+            return key;
+        }
+
+        /**
+         * Whether the profile was invalidated while locked, so that a browser still
+         * running on it should not be kept for reuse.
+         */
+        boolean isInvalidated() {
+            return Files.exists(root.resolve(key + INVALID_SUFFIX));
+        }
+
+        Path dir() {
+            return dir;
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                Files.setLastModifiedTime(locked.lockFile, FileTime.fromMillis(System.currentTimeMillis()));
+            } catch (IOException e) {
+                System.out.println("Warning: could not record use of browser profile " + key);
+            }
+            locked.release();
+            enforceLimit();
+        }
+    }
+
+    /**
+     * Point-in-time profile store metrics.
+     */
+    public static class Stats {
+        private final int profiles;
+        private final long totalBytes;
+        private final long maxBytes;
+        private final long leases;
+        private final long busy;
+        private final long evictions;
+        private final long invalidations;
+
+        Stats(int profiles, long totalBytes, long maxBytes, long leases, long busy, long evictions,
+                long invalidations) {
+            this.profiles = profiles;
+            this.totalBytes = totalBytes;
+            this.maxBytes = maxBytes;
+            this.leases = leases;
+            this.busy = busy;
+            this.evictions = evictions;
+            this.invalidations = invalidations;
+        }
+
+        public int getProfiles() { return profiles; }
+        public long getTotalBytes() { return totalBytes; }
+        public long getMaxBytes() { return maxBytes; }
+        public long getLeases() { return leases; }
+        public long getBusy() { return busy; }
+        public long getEvictions() { return evictions; }
+        public long getInvalidations() { return invalidations; }
+
+        @Override
+        public String toString() {
+            return String.format("profiles=%d bytes=%d/%d leases=%d busy=%d evictions=%d invalidations=%d",
+                    profiles, totalBytes, maxBytes, leases, busy, evictions, invalidations);
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.mirror.capture;
+
+import com.mirror.model.Viewport;
+import com.mirror.semantic.HtmlSemanticSnapshot;
+
+import java.awt.image.BufferedImage;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * {@link WebCaptureService} decorator that serves repeated captures from a
+ * {@link CaptureCache}.
+ *
+ * Before every capture the main document is fingerprinted with one plain HTTP
+ * request: its ETag or Last-Modified header, or else a hash of the HTML. A
+ * changed page therefore misses even within the TTL. If the fingerprint cannot
+ * be taken the capture goes straight to the delegate uncached. Tiled and
+ * section captures are always passed through.
+ *
+ * Captures are returned before they are stored: PNG-encoding a full page for
+ * the cache runs on a background thread, and stores are dropped while that
+ * thread is {@value #MAX_PENDING_STORES} behind.
+ */
+public class CachingCaptureService implements WebCaptureService {
+
+    // Captures waiting to be encoded are held in memory, so only a few may queue up
+    private static final int MAX_PENDING_STORES = 4;
+
+    private static final ThreadPoolExecutor STORE_EXECUTOR = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(MAX_PENDING_STORES), r -> {
+                Thread thread = new Thread(r, "capture-cache-store");
+                thread.setDaemon(true);
+                return thread;
+            }, (task, executor) -> System.out.println("Capture cache busy, not storing this capture"));
+
+    private final WebCaptureService delegate;
+    private final CaptureCache cache;
+    private final SnapshotEngine engine;
+    private final HttpClient httpClient;
+
+    public CachingCaptureService(WebCaptureService delegate, CaptureCache cache, SnapshotEngine engine) {
+        this.delegate = delegate;
+        this.cache = cache;
+        this.engine = engine;
+        this.httpClient = HttpClient.newBuilder()
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    @Override
+    public CompletableFuture<BufferedImage> captureAsync(String url, Viewport viewport, Duration deadline) {
+        return cachedAsync(url, viewport, deadline, cache::getScreenshot, "",
+                () -> delegate.captureAsync(url, viewport, deadline),
+                (key, screenshot) -> cache.put(key, screenshot, null));
+    }
+
+    @Override
+    public CompletableFuture<HtmlSemanticSnapshot> captureSemanticAsync(String url, Viewport viewport,
+            Duration deadline) {
+        return cachedAsync(url, viewport, deadline, cache::getSnapshot, " (snapshot)",
+                () -> delegate.captureSemanticAsync(url, viewport, deadline),
+                (key, snapshot) -> cache.put(key, null, snapshot));
+    }
+
+    /**
+     * Fingerprints the page, then serves the cache entry or starts the delegate's
+     * capture. Cancelling or timing out the returned future cancels that capture.
+     */
+    private <T> CompletableFuture<T> cachedAsync(String url, Viewport viewport, Duration deadline,
+            Function<String, T> lookup, String hitLabel, Supplier<CompletableFuture<T>> capture,
+            BiConsumer<String, T> store) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        if (deadline != null) {
+            result.orTimeout(deadline.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        fingerprintAsync(url).thenAccept(fingerprint -> {
+            String key = fingerprint.map(fp -> CaptureCache.key(url, viewport, engine, fp)).orElse(null);
+            T cached = key != null ? lookup.apply(key) : null;
+            if (cached != null) {
+                System.out.println("Capture cache hit" + hitLabel + ": " + url + " @ " + viewport.getName());
+                result.complete(cached);
+                return;
+            }
+            if (result.isDone()) {
+                return;
+            }
+            CompletableFuture<T> inner = capture.get();
+            result.whenComplete((value, error) -> {
+                if (error != null) {
+                    inner.cancel(true);
+                }
+            });
+            inner.whenComplete((value, error) -> {
+                if (error != null) {
+                    result.completeExceptionally(error instanceof CompletionException ? error.getCause() : error);
+                    return;
+                }
+                result.complete(value);
+                if (key != null) {
+                    storeAsync(url, () -> store.accept(key, value));
+                }
+            });
+        }).exceptionally(error -> {
+            result.completeExceptionally(error);
+            return null;
+        });
+        return result;
+    }
+
+    @Override
+    public CaptureResult captureWithSnapshot(String url, Viewport viewport) {
+        String key = key(url, viewport);
+        CaptureResult cached = key != null ? cache.getResult(key) : null;
+        if (cached != null) {
+            System.out.println("Capture cache hit (screenshot + snapshot): " + url + " @ " + viewport.getName());
+            return cached;
+        }
+        CaptureResult result = delegate.captureWithSnapshot(url, viewport);
+        if (key != null) {
+            storeAsync(url, () -> cache.put(key, result.getScreenshot(), result.getSnapshot()));
+        }
+        return result;
+    }
+
+    @Override
+    public Map<Viewport, CaptureResult> captureViewports(String url, List<Viewport> viewports) {
+        String fingerprint = fingerprint(url).orElse(null);
+        if (fingerprint != null) {
+            Map<Viewport, CaptureResult> cached = new LinkedHashMap<>();
+            for (Viewport viewport : viewports) {
+                CaptureResult result = cache.getResult(CaptureCache.key(url, viewport, engine, fingerprint));
+                if (result == null) {
+                    break;
+                }
+                cached.put(viewport, result);
+            }
+            if (cached.size() == viewports.size()) {
+                System.out.println("Capture cache hit: " + url + " @ " + viewports);
+                return cached;
+            }
+        }
+
+        // One load covers every viewport, so recapture them all on any miss
+        Map<Viewport, CaptureResult> results = delegate.captureViewports(url, viewports);
+        if (fingerprint != null) {
+            storeAsync(url, () -> results.forEach((viewport, result) -> cache.put(
+                    CaptureCache.key(url, viewport, engine, fingerprint), result.getScreenshot(),
+                    result.getSnapshot())));
+        }
+        return results;
+    }
+
+    @Override
+    public void captureTiles(String url, Viewport viewport, Consumer<ScreenshotTile> sink) {
+        delegate.captureTiles(url, viewport, sink);
+    }
+
+    @Override
+    public HtmlSemanticSnapshot captureTilesWithSnapshot(String url, Viewport viewport,
+            Consumer<ScreenshotTile> sink) {
+        return delegate.captureTilesWithSnapshot(url, viewport, sink);
+    }
+
+    @Override
+    public Map<PageSection, BufferedImage> captureSections(String url, Viewport viewport) {
+        return delegate.captureSections(url, viewport);
+    }
+
+    /**
+     * Runs a cache store in the background; a failing store only logs.
+     */
+    private static void storeAsync(String url, Runnable store) {
+        STORE_EXECUTOR.execute(() -> {
+            try {
+                store.run();
+            } catch (RuntimeException | OutOfMemoryError e) {
+                System.out.println("Warning: could not cache capture of " + url + " (" + e + ")");
+            }
+        });
+    }
+
+    private String key(String url, Viewport viewport) {
+        return fingerprint(url).map(fp -> CaptureCache.key(url, viewport, engine, fp)).orElse(null);
+    }
+
+    private Optional<String> fingerprint(String url) {
+        return fingerprintAsync(url).join();
+    }
+
+    /**
+     * Cheap content fingerprint of the main document: validators from a HEAD
+     * request when the server sends them, otherwise a SHA-256 of the HTML. The
+     * HTML is only downloaded when the HEAD response has neither ETag nor
+     * Last-Modified.
+     * Completes empty, never exceptionally, when no fingerprint can be taken.
+     */
+    private CompletableFuture<Optional<String>> fingerprintAsync(String url) {
+        URI uri;
+        try {
+            uri = URI.create(url);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        if (!"http".equals(uri.getScheme()) && !"https".equals(uri.getScheme())) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+
+        return httpClient.sendAsync(HttpRequest.newBuilder(uri)
+                        .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                        .timeout(Duration.ofSeconds(10))
+                        .build(), HttpResponse.BodyHandlers.discarding())
+                .thenCompose(head -> {
+                    if (head.statusCode() == 200) {
+                        Optional<String> etag = head.headers().firstValue("ETag");
+                        if (etag.isPresent()) {
+                            return CompletableFuture.completedFuture(Optional.of("etag:" + etag.get()));
+                        }
+                        Optional<String> lastModified = head.headers().firstValue("Last-Modified");
+                        if (lastModified.isPresent()) {
+                            return CompletableFuture.completedFuture(Optional.of("modified:" + lastModified.get()));
+                        }
+                    }
+                    return httpClient.sendAsync(HttpRequest.newBuilder(uri)
+                                    .timeout(Duration.ofSeconds(10))
+                                    .build(), HttpResponse.BodyHandlers.ofByteArray())
+                            .thenApply(get -> get.statusCode() != 200 ? Optional.<String>empty()
+                                    : Optional.of("sha256:" + HexFormat.of().formatHex(sha256(get.body()))));
+                })
+                .exceptionally(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    System.out.println("Warning: could not fingerprint " + url + ", capturing uncached ("
+                            + cause.getMessage() + ")");
+                    return Optional.empty();
+                });
+    }
+
+    private static byte[] sha256(byte[] body) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(body);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
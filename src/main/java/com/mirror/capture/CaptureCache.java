@@ -0,0 +1,197 @@
+package com.mirror.capture;
+
+import com.mirror.model.Viewport;
+import com.mirror.semantic.CompactSnapshotCodec;
+import com.mirror.semantic.HtmlSemanticSnapshot;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * In-memory store of capture results, keyed by URL, viewport, snapshot engine and
+ * a content fingerprint of the main document.
+ *
+ * Screenshots are kept as PNG bytes and snapshots in the compact columnar
+ * encoding, so every hit decodes fresh objects that callers may modify. Entries
+ * expire after a TTL and the least recently used ones are evicted once the total
+ * size exceeds the byte budget.
+ */
+public class CaptureCache {
+
+    private final CaptureConfig config;
+    private final CompactSnapshotCodec codec = new CompactSnapshotCodec();
+    // Access-ordered: iteration starts at the least recently used entry
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public CaptureCache(CaptureConfig config) {
+        this.config = config;
+    }
+
+    static String key(String url, Viewport viewport, SnapshotEngine engine, String fingerprint) {
+        return url + "|" + viewport + "|" + engine + "|" + fingerprint;
+    }
+
+    public BufferedImage getScreenshot(String key) {
+        Entry entry = lookup(key, true, false);
+        return entry == null ? null : decodePng(entry.screenshotPng);
+    }
+
+    public HtmlSemanticSnapshot getSnapshot(String key) {
+        Entry entry = lookup(key, false, true);
+        return entry == null ? null : codec.decode(entry.snapshot);
+    }
+
+    public CaptureResult getResult(String key) {
+        Entry entry = lookup(key, true, true);
+        return entry == null ? null
+                : new CaptureResult(decodePng(entry.screenshotPng), codec.decode(entry.snapshot));
+    }
+
+    /**
+     * Stores whichever parts are non-null, keeping parts already cached for the key.
+     */
+    public void put(String key, BufferedImage screenshot, HtmlSemanticSnapshot snapshot) {
+        // Encode outside the lock, PNG compression of a full page is not cheap
+        byte[] png = screenshot != null ? encodePng(screenshot) : null;
+        String encoded = snapshot != null ? codec.encode(snapshot) : null;
+
+        synchronized (this) {
+            Entry previous = entries.remove(key);
+            if (previous != null) {
+                bytes -= previous.size();
+                if (isFresh(previous)) {
+                    png = png != null ? png : previous.screenshotPng;
+                    encoded = encoded != null ? encoded : previous.snapshot;
+                }
+            }
+            Entry entry = new Entry(png, encoded, System.currentTimeMillis());
+            if (entry.size() > config.captureCacheMaxBytes) {
+                return;
+            }
+            entries.put(key, entry);
+            bytes += entry.size();
+            evictToBudget();
+        }
+    }
+
+    // Only the lookup holds the lock; entries are immutable, so hits decode them after releasing it
+    private synchronized Entry lookup(String key, boolean needScreenshot, boolean needSnapshot) {
+        Entry entry = entries.get(key);
+        if (entry != null && !isFresh(entry)) {
+            entries.remove(key);
+            bytes -= entry.size();
+            entry = null;
+        }
+        if (entry == null || (needScreenshot && entry.screenshotPng == null)
+                || (needSnapshot && entry.snapshot == null)) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry;
+    }
+
+    private boolean isFresh(Entry entry) {
+        return config.captureCacheTtlMs <= 0
+                || System.currentTimeMillis() - entry.createdAt < config.captureCacheTtlMs;
+    }
+
+    private void evictToBudget() {
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (bytes > config.captureCacheMaxBytes && it.hasNext()) {
+            bytes -= it.next().getValue().size();
+            it.remove();
+            evictions++;
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(entries.size(), bytes, config.captureCacheMaxBytes, hits, misses, evictions);
+    }
+
+    private static byte[] encodePng(BufferedImage image) {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ImageIO.write(image, "PNG", out);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to encode screenshot for the capture cache", e);
+        }
+    }
+
+    private static BufferedImage decodePng(byte[] png) {
+        try {
+            return ImageIO.read(new ByteArrayInputStream(png));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to decode cached screenshot", e);
+        }
+    }
+
+    private static class Entry {
+        final byte[] screenshotPng;
+        final String snapshot;
+        final long createdAt;
+
+        Entry(byte[] screenshotPng, String snapshot, long createdAt) {
+            this.screenshotPng = screenshotPng;
+            this.snapshot = snapshot;
+            this.createdAt = createdAt;
+        }
+
+        long size() {
+            return (screenshotPng != null ? screenshotPng.length : 0)
+                    + (snapshot != null ? 2L * snapshot.length() : 0);
+        }
+    }
+
+    /**
+     * Point-in-time cache metrics.
+     */
+    public static class Stats {
+        private final int entries;
+        private final long bytes;
+        private final long maxBytes;
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+
+        Stats(int entries, long bytes, long maxBytes, long hits, long misses, long evictions) {
+            this.entries = entries;
+            this.bytes = bytes;
+            this.maxBytes = maxBytes;
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+        }
+
+        public int getEntries() { return entries; }
+        public long getBytes() { return bytes; }
+        public long getMaxBytes() { return maxBytes; }
+        public long getHits() { return hits; }
+        public long getMisses() { return misses; }
+        public long getEvictions() { return evictions; }
+        public double getHitRate() { return hits + misses == 0 ? 0 : (double) hits / (hits + misses); }
+
+        @Override
+        public String toString() {
+            return String.format("entries=%d bytes=%d/%d hits=%d misses=%d evictions=%d hitRate=%.2f",
+                    entries, bytes, maxBytes, hits, misses, evictions, getHitRate());
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.mirror.capture;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Cancellation flag and deadline of one asynchronous capture.
+ *
+ * Playwright objects may only be used from the thread driving them, so a
+ * cancelled or expired capture is not torn down from outside. Instead the
+ * capture thread checks the call between phases and bounds every browser call
+ * by the remaining time; the resulting exception unwinds through the lease,
+ * which closes the page and its context.
+ */
+final class CaptureCall {
+
+    private final long deadlineNanos;
+    private volatile boolean cancelled;
+
+    CaptureCall(Duration deadline) {
+        this.deadlineNanos = deadline != null ? System.nanoTime() + deadline.toNanos() : Long.MAX_VALUE;
+    }
+
+    static CaptureCall unbounded() {
+        return new CaptureCall(null);
+    }
+
+    void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Throws if the capture was cancelled or ran out of time before the given phase.
+     */
+    void checkpoint(String phase) {
+        if (cancelled) {
+            throw new CancellationException("Capture cancelled before " + phase);
+        }
+        if (System.nanoTime() >= deadlineNanos) {
+            throw new CancellationException("Capture deadline exceeded before " + phase);
+        }
+    }
+
+    /**
+     * The given timeout, shortened to the time left until the deadline.
+     */
+    long boundTimeoutMs(long timeoutMs) {
+        if (deadlineNanos == Long.MAX_VALUE) {
+            return timeoutMs;
+        }
+        long remainingMs = Math.max(1, (deadlineNanos - System.nanoTime()) / 1_000_000);
+        return Math.min(timeoutMs, remainingMs);
+    }
+}
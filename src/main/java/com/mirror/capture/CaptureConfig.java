@@ -0,0 +1,176 @@
+package com.mirror.capture;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Configurable settings for browser-based page capture.
+ *
+ * One instance is built at startup (from Spring properties or CLI flags, see
+ * {@link #fromSettings(Map)}) and passed to every component through its
+ * constructor; there is no global instance.
+ */
+public class CaptureConfig {
+
+    // Browser pool sizing (each pooled browser is a separate headless Chromium process); caps the
+    // Chromium processes running at once, including idle ones and those on persistent profiles
+    public int browserPoolSize = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+
+    // Recycle a browser after this many jobs to cap renderer memory growth
+    public int maxUsesPerBrowser = 50;
+
+    // How long a capture may wait for a free browser before failing
+    public long acquireTimeoutMs = 120_000;
+
+    public boolean headless = true;
+
+    // Capture scheduler: 0 derives parallelism from cores and heap (capped at the pool size)
+    public int maxConcurrentCaptures = 0;
+    // Heap that in-flight page images may take; 0 uses half of the max heap
+    public long captureHeapBudgetBytes = 0;
+    // Page height assumed when estimating the heap needed by a full-page capture
+    public int estimatedPageHeight = 6000;
+
+    public long navigationTimeoutMs = 60_000;
+
+    // Page readiness: give up waiting for stability after this budget (per wait)
+    public long readinessBudgetMs = 10_000;
+
+    // Page counts as settled after no DOM mutation or resize for this long
+    public long readinessQuietWindowMs = 300;
+
+    // Lazy-content pass: stop scrolling past this page height or after this long
+    public int lazyLoadMaxHeight = 30_000;
+    public long lazyLoadBudgetMs = 8_000;
+
+    // Collapse CSS animations/transitions and run page timers on a virtual clock
+    public boolean freezeAnimations = false;
+
+    // Virtual time fired after loading so timer-driven effects finish instantly
+    public long clockFastForwardMs = 5_000;
+
+    // Semantic snapshot: 0 keeps every text node; nodes are transferred in chunks of this size
+    public int maxTextNodes = 0;
+    public int snapshotChunkSize = 500;
+    public SnapshotEncoding snapshotEncoding = SnapshotEncoding.COMPACT;
+
+    // Tiled capture: screenshot the page in bands of this height (0 = viewport height)
+    // and diff them one at a time instead of decoding a single full-page image
+    public boolean tiledCapture = false;
+    public int tileHeight = 0;
+
+    // Request routing: abort requests whose URL contains any of these strings
+    public List<String> blockedUrlPatterns = new ArrayList<>(List.of(
+            "google-analytics.com", "googletagmanager.com", "doubleclick.net", "connect.facebook.net",
+            "hotjar.com", "clarity.ms", "cdn.segment.com", "widget.intercom.io", "js.driftt.com",
+            "static.zdassets.com"));
+
+    // Playwright resource types to abort (e.g. media, font, image, websocket)
+    public Set<String> blockedResourceTypes = new HashSet<>(Set.of("media"));
+
+    // Replay cache: record each URL's traffic once as a HAR archive and replay it from disk
+    public boolean replayCacheEnabled = false;
+    public String replayCacheDir = "cache/capture";
+    // Recordings older than this are re-recorded; 0 keeps them until deleted
+    public long replayCacheTtlMs = 24 * 60 * 60 * 1000L;
+
+    // Capture cache: reuse screenshots and snapshots while the page fingerprint is unchanged
+    public boolean captureCacheEnabled = false;
+    public long captureCacheTtlMs = 10 * 60 * 1000L;
+    public long captureCacheMaxBytes = 256L * 1024 * 1024;
+
+    // Out-of-process capture: worker JVMs that own the browsers (0 captures in-process)
+    public int captureWorkers = 0;
+    // Concurrent captures per worker, which is also the worker's browser pool size
+    public int workerConcurrency = 2;
+    public int workerHeapMb = 1024;
+    // Directory for screenshot buffers handed from workers to this process (prefer tmpfs)
+    public String workerSharedDir = System.getProperty("java.io.tmpdir") + "/mirror-capture-workers";
+    public long workerStartTimeoutMs = 60_000;
+    public long workerRequestTimeoutMs = 300_000;
+    // Launch command up to the worker arguments; empty runs CaptureWorker on this classpath.
+    // A packaged Spring Boot jar needs its launcher here, e.g. with -Dloader.main
+    public List<String> workerCommand = new ArrayList<>();
+
+    // Persistent per-origin browser profiles: warm HTTP disk cache, cookies and storage across captures
+    public boolean persistentProfiles = false;
+    public String profileDir = "cache/profiles";
+    // Least recently used profiles are deleted beyond this total; 0 disables the limit
+    public long profileMaxBytes = 1024L * 1024 * 1024;
+    // Chromium disk cache size per profile (--disk-cache-size)
+    public long profileDiskCacheBytes = 128L * 1024 * 1024;
+    // Browsers kept running on their profile between captures, across all origins; 0 shuts each down after use
+    public int maxIdleProfileBrowsers = 2;
+
+    /**
+     * Names of all settings, i.e. the public instance fields.
+     */
+    public static List<String> settingNames() {
+        List<String> names = new ArrayList<>();
+        for (Field field : CaptureConfig.class.getFields()) {
+            if (!Modifier.isStatic(field.getModifiers())) {
+                names.add(field.getName());
+            }
+        }
+        return names;
+    }
+
+    /**
+     * A config with the defaults overridden by settings given as strings and
+     * keyed by field name, e.g. {@code tiledCapture=true}; collections take
+     * comma-separated values.
+     *
+     * @throws IllegalArgumentException for an unknown setting or a malformed value
+     */
+    public static CaptureConfig fromSettings(Map<String, String> settings) {
+        ObjectMapper objectMapper = new ObjectMapper();
+        ObjectNode values = objectMapper.createObjectNode();
+        settings.forEach((name, value) -> {
+            Field field;
+            try {
+                field = CaptureConfig.class.getField(name);
+            } catch (NoSuchFieldException e) {
+                field = null;
+            }
+            if (field == null || Modifier.isStatic(field.getModifiers())) {
+                throw new IllegalArgumentException("Unknown capture setting '" + name + "'");
+            }
+            if (Collection.class.isAssignableFrom(field.getType())) {
+                ArrayNode items = values.putArray(name);
+                for (String item : value.split(",")) {
+                    if (!item.isBlank()) {
+                        items.add(item.trim());
+                    }
+                }
+            } else {
+                values.put(name, value.trim());
+            }
+        });
+        try {
+            return objectMapper.readerForUpdating(new CaptureConfig()).readValue(values);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid capture setting: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Wire format for semantic snapshot chunks.
+     */
+    public enum SnapshotEncoding {
+        // One JSON object per node, parsed with Jackson
+        JSON,
+        // Columnar arrays plus a shared string table, see CompactSnapshotCodec
+        COMPACT
+    }
+}
@@ -0,0 +1,135 @@
+package com.mirror.capture;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Histograms of capture phase durations and payload sizes across all captures,
+ * fed from every {@link CaptureTimings}. Buckets are fixed, so recording is
+ * cheap and the percentiles reported are bucket upper bounds.
+ */
+public class CaptureMetrics {
+
+    private static final double[] MS_BUCKETS = {
+            5, 10, 25, 50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000, 30_000, 60_000 };
+    private static final double[] BYTE_BUCKETS = {
+            1 << 10, 1 << 14, 1 << 16, 1 << 18, 1 << 20, 1 << 22, 1 << 24, 1 << 26, 1 << 28 };
+
+    private final Map<String, Histogram> phases = new ConcurrentHashMap<>();
+    private final Map<String, Histogram> payloads = new ConcurrentHashMap<>();
+
+    public void record(CaptureTimings timings) {
+        phases.computeIfAbsent("total", n -> new Histogram(MS_BUCKETS)).record(timings.getTotalMs());
+        timings.getPhaseMs().forEach((name, ms) ->
+                phases.computeIfAbsent(name, n -> new Histogram(MS_BUCKETS)).record(ms));
+        timings.getPayloadBytes().forEach((name, bytes) ->
+                payloads.computeIfAbsent(name, n -> new Histogram(BYTE_BUCKETS)).record(bytes));
+    }
+
+    public Snapshot snapshot() {
+        Map<String, Histogram.Stats> phaseStats = new TreeMap<>();
+        phases.forEach((name, histogram) -> phaseStats.put(name, histogram.stats()));
+        Map<String, Histogram.Stats> payloadStats = new TreeMap<>();
+        payloads.forEach((name, histogram) -> payloadStats.put(name, histogram.stats()));
+        return new Snapshot(phaseStats, payloadStats);
+    }
+
+    /**
+     * Point-in-time histograms: phase durations in ms and payload sizes in bytes.
+     */
+    public static class Snapshot {
+        private final Map<String, Histogram.Stats> phaseMs;
+        private final Map<String, Histogram.Stats> payloadBytes;
+
+        Snapshot(Map<String, Histogram.Stats> phaseMs, Map<String, Histogram.Stats> payloadBytes) {
+            this.phaseMs = phaseMs;
+            this.payloadBytes = payloadBytes;
+        }
+
+        public Map<String, Histogram.Stats> getPhaseMs() { return phaseMs; }
+        public Map<String, Histogram.Stats> getPayloadBytes() { return payloadBytes; }
+    }
+
+    /**
+     * Fixed-bucket histogram with count, sum and max.
+     */
+    public static class Histogram {
+        private final double[] bounds;
+        // One count per bound plus the overflow bucket
+        private final long[] counts;
+        private long count;
+        private double sum;
+        private double max;
+
+        Histogram(double[] bounds) {
+            this.bounds = bounds;
+            this.counts = new long[bounds.length + 1];
+        }
+
+        synchronized void record(double value) {
+            int i = 0;
+            while (i < bounds.length && value > bounds[i]) {
+                i++;
+            }
+            counts[i]++;
+            count++;
+            sum += value;
+            max = Math.max(max, value);
+        }
+
+        synchronized Stats stats() {
+            Map<String, Long> buckets = new LinkedHashMap<>();
+            for (int i = 0; i < bounds.length; i++) {
+                buckets.put("le_" + (long) bounds[i], counts[i]);
+            }
+            buckets.put("le_inf", counts[bounds.length]);
+            return new Stats(count, sum, max, percentile(0.5), percentile(0.95), buckets);
+        }
+
+        private double percentile(double q) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(q * count);
+            long seen = 0;
+            for (int i = 0; i < bounds.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(bounds[i], max);
+                }
+            }
+            return max;
+        }
+
+        /**
+         * Counts per bucket upper bound ({@code le_<bound>}) plus summary values.
+         */
+        public static class Stats {
+            private final long count;
+            private final double sum;
+            private final double max;
+            private final double p50;
+            private final double p95;
+            private final Map<String, Long> buckets;
+
+            Stats(long count, double sum, double max, double p50, double p95, Map<String, Long> buckets) {
+                this.count = count;
+                this.sum = sum;
+                this.max = max;
+                this.p50 = p50;
+                this.p95 = p95;
+                this.buckets = buckets;
+            }
+
+            public long getCount() { return count; }
+            public double getSum() { return sum; }
+            public double getMean() { return count == 0 ? 0 : sum / count; }
+            public double getMax() { return max; }
+            public double getP50() { return p50; }
+            public double getP95() { return p95; }
+            public Map<String, Long> getBuckets() { return buckets; }
+        }
+    }
+}
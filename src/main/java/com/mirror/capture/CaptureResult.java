@@ -0,0 +1,33 @@
+package com.mirror.capture;
+
+import com.mirror.semantic.HtmlSemanticSnapshot;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Full-page screenshot and semantic snapshot taken from a single page load.
+ */
+public class CaptureResult {
+
+    private final BufferedImage screenshot;
+    private final HtmlSemanticSnapshot snapshot;
+    private final CaptureTimings timings;
+
+    public CaptureResult(BufferedImage screenshot, HtmlSemanticSnapshot snapshot) {
+        this(screenshot, snapshot, new CaptureTimings());
+    }
+
+    public CaptureResult(BufferedImage screenshot, HtmlSemanticSnapshot snapshot, CaptureTimings timings) {
+        this.screenshot = screenshot;
+        this.snapshot = snapshot;
+        this.timings = timings;
+    }
+
+    public BufferedImage getScreenshot() { return screenshot; }
+    public HtmlSemanticSnapshot getSnapshot() { return snapshot; }
+
+    /**
+     * Phase durations and payload sizes of the capture; empty for cached results.
+     */
+    public CaptureTimings getTimings() { return timings; }
+}
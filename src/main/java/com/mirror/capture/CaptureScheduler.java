@@ -0,0 +1,216 @@
+package com.mirror.capture;
+
+import com.mirror.model.Viewport;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs capture jobs with bounded parallelism and memory-aware admission.
+ *
+ * Parallelism is derived from the available cores and the heap budget, and
+ * capped at the browser pool size (or the total capture worker slots) so no
+ * admitted job sits waiting for a browser.
+ * Every job declares the heap its full-page images are expected to need; callers
+ * block before admission while the in-flight estimate would exceed the budget,
+ * which pushes back on REST request threads instead of queueing without limit.
+ */
+public class CaptureScheduler implements AutoCloseable {
+
+    // Live screenshot, aligned copies, two Mats and the diff overlay are alive at once
+    private static final int LIVE_IMAGE_COPIES = 5;
+    private static final int BYTES_PER_PIXEL = 4;
+
+    private final CaptureConfig config;
+    private final long heapBudgetBytes;
+    private final int parallelism;
+    private final Semaphore slots;
+    // Admission budget in KiB so that large budgets fit into int permits
+    private final Semaphore heapPermits;
+    private final int heapBudgetKb;
+    private final ExecutorService executor;
+
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicLong admittedBytes = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    public CaptureScheduler(CaptureConfig config) {
+        this.config = config;
+        Runtime rt = Runtime.getRuntime();
+        this.heapBudgetBytes = config.captureHeapBudgetBytes > 0
+                ? config.captureHeapBudgetBytes
+                : rt.maxMemory() / 2;
+        this.heapBudgetKb = (int) Math.max(1, Math.min(Integer.MAX_VALUE, heapBudgetBytes / 1024));
+
+        long perCapture = Math.max(1, estimateBytes(Viewport.DESKTOP));
+        long freeHeap = rt.maxMemory() - (rt.totalMemory() - rt.freeMemory());
+        int byMemory = (int) Math.max(1, Math.min(heapBudgetBytes, freeHeap) / perCapture);
+        int auto = Math.min(rt.availableProcessors(), byMemory);
+        int requested = config.maxConcurrentCaptures > 0 ? config.maxConcurrentCaptures : auto;
+        int captureSlots = config.captureWorkers > 0
+                ? config.captureWorkers * Math.max(1, config.workerConcurrency)
+                : config.browserPoolSize;
+        this.parallelism = Math.max(1, Math.min(requested, Math.max(1, captureSlots)));
+
+        this.slots = new Semaphore(parallelism, true);
+        this.heapPermits = new Semaphore(heapBudgetKb, true);
+        this.executor = Executors.newFixedThreadPool(parallelism, new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "capture-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+        System.out.println("Capture scheduler: parallelism=" + parallelism + " heapBudget="
+                + (heapBudgetBytes / (1024 * 1024)) + "MB (~" + (perCapture / (1024 * 1024)) + "MB per desktop capture)");
+    }
+
+    /**
+     * Expected heap for one comparison at this viewport: the Figma frame plus the
+     * live page images (only one band of them in tiled mode).
+     */
+    public long estimateBytes(Viewport viewport) {
+        long pagePixels = (long) viewport.getWidth() * config.estimatedPageHeight;
+        int bandHeight = config.tileHeight > 0 ? config.tileHeight : viewport.getHeight();
+        long livePixels = config.tiledCapture ? (long) viewport.getWidth() * bandHeight : pagePixels;
+        return pagePixels * BYTES_PER_PIXEL + livePixels * BYTES_PER_PIXEL * LIVE_IMAGE_COPIES;
+    }
+
+    /**
+     * Runs the job on the calling thread once it has been admitted and a slot is free.
+     */
+    public <T> T run(long estimatedBytes, Callable<T> job) {
+        int kb = admit(estimatedBytes);
+        try {
+            return execute(job);
+        } finally {
+            release(kb, estimatedBytes);
+        }
+    }
+
+    /**
+     * Blocks the caller until the job is admitted, then runs it on a scheduler thread.
+     */
+    public <T> CompletableFuture<T> submit(long estimatedBytes, Callable<T> job) {
+        int kb = admit(estimatedBytes);
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return execute(job);
+                } finally {
+                    release(kb, estimatedBytes);
+                }
+            }, executor);
+        } catch (RuntimeException e) {
+            release(kb, estimatedBytes);
+            throw e;
+        }
+    }
+
+    private int admit(long estimatedBytes) {
+        // A job larger than the whole budget is admitted alone rather than never
+        int kb = (int) Math.max(1, Math.min(heapBudgetKb, estimatedBytes / 1024));
+        waiting.incrementAndGet();
+        try {
+            heapPermits.acquire(kb);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for capture admission", e);
+        } finally {
+            waiting.decrementAndGet();
+        }
+        admittedBytes.addAndGet(estimatedBytes);
+        return kb;
+    }
+
+    private void release(int kb, long estimatedBytes) {
+        admittedBytes.addAndGet(-estimatedBytes);
+        heapPermits.release(kb);
+    }
+
+    private <T> T execute(Callable<T> job) {
+        try {
+            slots.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for a capture slot", e);
+        }
+        running.incrementAndGet();
+        try {
+            T result = job.call();
+            completed.incrementAndGet();
+            return result;
+        } catch (RuntimeException e) {
+            failed.incrementAndGet();
+            throw e;
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            throw new CompletionException(e);
+        } finally {
+            running.decrementAndGet();
+            slots.release();
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(parallelism, heapBudgetBytes, admittedBytes.get(), running.get(), waiting.get(),
+                completed.get(), failed.get());
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    /**
+     * Point-in-time scheduler metrics.
+     */
+    public static class Stats {
+        private final int parallelism;
+        private final long heapBudgetBytes;
+        private final long admittedBytes;
+        private final int running;
+        private final int waiting;
+        private final long completed;
+        private final long failed;
+
+        Stats(int parallelism, long heapBudgetBytes, long admittedBytes, int running, int waiting,
+                long completed, long failed) {
+            this.parallelism = parallelism;
+            this.heapBudgetBytes = heapBudgetBytes;
+            this.admittedBytes = admittedBytes;
+            this.running = running;
+            this.waiting = waiting;
+            this.completed = completed;
+            this.failed = failed;
+        }
+
+        public int getParallelism() { return parallelism; }
+        public long getHeapBudgetBytes() { return heapBudgetBytes; }
+        public long getAdmittedBytes() { return admittedBytes; }
+        public int getRunning() { return running; }
+        public int getWaiting() { return waiting; }
+        public long getCompleted() { return completed; }
+        public long getFailed() { return failed; }
+
+        @Override
+        public String toString() {
+            return String.format("parallelism=%d running=%d waiting=%d admitted=%dMB/%dMB completed=%d failed=%d",
+                    parallelism, running, waiting, admittedBytes / (1024 * 1024), heapBudgetBytes / (1024 * 1024),
+                    completed, failed);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.mirror.capture;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Where one capture spent its time: per-phase durations (browser acquisition,
+ * navigation, readiness waits, lazy-content pass, snapshot evaluation,
+ * screenshot, PNG decode) and the size of the payloads moved out of the browser.
+ */
+public class CaptureTimings {
+
+    private final Map<String, Double> phaseMs = new LinkedHashMap<>();
+    private final Map<String, Long> payloadBytes = new LinkedHashMap<>();
+    private double totalMs;
+
+    public Map<String, Double> getPhaseMs() { return phaseMs; }
+    public Map<String, Long> getPayloadBytes() { return payloadBytes; }
+
+    /**
+     * Wall-clock time of the capture. Phases may nest (e.g. snapshot_evaluate is
+     * part of snapshot), so this is not the sum of the phases.
+     */
+    public double getTotalMs() { return totalMs; }
+    public void setTotalMs(double totalMs) { this.totalMs = totalMs; }
+
+    public void addPhase(String name, double durationMs) {
+        phaseMs.merge(name, durationMs, Double::sum);
+    }
+
+    public void addPayload(String name, long bytes) {
+        payloadBytes.merge(name, bytes, Long::sum);
+    }
+
+    /**
+     * Records the phases of a readiness wait, e.g. the navigation pipeline.
+     */
+    public void addReadiness(ReadinessReport report) {
+        report.getPhaseMs().forEach(this::addPhase);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(String.format("%.0f ms", totalMs));
+        phaseMs.forEach((name, ms) -> sb.append(String.format(" %s=%.0f", name, ms)));
+        payloadBytes.forEach((name, bytes) -> sb.append(' ').append(name).append('=').append(bytes));
+        return sb.toString();
+    }
+}
@@ -0,0 +1,314 @@
+package com.mirror.capture;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mirror.model.Viewport;
+import com.mirror.semantic.CompactSnapshotCodec;
+import com.mirror.semantic.HtmlSemanticSnapshot;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Capture worker process: owns a browser pool and serves capture requests from
+ * the analysis JVM over a loopback socket (see {@link WorkerProtocol}).
+ *
+ * Keeping Chromium and the full-page screenshots in their own JVM means a page
+ * that exhausts memory takes down only this worker, which
+ * {@link CaptureWorkerPool} then restarts. The worker exits when its standard
+ * input closes, so it never outlives the process that started it.
+ *
+ * Usage: {@code CaptureWorker <port|0> <sharedDir> <browserPoolSize> [configJson]}, where
+ * {@code configJson} is the parent's {@link CaptureConfig} written by
+ * {@link CaptureWorkerPool}; without it the defaults apply.
+ */
+public class CaptureWorker {
+
+    static final String READY = "CAPTURE_WORKER_READY ";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final CompactSnapshotCodec codec = new CompactSnapshotCodec();
+    private final Map<SnapshotEngine, WebCaptureService> services = new EnumMap<>(SnapshotEngine.class);
+    private final Path sharedDir;
+
+    CaptureWorker(CaptureConfig config, Path sharedDir) {
+        this.sharedDir = sharedDir;
+        BrowserPool browserPool = new BrowserPool(config);
+        services.put(SnapshotEngine.SCRIPT, new PlaywrightCaptureService(config, browserPool));
+        services.put(SnapshotEngine.CDP, new CdpSnapshotCaptureService(config, browserPool));
+    }
+
+    /**
+     * Reads the parent's capture settings. Unknown properties are ignored so that
+     * a worker command running another build still starts.
+     */
+    static CaptureConfig readConfig(Path file) throws IOException {
+        return new ObjectMapper()
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+                .readValue(file.toFile(), CaptureConfig.class);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 0;
+        CaptureConfig config = args.length > 3 ? readConfig(Paths.get(args[3])) : new CaptureConfig();
+        Path sharedDir = Paths.get(args.length > 1 ? args[1] : config.workerSharedDir);
+        if (args.length > 2) {
+            config.browserPoolSize = Integer.parseInt(args[2]);
+        }
+        // This process is the worker; it must not start workers of its own
+        config.captureWorkers = 0;
+        Files.createDirectories(sharedDir);
+
+        CaptureWorker worker = new CaptureWorker(config, sharedDir);
+        exitWhenParentGoesAway();
+
+        ExecutorService connections = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "capture-worker-connection");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (ServerSocket server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            System.out.println(READY + server.getLocalPort());
+            System.out.flush();
+            while (true) {
+                Socket socket = server.accept();
+                connections.execute(() -> worker.serve(socket));
+            }
+        }
+    }
+
+    private static void exitWhenParentGoesAway() {
+        Thread watcher = new Thread(() -> {
+            try {
+                while (System.in.read() != -1) {
+                    // Nothing is sent on stdin, it only signals that the parent is alive
+                }
+            } catch (IOException ignored) {
+                // Treated like end of stream
+            }
+            System.out.println("Parent process gone, capture worker exiting");
+            System.exit(0);
+        }, "capture-worker-parent-watch");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    /**
+     * Serves requests on one connection, one at a time, until it is closed.
+     */
+    void serve(Socket socket) {
+        try (Socket s = socket;
+                BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+                BufferedWriter out = new BufferedWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                WorkerProtocol.Request request = objectMapper.readValue(line, WorkerProtocol.Request.class);
+                if (request.op.isAsync()) {
+                    serveAsync(request, in, out);
+                    return;
+                }
+                WorkerProtocol.Response response;
+                try {
+                    response = handle(request, tile -> send(out, tile));
+                } catch (RuntimeException e) {
+                    response = error(e);
+                }
+                response.id = request.id;
+                send(out, response);
+            }
+        } catch (IOException | UncheckedIOException e) {
+            System.out.println("Capture worker connection closed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Runs an asynchronous capture and sends its response when it completes,
+     * while watching the connection: the caller closes it to cancel the capture,
+     * which cancels the capture's future so that it stops at its next phase and
+     * frees its browser. The connection serves no further requests.
+     */
+    private void serveAsync(WorkerProtocol.Request request, BufferedReader in, BufferedWriter out) {
+        CompletableFuture<?> capture;
+        try {
+            capture = startAsync(request);
+        } catch (RuntimeException e) {
+            WorkerProtocol.Response response = error(e);
+            response.id = request.id;
+            send(out, response);
+            return;
+        }
+        capture.whenComplete((value, failure) -> {
+            WorkerProtocol.Response response;
+            try {
+                if (failure != null) {
+                    throw failure instanceof CompletionException && failure.getCause() instanceof RuntimeException
+                            ? (RuntimeException) failure.getCause()
+                            : new RuntimeException(failure);
+                }
+                response = asyncResult(request, value);
+            } catch (RuntimeException e) {
+                response = error(e);
+            }
+            response.id = request.id;
+            try {
+                send(out, response);
+            } catch (UncheckedIOException e) {
+                // The caller has gone, nobody will map the screenshot
+                deleteShared(response);
+            }
+        });
+        try {
+            while (in.readLine() != null) {
+                // Nothing more is sent, the caller only closes the connection
+            }
+        } catch (IOException e) {
+            // Treated like the caller closing the connection
+        }
+        if (capture.cancel(true)) {
+            System.out.println("Capture of " + request.url + " cancelled by the caller");
+        }
+    }
+
+    private CompletableFuture<?> startAsync(WorkerProtocol.Request request) {
+        WebCaptureService capture = service(request);
+        Viewport viewport = viewport(request);
+        Duration deadline = request.deadlineMs > 0 ? Duration.ofMillis(request.deadlineMs) : null;
+        if (request.op == WorkerProtocol.Op.CAPTURE) {
+            return capture.captureAsync(request.url, viewport, deadline);
+        }
+        return capture.captureSemanticAsync(request.url, viewport, deadline);
+    }
+
+    private WorkerProtocol.Response asyncResult(WorkerProtocol.Request request, Object value) {
+        WorkerProtocol.Response response = new WorkerProtocol.Response();
+        response.type = WorkerProtocol.Response.Type.RESULT;
+        if (request.op == WorkerProtocol.Op.CAPTURE) {
+            response.images.put(WorkerProtocol.PAGE, share((BufferedImage) value));
+        } else {
+            response.snapshots.put(WorkerProtocol.PAGE, codec.encode((HtmlSemanticSnapshot) value));
+        }
+        return response;
+    }
+
+    private static WorkerProtocol.Response error(RuntimeException e) {
+        WorkerProtocol.Response response = new WorkerProtocol.Response();
+        response.type = WorkerProtocol.Response.Type.ERROR;
+        response.error = e.getCause() != null ? e.getMessage() + ": " + e.getCause() : e.getMessage();
+        return response;
+    }
+
+    private WorkerProtocol.Response handle(WorkerProtocol.Request request,
+            Consumer<WorkerProtocol.Response> tiles) {
+        WebCaptureService capture = service(request);
+        Viewport viewport = viewport(request);
+        WorkerProtocol.Response response = new WorkerProtocol.Response();
+        response.type = WorkerProtocol.Response.Type.RESULT;
+
+        switch (request.op) {
+            case WITH_SNAPSHOT: {
+                CaptureResult result = capture.captureWithSnapshot(request.url, viewport);
+                response.images.put(WorkerProtocol.PAGE, share(result.getScreenshot()));
+                response.snapshots.put(WorkerProtocol.PAGE, codec.encode(result.getSnapshot()));
+                break;
+            }
+            case VIEWPORTS: {
+                List<Viewport> viewports = new ArrayList<>();
+                request.viewports.forEach(name -> viewports.add(Viewport.valueOf(name)));
+                capture.captureViewports(request.url, viewports).forEach((v, result) -> {
+                    response.images.put(v.name(), share(result.getScreenshot()));
+                    response.snapshots.put(v.name(), codec.encode(result.getSnapshot()));
+                });
+                break;
+            }
+            case TILES:
+                capture.captureTiles(request.url, viewport, tile -> tiles.accept(tileResponse(request, tile)));
+                break;
+            case TILES_WITH_SNAPSHOT: {
+                HtmlSemanticSnapshot snapshot = capture.captureTilesWithSnapshot(request.url, viewport,
+                        tile -> tiles.accept(tileResponse(request, tile)));
+                response.snapshots.put(WorkerProtocol.PAGE, codec.encode(snapshot));
+                break;
+            }
+            case SECTIONS:
+                capture.captureSections(request.url, viewport)
+                        .forEach((section, image) -> response.images.put(section.name(), share(image)));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown capture operation " + request.op);
+        }
+        return response;
+    }
+
+    private WebCaptureService service(WorkerProtocol.Request request) {
+        return services.get(request.engine != null ? request.engine : SnapshotEngine.SCRIPT);
+    }
+
+    private static Viewport viewport(WorkerProtocol.Request request) {
+        return request.viewport != null ? Viewport.valueOf(request.viewport) : Viewport.DESKTOP;
+    }
+
+    private WorkerProtocol.Response tileResponse(WorkerProtocol.Request request, ScreenshotTile tile) {
+        WorkerProtocol.Response response = new WorkerProtocol.Response();
+        response.id = request.id;
+        response.type = WorkerProtocol.Response.Type.TILE;
+        response.index = tile.getIndex();
+        response.y = tile.getY();
+        response.pageWidth = tile.getPageWidth();
+        response.pageHeight = tile.getPageHeight();
+        response.images.put(WorkerProtocol.PAGE, share(tile.getImage()));
+        return response;
+    }
+
+    private String share(BufferedImage image) {
+        Path file = sharedDir.resolve(UUID.randomUUID() + ".img");
+        try {
+            SharedImageBuffer.write(image, file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write shared screenshot " + file, e);
+        }
+        return file.toString();
+    }
+
+    private static void deleteShared(WorkerProtocol.Response response) {
+        for (String file : response.images.values()) {
+            try {
+                Files.deleteIfExists(Paths.get(file));
+            } catch (IOException e) {
+                System.out.println("Warning: could not delete shared screenshot " + file + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void send(BufferedWriter out, WorkerProtocol.Response response) {
+        try {
+            out.write(objectMapper.writeValueAsString(response));
+            out.newLine();
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
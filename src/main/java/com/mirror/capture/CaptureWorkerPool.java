@@ -0,0 +1,407 @@
+package com.mirror.capture;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Starts and supervises {@link CaptureWorker} processes and routes capture
+ * requests to them.
+ *
+ * Each worker offers {@code workerConcurrency} slots; a request takes a free
+ * slot, opens a loopback connection to that worker and waits for its response.
+ * Workers are started lazily and restarted whenever their process exits. A
+ * request whose worker died is retried once on a fresh worker, unless it had
+ * already streamed tiles to the caller. Workers capture with this process's
+ * {@link CaptureConfig}, which is written to the shared directory as JSON and
+ * passed to them by path.
+ */
+public class CaptureWorkerPool implements AutoCloseable {
+
+    private final CaptureConfig config;
+    private final Path sharedDir;
+    private final Path configFile;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<Worker> workers = new ArrayList<>();
+    private final BlockingQueue<Worker> slots = new LinkedBlockingQueue<>();
+
+    private final AtomicLong requestIds = new AtomicLong();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong restarts = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    private volatile boolean closed;
+
+    public CaptureWorkerPool(CaptureConfig config) {
+        this.config = config;
+        this.sharedDir = Paths.get(config.workerSharedDir);
+        this.configFile = sharedDir.resolve("worker-config-" + ProcessHandle.current().pid() + ".json");
+        try {
+            Files.createDirectories(sharedDir);
+            deleteStaleBuffers();
+            objectMapper.writeValue(configFile.toFile(), config);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to prepare worker shared directory " + sharedDir, e);
+        }
+
+        for (int i = 0; i < Math.max(1, config.captureWorkers); i++) {
+            workers.add(new Worker(i + 1));
+        }
+        // Interleave slots so that concurrent requests spread over the workers first
+        for (int c = 0; c < Math.max(1, config.workerConcurrency); c++) {
+            slots.addAll(workers);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "capture-worker-shutdown"));
+    }
+
+    /**
+     * Sends the request to a worker and returns its RESULT response. TILE
+     * responses are passed to the tile handler as they arrive.
+     */
+    WorkerProtocol.Response call(WorkerProtocol.Request request, Consumer<WorkerProtocol.Response> tiles) {
+        return call(request, tiles, null);
+    }
+
+    /**
+     * Like {@link #call(WorkerProtocol.Request, Consumer)}, for the asynchronous
+     * capture behind {@code caller}: when that future is cancelled or times out,
+     * the connection is closed, which makes the worker cancel the capture, and
+     * the slot is freed at once.
+     */
+    WorkerProtocol.Response call(WorkerProtocol.Request request, Consumer<WorkerProtocol.Response> tiles,
+            CompletableFuture<?> caller) {
+        if (closed) {
+            throw new IllegalStateException("Capture worker pool is closed");
+        }
+        request.id = requestIds.incrementAndGet();
+
+        Worker worker = takeSlot();
+        inFlight.incrementAndGet();
+        try {
+            AtomicInteger tilesSeen = new AtomicInteger();
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    return worker.exchange(request, tile -> {
+                        tilesSeen.incrementAndGet();
+                        tiles.accept(tile);
+                    }, caller);
+                } catch (IOException e) {
+                    if (caller != null && caller.isDone()) {
+                        throw new CancellationException("Capture of " + request.url + " abandoned by the caller");
+                    }
+                    failures.incrementAndGet();
+                    worker.recover(e);
+                    if (attempt >= 2 || tilesSeen.get() > 0) {
+                        throw new RuntimeException("Capture worker " + worker.number + " failed during "
+                                + request.op + " of " + request.url, e);
+                    }
+                    System.out.println("Capture worker " + worker.number + " failed (" + e.getMessage()
+                            + "), retrying " + request.url);
+                }
+            }
+        } finally {
+            inFlight.decrementAndGet();
+            slots.add(worker);
+        }
+    }
+
+    /**
+     * Number of requests the workers serve at once.
+     */
+    int slotCount() {
+        return workers.size() * Math.max(1, config.workerConcurrency);
+    }
+
+    private Worker takeSlot() {
+        try {
+            Worker worker = slots.poll(config.acquireTimeoutMs, TimeUnit.MILLISECONDS);
+            if (worker == null) {
+                throw new RuntimeException("Timed out after " + config.acquireTimeoutMs
+                        + " ms waiting for a capture worker (" + stats() + ")");
+            }
+            return worker;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for a capture worker", e);
+        }
+    }
+
+    private void deleteStaleBuffers() throws IOException {
+        try (DirectoryStream<Path> stale = Files.newDirectoryStream(sharedDir, "*.img")) {
+            for (Path file : stale) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    public Stats stats() {
+        int alive = 0;
+        for (Worker worker : workers) {
+            if (worker.isAlive()) {
+                alive++;
+            }
+        }
+        return new Stats(workers.size(), alive, inFlight.get(), restarts.get(), failures.get());
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (Worker worker : workers) {
+            worker.stop();
+        }
+        try {
+            Files.deleteIfExists(configFile);
+        } catch (IOException e) {
+            System.out.println("Warning: failed to delete worker config " + configFile + " (" + e.getMessage() + ")");
+        }
+    }
+
+    /**
+     * One worker process. Its process and port are replaced on restart, the
+     * slots referring to it stay valid.
+     */
+    private class Worker {
+        private final int number;
+        private Process process;
+        private int port;
+
+        Worker(int number) {
+            this.number = number;
+        }
+
+        synchronized boolean isAlive() {
+            return process != null && process.isAlive();
+        }
+
+        private synchronized int ensureStarted() throws IOException {
+            if (process != null && process.isAlive()) {
+                return port;
+            }
+            if (closed) {
+                throw new IOException("Capture worker pool is closed");
+            }
+            if (process != null) {
+                restarts.incrementAndGet();
+            }
+            start();
+            return port;
+        }
+
+        private void start() throws IOException {
+            List<String> command = new ArrayList<>(config.workerCommand);
+            if (command.isEmpty()) {
+                command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+                command.add("-Xmx" + config.workerHeapMb + "m");
+                // An OOM must kill the worker so that it gets restarted, not leave it half alive
+                command.add("-XX:+ExitOnOutOfMemoryError");
+                command.add("-cp");
+                command.add(System.getProperty("java.class.path"));
+                command.add(CaptureWorker.class.getName());
+            }
+            command.add("0");
+            command.add(sharedDir.toString());
+            command.add(String.valueOf(Math.max(1, config.workerConcurrency)));
+            command.add(configFile.toString());
+
+            long start = System.nanoTime();
+            Process started = new ProcessBuilder(command)
+                    .redirectError(ProcessBuilder.Redirect.INHERIT)
+                    .start();
+            CompletableFuture<Integer> ready = new CompletableFuture<>();
+            Thread pump = new Thread(() -> pumpOutput(started, ready), "capture-worker-" + number + "-output");
+            pump.setDaemon(true);
+            pump.start();
+
+            try {
+                port = ready.get(config.workerStartTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException | ExecutionException e) {
+                started.destroyForcibly();
+                throw new IOException("Capture worker " + number + " did not start", e);
+            } catch (InterruptedException e) {
+                started.destroyForcibly();
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while starting capture worker " + number, e);
+            }
+            process = started;
+            started.onExit().thenRun(() -> onExit(started));
+            System.out.printf("Capture worker %d started on port %d (pid %d) in %.0f ms%n", number, port,
+                    started.pid(), (System.nanoTime() - start) / 1_000_000.0);
+        }
+
+        /**
+         * Forwards the worker's log lines, completing {@code ready} with the port
+         * from its READY line.
+         */
+        private void pumpOutput(Process worker, CompletableFuture<Integer> ready) {
+            try (BufferedReader out = new BufferedReader(
+                    new InputStreamReader(worker.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = out.readLine()) != null) {
+                    if (!ready.isDone() && line.startsWith(CaptureWorker.READY)) {
+                        ready.complete(Integer.parseInt(line.substring(CaptureWorker.READY.length()).trim()));
+                    } else {
+                        System.out.println("[worker-" + number + "] " + line);
+                    }
+                }
+            } catch (IOException ignored) {
+                // Stream closes with the process
+            }
+            ready.completeExceptionally(new EOFException("Worker exited before it was ready"));
+        }
+
+        private void onExit(Process exited) {
+            synchronized (this) {
+                if (closed || exited != process) {
+                    return;
+                }
+            }
+            System.out.println("Capture worker " + number + " exited with code " + exited.exitValue()
+                    + ", restarting");
+            try {
+                ensureStarted();
+            } catch (IOException e) {
+                System.out.println("Warning: could not restart capture worker " + number + ": " + e.getMessage()
+                        + " (will retry on next request)");
+            }
+        }
+
+        /**
+         * After a failed exchange: kill the worker if it stopped responding. A dead
+         * process is restarted by the next {@link #ensureStarted()}.
+         */
+        synchronized void recover(IOException cause) {
+            if (process == null || !process.isAlive() || !(cause instanceof SocketTimeoutException)) {
+                return;
+            }
+            try {
+                process.destroyForcibly().waitFor(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        WorkerProtocol.Response exchange(WorkerProtocol.Request request, Consumer<WorkerProtocol.Response> tiles,
+                CompletableFuture<?> caller) throws IOException {
+            int workerPort = ensureStarted();
+            try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), workerPort)) {
+                socket.setSoTimeout((int) Math.min(Integer.MAX_VALUE, config.workerRequestTimeoutMs));
+                if (caller != null) {
+                    // Unblocks the read below and tells the worker to cancel the capture
+                    caller.whenComplete((result, error) -> {
+                        if (error != null) {
+                            closeQuietly(socket);
+                        }
+                    });
+                }
+                BufferedWriter out = new BufferedWriter(
+                        new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+                BufferedReader in = new BufferedReader(
+                        new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                out.write(objectMapper.writeValueAsString(request));
+                out.newLine();
+                out.flush();
+
+                String line;
+                while ((line = in.readLine()) != null) {
+                    WorkerProtocol.Response response = objectMapper.readValue(line, WorkerProtocol.Response.class);
+                    switch (response.type) {
+                        case TILE:
+                            tiles.accept(response);
+                            break;
+                        case ERROR:
+                            throw new RuntimeException("Capture worker " + number + ": " + response.error);
+                        default:
+                            return response;
+                    }
+                }
+                throw new EOFException("Capture worker " + number + " closed the connection");
+            }
+        }
+
+        private void closeQuietly(Socket socket) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // Already closed
+            }
+        }
+
+        synchronized void stop() {
+            if (process == null) {
+                return;
+            }
+            // Closing stdin makes the worker exit on its own and close its browsers
+            try {
+                process.getOutputStream().close();
+                if (!process.waitFor(5, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                }
+            } catch (IOException e) {
+                process.destroyForcibly();
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Point-in-time worker metrics.
+     */
+    public static class Stats {
+        private final int workers;
+        private final int alive;
+        private final int inFlight;
+        private final long restarts;
+        private final long failures;
+
+        Stats(int workers, int alive, int inFlight, long restarts, long failures) {
+            this.workers = workers;
+            this.alive = alive;
+            this.inFlight = inFlight;
+            this.restarts = restarts;
+            this.failures = failures;
+        }
+
+        public int getWorkers() { return workers; }
+        public int getAlive() { return alive; }
+        public int getInFlight() { return inFlight; }
+        public long getRestarts() { return restarts; }
+        public long getFailures() { return failures; }
+
+        @Override
+        public String toString() {
+            return String.format("workers=%d alive=%d inFlight=%d restarts=%d failures=%d",
+                    workers, alive, inFlight, restarts, failures);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.mirror.capture;
+
+import com.microsoft.playwright.Page;
+import com.mirror.semantic.HtmlSemanticSnapshot;
+
+/**
+ * Playwright capture that extracts the semantic snapshot with Chromium's
+ * DOMSnapshot domain instead of the in-page JavaScript walker. Navigation,
+ * readiness and screenshots are identical to {@link PlaywrightCaptureService}.
+ */
+public class CdpSnapshotCaptureService extends PlaywrightCaptureService {
+
+    private final CdpSnapshotExtractor extractor;
+
+    public CdpSnapshotCaptureService() {
+        this(new CaptureConfig());
+    }
+
+    public CdpSnapshotCaptureService(CaptureConfig config) {
+        super(config);
+        this.extractor = new CdpSnapshotExtractor(config);
+    }
+
+    public CdpSnapshotCaptureService(CaptureConfig config, BrowserPool browserPool) {
+        super(config, browserPool);
+        this.extractor = new CdpSnapshotExtractor(config);
+    }
+
+    public CdpSnapshotCaptureService(CaptureConfig config, BrowserPool browserPool, CaptureMetrics metrics) {
+        super(config, browserPool, metrics);
+        this.extractor = new CdpSnapshotExtractor(config);
+    }
+
+    @Override
+    protected HtmlSemanticSnapshot extractSnapshot(Page page, CaptureTimings timings) {
+        return extractor.extract(page, timings);
+    }
+
+    @Override
+    protected SnapshotEngine engine() {
+        return SnapshotEngine.CDP;
+    }
+}
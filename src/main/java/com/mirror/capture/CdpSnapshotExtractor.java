@@ -0,0 +1,682 @@
+package com.mirror.capture;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.microsoft.playwright.CDPSession;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.options.ViewportSize;
+import com.mirror.semantic.HtmlSemanticSnapshot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntPredicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Builds the semantic snapshot from a single {@code DOMSnapshot.captureSnapshot}
+ * call instead of querying layout and styles element by element from JavaScript.
+ *
+ * Chromium returns the flattened DOM tree, the layout tree (bounds and a
+ * whitelist of computed styles) and a shared string table in one response. The
+ * selection rules mirror {@link SnapshotScript}: the same {@link PageSection}
+ * selectors, leaf and container tags, interactive elements and spatial
+ * de-duplication. Element text is rebuilt from the rendered text boxes, which
+ * approximates {@code innerText}.
+ */
+public class CdpSnapshotExtractor {
+
+    // Order matters: styles come back as arrays in this order
+    private static final String[] COMPUTED_STYLES = {
+            "font-family", "font-size", "font-weight", "line-height", "letter-spacing", "color",
+            "background-color", "border-radius", "padding",
+            // Not part of the snapshot, but needed for the same visibility rules as the script
+            "display", "visibility", "opacity", "position"
+    };
+    private static final int FONT_FAMILY = 0;
+    private static final int FONT_SIZE = 1;
+    private static final int FONT_WEIGHT = 2;
+    private static final int LINE_HEIGHT = 3;
+    private static final int LETTER_SPACING = 4;
+    private static final int COLOR = 5;
+    private static final int BACKGROUND_COLOR = 6;
+    private static final int BORDER_RADIUS = 7;
+    private static final int PADDING = 8;
+    private static final int DISPLAY = 9;
+    private static final int VISIBILITY = 10;
+    private static final int OPACITY = 11;
+    private static final int POSITION = 12;
+
+    private static final int ELEMENT_NODE = 1;
+    private static final int TEXT_NODE = 3;
+    private static final double DEDUPE_PX = 20;
+
+    private static final Set<String> LEAF_TAGS = Set.of("SPAN", "B", "STRONG", "I", "EM", "SMALL", "A",
+            "BUTTON", "LABEL", "TD", "TH");
+    private static final Set<String> CONTAINER_TAGS = Set.of("H1", "H2", "H3", "H4", "H5", "H6", "P", "LI", "DIV");
+    private static final Set<String> INTERACTIVE_TAGS = Set.of("BUTTON", "A", "INPUT", "TEXTAREA", "SELECT");
+
+    // Section selectors: an optional tag followed by .class and [attr='value'] tests
+    private static final Pattern COMPOUND_SELECTOR =
+            Pattern.compile("([a-zA-Z][\\w-]*)?((?:\\.[\\w-]+|\\[[\\w-]+='[^']*'])*)");
+    private static final Pattern SIMPLE_SELECTOR = Pattern.compile("\\.([\\w-]+)|\\[([\\w-]+)='([^']*)']");
+
+    private final CaptureConfig config;
+
+    public CdpSnapshotExtractor(CaptureConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * Extracts the snapshot, recording the DOMSnapshot round trip as snapshot_evaluate.
+     */
+    public HtmlSemanticSnapshot extract(Page page, CaptureTimings timings) {
+        long start = System.nanoTime();
+        CDPSession session = page.context().newCDPSession(page);
+        JsonObject result;
+        try {
+            JsonObject params = new JsonObject();
+            JsonArray styles = new JsonArray();
+            for (String style : COMPUTED_STYLES) {
+                styles.add(style);
+            }
+            params.add("computedStyles", styles);
+            result = session.send("DOMSnapshot.captureSnapshot", params);
+        } finally {
+            session.detach();
+        }
+        timings.addPhase("snapshot_evaluate", (System.nanoTime() - start) / 1_000_000.0);
+
+        JsonArray documents = result.getAsJsonArray("documents");
+        if (documents == null || documents.size() == 0) {
+            throw new RuntimeException("DOMSnapshot returned no documents");
+        }
+        // documents[0] is the main frame; iframes come after it and are ignored like in the script
+        Dom dom = new Dom(result.getAsJsonArray("strings"), documents.get(0).getAsJsonObject());
+
+        HtmlSemanticSnapshot snapshot = new HtmlSemanticSnapshot();
+        ViewportSize viewport = page.viewportSize();
+        if (viewport != null) {
+            snapshot.setViewportWidth(viewport.width);
+            snapshot.setViewportHeight(viewport.height);
+        }
+        snapshot.setDocumentWidth(dom.contentWidth > 0 ? dom.contentWidth : snapshot.getViewportWidth());
+        snapshot.setDocumentHeight(dom.contentHeight > 0 ? dom.contentHeight : snapshot.getViewportHeight());
+        snapshot.setSections(extractSections(dom));
+
+        List<Candidate> leaves = new ArrayList<>();
+        List<Candidate> containers = new ArrayList<>();
+        List<HtmlSemanticSnapshot.InteractiveElement> interactive = new ArrayList<>();
+
+        int body = dom.find(0, dom.size(), i -> "BODY".equals(dom.tag(i)));
+        int from = body >= 0 ? body : 0;
+        int to = body >= 0 ? dom.subtreeEnd[body] : dom.size();
+        for (int i = from; i < to; i++) {
+            if (dom.nodeType[i] != ELEMENT_NODE) {
+                continue;
+            }
+            String tag = dom.tag(i);
+            boolean isLeaf = LEAF_TAGS.contains(tag);
+            boolean isContainer = CONTAINER_TAGS.contains(tag);
+            boolean isInteractive = isInteractive(dom, i, tag);
+            if (!isLeaf && !isContainer && !isInteractive) {
+                continue;
+            }
+
+            // No layout object means the element (or an ancestor) is display:none
+            int layout = dom.layoutOf[i];
+            if (layout < 0) {
+                continue;
+            }
+            double[] r = dom.bounds[layout];
+            if (r[2] == 0 || r[3] == 0) {
+                continue;
+            }
+
+            Candidate candidate = new Candidate(i, layout);
+            if ((isLeaf || isContainer) && !"hidden".equals(dom.style(layout, VISIBILITY))
+                    && !"0".equals(dom.style(layout, OPACITY))) {
+                (isLeaf ? leaves : containers).add(candidate);
+            }
+
+            // The script skips elements without an offsetParent; with a layout object
+            // that leaves fixed-position ones such as sticky navs and chat widgets
+            if (isInteractive && !"fixed".equals(dom.style(layout, POSITION))) {
+                String text = candidate.text(dom);
+                if (text.isEmpty()) {
+                    text = firstNonEmpty(dom.inputValue.get(i), dom.attr(i, "value"), dom.attr(i, "aria-label"));
+                }
+                HtmlSemanticSnapshot.InteractiveElement el = new HtmlSemanticSnapshot.InteractiveElement();
+                el.setText(collapse(text));
+                el.setTag(tag.toLowerCase());
+                el.setRect(toRect(r));
+                el.setBackgroundColor(dom.style(layout, BACKGROUND_COLOR));
+                el.setBorderRadius(dom.style(layout, BORDER_RADIUS));
+                el.setPadding(dom.style(layout, PADDING));
+                el.setColor(dom.style(layout, COLOR));
+                el.setParentId(parentId(dom, i));
+                interactive.add(el);
+            }
+        }
+
+        TextNodeCollector collector = new TextNodeCollector(dom);
+        // Leaves first (specific styles), then containers (paragraphs, headings)
+        leaves.forEach(collector::add);
+        containers.forEach(collector::add);
+
+        List<HtmlSemanticSnapshot.TextNode> textNodes = collector.nodes;
+        textNodes.sort(Comparator.comparingDouble(HtmlSemanticSnapshot.TextNode::getY)
+                .thenComparingDouble(HtmlSemanticSnapshot.TextNode::getX));
+        if (config.maxTextNodes > 0 && textNodes.size() > config.maxTextNodes) {
+            textNodes = new ArrayList<>(textNodes.subList(0, config.maxTextNodes));
+        }
+
+        snapshot.setTextNodes(textNodes);
+        snapshot.setInteractiveElements(interactive);
+        return snapshot;
+    }
+
+    /**
+     * Section rects of a DOMSnapshot document, as {@link #extract} sets them.
+     */
+    static HtmlSemanticSnapshot.Sections extractSections(JsonArray strings, JsonObject document) {
+        return extractSections(new Dom(strings, document));
+    }
+
+    private static HtmlSemanticSnapshot.Sections extractSections(Dom dom) {
+        HtmlSemanticSnapshot.Sections sections = new HtmlSemanticSnapshot.Sections();
+        for (PageSection section : PageSection.values()) {
+            HtmlSemanticSnapshot.Rect rect = sectionRect(dom, section);
+            switch (section) {
+                case HEADER:
+                    sections.setHeader(rect);
+                    break;
+                case HERO:
+                    sections.setHero(rect);
+                    break;
+                case FEATURES:
+                    sections.setFeatures(rect);
+                    break;
+                case CTAS:
+                    sections.setCtas(rect);
+                    break;
+                case FOOTER:
+                    sections.setFooter(rect);
+                    break;
+                default:
+                    throw new IllegalStateException("Unmapped page section " + section);
+            }
+        }
+        return sections;
+    }
+
+    /**
+     * Same semantics as the script's pick(), which uses the same selectors: the
+     * first selector with any match wins, and the first match in document order
+     * is used.
+     */
+    private static HtmlSemanticSnapshot.Rect sectionRect(Dom dom, PageSection section) {
+        List<IntPredicate> selectors = new ArrayList<>();
+        for (String selector : section.getSelectors()) {
+            selectors.add(selector(dom, selector));
+        }
+        for (IntPredicate selector : selectors) {
+            int node = dom.find(0, dom.size(), i -> dom.nodeType[i] == ELEMENT_NODE && selector.test(i));
+            if (node >= 0) {
+                int layout = dom.layoutOf[node];
+                // getBoundingClientRect() of a display:none element is an empty rect, not null
+                return toRect(layout >= 0 ? dom.bounds[layout] : new double[4]);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Matches the selector forms {@link PageSection} uses: compounds of an
+     * optional tag, {@code .class} and {@code [attr='value']} tests, joined by
+     * descendant combinators.
+     *
+     * @throws IllegalArgumentException for any other selector syntax
+     */
+    private static IntPredicate selector(Dom dom, String selector) {
+        List<IntPredicate> compounds = new ArrayList<>();
+        for (String part : selector.trim().split("\\s+")) {
+            compounds.add(compound(dom, part, selector));
+        }
+        IntPredicate subject = compounds.get(compounds.size() - 1);
+        return i -> {
+            if (!subject.test(i)) {
+                return false;
+            }
+            // Descendant combinators only, so the nearest matching ancestor is always the right pick
+            int ancestor = i;
+            for (int c = compounds.size() - 2; c >= 0; c--) {
+                IntPredicate compound = compounds.get(c);
+                do {
+                    ancestor = dom.parentIndex[ancestor];
+                } while (ancestor >= 0 && !(dom.nodeType[ancestor] == ELEMENT_NODE && compound.test(ancestor)));
+                if (ancestor < 0) {
+                    return false;
+                }
+            }
+            return true;
+        };
+    }
+
+    private static IntPredicate compound(Dom dom, String part, String selector) {
+        Matcher compound = COMPOUND_SELECTOR.matcher(part);
+        if (part.isEmpty() || !compound.matches()) {
+            throw new IllegalArgumentException("Unsupported section selector '" + selector + "'");
+        }
+        IntPredicate predicate = i -> true;
+        if (compound.group(1) != null) {
+            predicate = predicate.and(tagIs(dom, compound.group(1).toUpperCase()));
+        }
+        Matcher test = SIMPLE_SELECTOR.matcher(compound.group(2));
+        while (test.find()) {
+            predicate = predicate.and(test.group(1) != null
+                    ? hasClass(dom, test.group(1))
+                    : attrIs(dom, test.group(2), test.group(3)));
+        }
+        return predicate;
+    }
+
+    private static IntPredicate tagIs(Dom dom, String tag) {
+        return i -> tag.equals(dom.tag(i));
+    }
+
+    private static IntPredicate attrIs(Dom dom, String name, String value) {
+        return i -> value.equals(dom.attr(i, name));
+    }
+
+    private static IntPredicate hasClass(Dom dom, String className) {
+        return i -> {
+            String classes = dom.attr(i, "class");
+            return classes != null && Arrays.asList(classes.trim().split("\\s+")).contains(className);
+        };
+    }
+
+    private static boolean isInteractive(Dom dom, int node, String tag) {
+        if ("INPUT".equals(tag)) {
+            return !"hidden".equalsIgnoreCase(dom.attr(node, "type"));
+        }
+        if (INTERACTIVE_TAGS.contains(tag)) {
+            return true;
+        }
+        String role = dom.attr(node, "role");
+        return "button".equals(role) || "link".equals(role);
+    }
+
+    private static String parentId(Dom dom, int node) {
+        int parent = dom.parentIndex[node];
+        if (parent < 0 || dom.nodeType[parent] != ELEMENT_NODE) {
+            return null;
+        }
+        String id = dom.attr(parent, "id");
+        return id != null && !id.isEmpty() ? id : dom.tag(parent).toLowerCase();
+    }
+
+    private static HtmlSemanticSnapshot.Rect toRect(double[] bounds) {
+        HtmlSemanticSnapshot.Rect rect = new HtmlSemanticSnapshot.Rect();
+        rect.setX(bounds[0]);
+        rect.setY(bounds[1]);
+        rect.setWidth(bounds[2]);
+        rect.setHeight(bounds[3]);
+        return rect;
+    }
+
+    private static String firstNonEmpty(String... values) {
+        for (String value : values) {
+            if (value != null && !value.isEmpty()) {
+                return value;
+            }
+        }
+        return "";
+    }
+
+    // Equivalent of text.trim().replace(/\s+/g, " ")
+    static String collapse(String text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c) || c == ' ') {
+                pendingSpace = sb.length() > 0;
+            } else {
+                if (pendingSpace) {
+                    sb.append(' ');
+                    pendingSpace = false;
+                }
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    // Equivalent of parseFloat(value) with NaN mapped to 0
+    static double numeric(String value) {
+        if (value == null) {
+            return 0;
+        }
+        int end = 0;
+        while (end < value.length() && "+-.0123456789eE".indexOf(value.charAt(end)) >= 0) {
+            end++;
+        }
+        while (end > 0) {
+            try {
+                return Double.parseDouble(value.substring(0, end));
+            } catch (NumberFormatException e) {
+                end--;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Candidate text element; its text is computed at most once.
+     */
+    private static final class Candidate {
+        final int node;
+        final int layout;
+        String text;
+
+        Candidate(int node, int layout) {
+            this.node = node;
+            this.layout = layout;
+        }
+
+        String text(Dom dom) {
+            if (text == null) {
+                text = dom.renderedText(node);
+            }
+            return text;
+        }
+    }
+
+    /**
+     * Port of the script's addNode(): spatial-hash de-duplication where a longer
+     * overlapping text replaces the earlier node's text and tag.
+     */
+    private static final class TextNodeCollector {
+        final Dom dom;
+        final List<HtmlSemanticSnapshot.TextNode> nodes = new ArrayList<>();
+        final Map<Long, List<Integer>> grid = new HashMap<>();
+
+        TextNodeCollector(Dom dom) {
+            this.dom = dom;
+        }
+
+        void add(Candidate candidate) {
+            String text = collapse(candidate.text(dom));
+            if (text.isEmpty()) {
+                return;
+            }
+            double[] r = dom.bounds[candidate.layout];
+            String tag = dom.tag(candidate.node).toLowerCase();
+
+            HtmlSemanticSnapshot.TextNode existing = findDuplicate(text, r[0], r[1]);
+            if (existing != null) {
+                if (text.length() > existing.getText().length()) {
+                    existing.setText(text);
+                    existing.setTag(tag);
+                }
+                return;
+            }
+
+            grid.computeIfAbsent(cellKey(cell(r[0]), cell(r[1])), k -> new ArrayList<>()).add(nodes.size());
+
+            int layout = candidate.layout;
+            String id = dom.attr(candidate.node, "id");
+            HtmlSemanticSnapshot.TextNode node = new HtmlSemanticSnapshot.TextNode();
+            node.setId(id != null && !id.isEmpty() ? id : null);
+            node.setTag(tag);
+            node.setText(text);
+            node.setX(r[0]);
+            node.setY(r[1]);
+            node.setFontFamily(dom.style(layout, FONT_FAMILY));
+            node.setFontSize(numeric(dom.style(layout, FONT_SIZE)));
+            node.setFontWeight(dom.style(layout, FONT_WEIGHT));
+            node.setLineHeight(numeric(dom.style(layout, LINE_HEIGHT)));
+            node.setLetterSpacing(numeric(dom.style(layout, LETTER_SPACING)));
+            node.setColor(dom.style(layout, COLOR));
+            node.setParentId(parentId(dom, candidate.node));
+            nodes.add(node);
+        }
+
+        private HtmlSemanticSnapshot.TextNode findDuplicate(String text, double x, double y) {
+            long cx = cell(x);
+            long cy = cell(y);
+            int best = -1;
+            for (long dx = -1; dx <= 1; dx++) {
+                for (long dy = -1; dy <= 1; dy++) {
+                    List<Integer> bucket = grid.get(cellKey(cx + dx, cy + dy));
+                    if (bucket == null) {
+                        continue;
+                    }
+                    for (int idx : bucket) {
+                        // Keep the earliest match, like a linear scan would
+                        if (best != -1 && idx > best) {
+                            continue;
+                        }
+                        HtmlSemanticSnapshot.TextNode n = nodes.get(idx);
+                        if (Math.abs(n.getX() - x) < DEDUPE_PX && Math.abs(n.getY() - y) < DEDUPE_PX
+                                && (n.getText().contains(text) || text.contains(n.getText()))) {
+                            best = idx;
+                        }
+                    }
+                }
+            }
+            return best == -1 ? null : nodes.get(best);
+        }
+
+        private static long cell(double v) {
+            return (long) Math.floor(v / DEDUPE_PX);
+        }
+
+        private static long cellKey(long cx, long cy) {
+            return (cx << 32) ^ (cy & 0xffffffffL);
+        }
+    }
+
+    /**
+     * Flat, index-based view of one DOMSnapshot document.
+     */
+    private static final class Dom {
+        final String[] strings;
+        final int[] parentIndex;
+        final int[] nodeType;
+        final int[] nodeName;
+        final int[] nodeValue;
+        final int[][] attributes;
+        final Map<Integer, String> inputValue = new HashMap<>();
+        // Node index -> layout index, -1 when the node is not rendered
+        final int[] layoutOf;
+        final int[][] styles;
+        final double[][] bounds;
+        final int[] layoutText;
+        // Pre-order traversal: a node's subtree is the index range [i, subtreeEnd[i])
+        final int[] subtreeEnd;
+        final int contentWidth;
+        final int contentHeight;
+
+        Dom(JsonArray stringTable, JsonObject document) {
+            strings = new String[stringTable.size()];
+            for (int i = 0; i < strings.length; i++) {
+                strings[i] = stringTable.get(i).getAsString();
+            }
+
+            JsonObject nodes = document.getAsJsonObject("nodes");
+            parentIndex = ints(nodes.getAsJsonArray("parentIndex"));
+            nodeType = ints(nodes.getAsJsonArray("nodeType"));
+            nodeName = ints(nodes.getAsJsonArray("nodeName"));
+            nodeValue = ints(nodes.getAsJsonArray("nodeValue"));
+            attributes = intMatrix(nodes.getAsJsonArray("attributes"));
+            JsonObject inputValues = nodes.getAsJsonObject("inputValue");
+            if (inputValues != null) {
+                int[] index = ints(inputValues.getAsJsonArray("index"));
+                int[] value = ints(inputValues.getAsJsonArray("value"));
+                for (int i = 0; i < index.length; i++) {
+                    inputValue.put(index[i], string(value[i]));
+                }
+            }
+
+            JsonObject layout = document.getAsJsonObject("layout");
+            int[] nodeIndex = ints(layout.getAsJsonArray("nodeIndex"));
+            styles = intMatrix(layout.getAsJsonArray("styles"));
+            bounds = doubleMatrix(layout.getAsJsonArray("bounds"));
+            layoutText = ints(layout.getAsJsonArray("text"));
+            layoutOf = new int[parentIndex.length];
+            Arrays.fill(layoutOf, -1);
+            for (int i = 0; i < nodeIndex.length; i++) {
+                layoutOf[nodeIndex[i]] = i;
+            }
+
+            subtreeEnd = new int[parentIndex.length];
+            for (int i = parentIndex.length - 1; i >= 0; i--) {
+                subtreeEnd[i] = Math.max(subtreeEnd[i], i + 1);
+                int parent = parentIndex[i];
+                if (parent >= 0) {
+                    subtreeEnd[parent] = Math.max(subtreeEnd[parent], subtreeEnd[i]);
+                }
+            }
+
+            contentWidth = document.has("contentWidth") ? (int) document.get("contentWidth").getAsDouble() : 0;
+            contentHeight = document.has("contentHeight") ? (int) document.get("contentHeight").getAsDouble() : 0;
+        }
+
+        int size() {
+            return parentIndex.length;
+        }
+
+        int find(int from, int to, IntPredicate predicate) {
+            for (int i = from; i < to; i++) {
+                if (predicate.test(i)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        String string(int index) {
+            return index >= 0 && index < strings.length ? strings[index] : null;
+        }
+
+        String tag(int node) {
+            String name = string(nodeName[node]);
+            return name != null ? name.toUpperCase() : "";
+        }
+
+        String attr(int node, String name) {
+            int[] pairs = node < attributes.length ? attributes[node] : null;
+            if (pairs == null) {
+                return null;
+            }
+            for (int i = 0; i + 1 < pairs.length; i += 2) {
+                if (name.equals(string(pairs[i]))) {
+                    return string(pairs[i + 1]);
+                }
+            }
+            return null;
+        }
+
+        String style(int layout, int property) {
+            int[] values = styles[layout];
+            String value = values != null && property < values.length ? string(values[property]) : null;
+            return value != null ? value : "";
+        }
+
+        /**
+         * Rendered text of a subtree. Text from different block boxes (or split by
+         * a line break) is separated by whitespace, as innerText would do.
+         */
+        String renderedText(int node) {
+            StringBuilder sb = new StringBuilder();
+            int lastBlock = -1;
+            boolean pendingBreak = false;
+            int end = subtreeEnd[node];
+            for (int i = node + 1; i < end; i++) {
+                if (nodeType[i] == ELEMENT_NODE && "BR".equals(tag(i))) {
+                    pendingBreak = true;
+                    continue;
+                }
+                int layout = layoutOf[i];
+                if (nodeType[i] != TEXT_NODE || layout < 0 || isPseudo(parentIndex[i])
+                        || "hidden".equals(style(layout, VISIBILITY))) {
+                    continue;
+                }
+                String text = layoutText.length > layout && layoutText[layout] >= 0
+                        ? string(layoutText[layout]) : string(nodeValue[i]);
+                if (text == null || text.isEmpty()) {
+                    continue;
+                }
+                int block = blockAncestor(i, node);
+                if (sb.length() > 0 && (pendingBreak || block != lastBlock)) {
+                    sb.append('\n');
+                }
+                sb.append(text);
+                lastBlock = block;
+                pendingBreak = false;
+            }
+            return sb.toString();
+        }
+
+        private int blockAncestor(int node, int root) {
+            for (int p = parentIndex[node]; p >= 0 && p != root; p = parentIndex[p]) {
+                int layout = layoutOf[p];
+                if (layout >= 0 && !style(layout, DISPLAY).startsWith("inline")) {
+                    return p;
+                }
+            }
+            return root;
+        }
+
+        private boolean isPseudo(int node) {
+            String name = node >= 0 ? string(nodeName[node]) : null;
+            return name != null && name.startsWith("::");
+        }
+
+        private static int[] ints(JsonArray array) {
+            if (array == null) {
+                return new int[0];
+            }
+            int[] out = new int[array.size()];
+            for (int i = 0; i < out.length; i++) {
+                out[i] = array.get(i).getAsInt();
+            }
+            return out;
+        }
+
+        private static int[][] intMatrix(JsonArray array) {
+            if (array == null) {
+                return new int[0][];
+            }
+            int[][] out = new int[array.size()][];
+            for (int i = 0; i < out.length; i++) {
+                JsonElement row = array.get(i);
+                out[i] = row.isJsonArray() ? ints(row.getAsJsonArray()) : new int[0];
+            }
+            return out;
+        }
+
+        private static double[][] doubleMatrix(JsonArray array) {
+            if (array == null) {
+                return new double[0][];
+            }
+            double[][] out = new double[array.size()][];
+            for (int i = 0; i < out.length; i++) {
+                JsonArray row = array.get(i).getAsJsonArray();
+                out[i] = new double[4];
+                for (int j = 0; j < Math.min(4, row.size()); j++) {
+                    out[i][j] = row.get(j).getAsDouble();
+                }
+            }
+            return out;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.mirror.capture;
+
+import com.microsoft.playwright.Page;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Pulls in lazily loaded content before capture without a slow scroll crawl.
+ *
+ * Native lazy images and iframes are switched to eager loading up front, then
+ * the page is scrolled one viewport per jump so that IntersectionObserver-based
+ * loaders and reveal effects fire, waiting only for the frames that deliver
+ * their callbacks. Content appended while scrolling (infinite scroll, late
+ * sections) extends the pass up to a hard height cap, and the whole pass is
+ * bounded by a time budget. Finally only images still in flight are awaited.
+ *
+ * Requires the {@link PageReadinessDetector} script to be installed on the page.
+ */
+public class LazyContentLoader {
+
+    static final String SCRIPT = """
+            async (opts) => {
+                const readiness = window.__mirrorReadiness;
+                const deadline = performance.now() + opts.budgetMs;
+                const phases = {};
+                let timedOut = false;
+
+                let t = performance.now();
+                const lazy = document.querySelectorAll('img[loading="lazy"], iframe[loading="lazy"]');
+                lazy.forEach(el => { el.loading = 'eager'; });
+                phases.force_eager = performance.now() - t;
+
+                t = performance.now();
+                const docHeight = () => Math.max(document.documentElement.scrollHeight || 0,
+                    document.body ? document.body.scrollHeight : 0);
+                const limit = () => Math.min(docHeight(), opts.maxHeight);
+                const step = Math.max(1, window.innerHeight);
+                let y = 0;
+                let jumps = 0;
+                do {
+                    for (; y < limit(); y += step) {
+                        if (performance.now() >= deadline) { timedOut = true; break; }
+                        window.scrollTo(0, y);
+                        jumps++;
+                        // Intersection callbacks are delivered with the next rendering update
+                        await readiness.nextFrame();
+                        await readiness.nextFrame();
+                    }
+                    // Give the last jump a moment to append content before deciding we are done
+                    if (!timedOut) {
+                        await readiness.waitForQuiet(opts.quietMs, Math.min(deadline, performance.now() + 1000));
+                    }
+                } while (!timedOut && y < limit());
+                phases.jumps = performance.now() - t;
+
+                t = performance.now();
+                const pending = Array.from(document.images).filter(img => !img.complete);
+                if (pending.length > 0 && !timedOut) {
+                    const decoded = await Promise.race([
+                        Promise.all(pending.map(img => img.decode ? img.decode().catch(() => {}) : Promise.resolve()))
+                            .then(() => true),
+                        new Promise(resolve => setTimeout(() => resolve(false), Math.max(0, deadline - performance.now())))
+                    ]);
+                    if (!decoded) timedOut = true;
+                }
+                phases.decode = performance.now() - t;
+
+                window.scrollTo(0, 0);
+                return {
+                    phases: phases,
+                    timed_out: timedOut,
+                    pending_images: pending.length,
+                    eager: lazy.length,
+                    jumps: jumps,
+                    height: docHeight(),
+                    capped: docHeight() > opts.maxHeight
+                };
+            }
+            """;
+
+    private final CaptureConfig config;
+
+    public LazyContentLoader(CaptureConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * Triggers lazy content on a loaded page and returns the per-phase timings.
+     */
+    public ReadinessReport load(Page page) {
+        return load(page, config.lazyLoadBudgetMs);
+    }
+
+    /**
+     * Like {@link #load(Page)} with a budget of its own, e.g. shortened to a
+     * capture's deadline.
+     */
+    public ReadinessReport load(Page page, long budgetMs) {
+        Map<String, Object> options = new HashMap<>();
+        options.put("budgetMs", budgetMs);
+        options.put("maxHeight", config.lazyLoadMaxHeight);
+        options.put("quietMs", config.readinessQuietWindowMs);
+
+        Object result = page.evaluate(SCRIPT, options);
+        if (result instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) result;
+            System.out.println("Lazy content: " + map.get("eager") + " elements made eager, " + map.get("jumps")
+                    + " jumps over " + map.get("height") + "px, " + map.get("pending_images") + " images awaited"
+                    + (Boolean.TRUE.equals(map.get("capped")) ? " [height cap " + config.lazyLoadMaxHeight + "px]" : ""));
+        }
+        return ReadinessReport.fromScriptResult(result);
+    }
+}
@@ -0,0 +1,177 @@
+package com.mirror.capture;
+
+import com.microsoft.playwright.Page;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Waits for a page to become visually stable instead of sleeping for fixed times.
+ *
+ * An init script installed before navigation tracks DOM mutations and element
+ * resizes from the very first byte. Readiness is then reached once the DOM is
+ * parsed, web fonts are loaded, eager images have decoded, no layout change has
+ * been observed for a short quiet window and two consecutive frames have painted.
+ * Elements whose class or style keeps changing stop counting after a few dozen
+ * changes, so endless animations do not hold readiness until the budget runs out.
+ */
+public class PageReadinessDetector {
+
+    // Idempotent: safe to run both as an init script and again before waiting
+    static final String INSTALL_SCRIPT = """
+            (() => {
+                if (window.__mirrorReadiness) return;
+
+                const state = { lastChange: performance.now(), mutations: 0, resizes: 0, churning: 0 };
+                const touch = () => { state.lastChange = performance.now(); };
+
+                // class/style changes reveal content (loaded/is-visible classes, fades), so they count,
+                // but an element that keeps toggling them (carousel, spinner, script-driven animation)
+                // would never let the page go quiet: past MAX_STYLE_CHANGES its class/style changes
+                // are ignored. Structural and text changes always count.
+                const MAX_STYLE_CHANGES = 20;
+                const styleChanges = new WeakMap();
+                new MutationObserver(records => {
+                    let relevant = 0;
+                    for (const record of records) {
+                        if (record.type === 'attributes'
+                                && (record.attributeName === 'class' || record.attributeName === 'style')) {
+                            const count = (styleChanges.get(record.target) || 0) + 1;
+                            styleChanges.set(record.target, count);
+                            if (count === MAX_STYLE_CHANGES + 1) state.churning++;
+                            if (count > MAX_STYLE_CHANGES) continue;
+                        }
+                        relevant++;
+                    }
+                    if (relevant === 0) return;
+                    state.mutations += relevant;
+                    touch();
+                }).observe(document, { childList: true, subtree: true, characterData: true,
+                    attributeFilter: ['class', 'style', 'src', 'srcset', 'hidden'] });
+
+                function observeResizes() {
+                    if (typeof ResizeObserver === 'undefined') return;
+                    const ro = new ResizeObserver(entries => { state.resizes += entries.length; touch(); });
+                    if (document.documentElement) ro.observe(document.documentElement);
+                    if (document.body) ro.observe(document.body);
+                }
+                if (document.readyState === 'loading') {
+                    document.addEventListener('DOMContentLoaded', observeResizes, { once: true });
+                } else {
+                    observeResizes();
+                }
+
+                // rAF may be throttled, so never wait more than ~50ms for a frame
+                const nextFrame = () => new Promise(resolve => {
+                    const timer = setTimeout(resolve, 50);
+                    requestAnimationFrame(() => { clearTimeout(timer); resolve(); });
+                });
+
+                async function waitForQuiet(quietMs, deadline) {
+                    while (performance.now() - state.lastChange < quietMs) {
+                        if (performance.now() >= deadline) return false;
+                        await nextFrame();
+                    }
+                    return true;
+                }
+
+                async function waitForStable(opts) {
+                    const deadline = performance.now() + opts.budgetMs;
+                    const phases = {};
+                    let timedOut = false;
+
+                    const withinBudget = promise => Promise.race([
+                        Promise.resolve(promise).then(() => true, () => true),
+                        new Promise(resolve => setTimeout(() => resolve(false), Math.max(0, deadline - performance.now())))
+                    ]);
+                    const phase = async (name, fn) => {
+                        const t = performance.now();
+                        if (!(await fn())) timedOut = true;
+                        phases[name] = performance.now() - t;
+                    };
+
+                    await phase('dom_ready', () => document.readyState !== 'loading' || withinBudget(
+                        new Promise(resolve => document.addEventListener('DOMContentLoaded', resolve, { once: true }))));
+
+                    await phase('fonts', () => !document.fonts || document.fonts.status === 'loaded'
+                        || withinBudget(document.fonts.ready));
+
+                    // Lazy images are handled by the scroll pass, only wait for eager ones here
+                    const pendingImages = Array.from(document.images).filter(img => !img.complete && img.loading !== 'lazy');
+                    await phase('images', () => pendingImages.length === 0 || withinBudget(Promise.all(
+                        pendingImages.map(img => img.decode ? img.decode().catch(() => {}) : Promise.resolve()))));
+
+                    await phase('quiescence', () => waitForQuiet(opts.quietMs, deadline));
+
+                    await phase('paint', async () => { await nextFrame(); await nextFrame(); return true; });
+
+                    return {
+                        phases: phases,
+                        timed_out: timedOut,
+                        pending_images: pendingImages.length,
+                        mutations: state.mutations,
+                        resizes: state.resizes,
+                        churning_elements: state.churning
+                    };
+                }
+
+                // After a viewport resize the ResizeObserver only fires once layout has run,
+                // so let two frames pass before checking for quiescence
+                async function waitForReflow(opts) {
+                    await nextFrame();
+                    await nextFrame();
+                    return waitForStable(opts);
+                }
+
+                window.__mirrorReadiness = { state, nextFrame, waitForQuiet, waitForStable, waitForReflow };
+            })();
+            """;
+
+    private final CaptureConfig config;
+
+    public PageReadinessDetector(CaptureConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * Registers the observers on the page. Must be called before navigation so
+     * that early mutations are not missed.
+     */
+    public void install(Page page) {
+        page.addInitScript(INSTALL_SCRIPT);
+    }
+
+    /**
+     * Blocks until the page is stable or the configured budget is exhausted.
+     */
+    public ReadinessReport awaitReady(Page page) {
+        return awaitReady(page, config.readinessBudgetMs);
+    }
+
+    /**
+     * Like {@link #awaitReady(Page)} with a budget of its own, e.g. shortened to
+     * a capture's deadline.
+     */
+    public ReadinessReport awaitReady(Page page, long budgetMs) {
+        return await(page, "waitForStable", budgetMs);
+    }
+
+    /**
+     * Blocks until layout has settled after a viewport change on an already
+     * loaded page. Everything that is already loaded resolves immediately, so
+     * this only waits for the reflow and anything it newly pulls in.
+     */
+    public ReadinessReport awaitReflow(Page page) {
+        return await(page, "waitForReflow", config.readinessBudgetMs);
+    }
+
+    private ReadinessReport await(Page page, String function, long budgetMs) {
+        Map<String, Object> options = new HashMap<>();
+        options.put("budgetMs", budgetMs);
+        options.put("quietMs", config.readinessQuietWindowMs);
+
+        Object result = page.evaluate("async (opts) => { " + INSTALL_SCRIPT
+                + " return await window.__mirrorReadiness." + function + "(opts); }", options);
+        return ReadinessReport.fromScriptResult(result);
+    }
+}
@@ -0,0 +1,36 @@
+package com.mirror.capture;
+
+import java.util.List;
+
+/**
+ * Page sections located in the live DOM. The first element matching any of the
+ * selectors, tried in order, is the section; {@link SnapshotScript} is generated
+ * from the same selectors, so a section screenshot shows the same element the
+ * semantic snapshot reports.
+ */
+public enum PageSection {
+    HEADER("header", "header", "[data-section='header']", "[data-figma-section='header']"),
+    HERO("hero", "main section", "section[data-section='hero']", "[data-figma-section='hero']"),
+    FEATURES("features", "section.features", "[data-section='features']", "[data-figma-section='features']"),
+    CTAS("ctas", "section.cta", "[data-section='cta']", "[data-figma-section='cta']", "[data-section='ctas']"),
+    FOOTER("footer", "footer", "[data-section='footer']", "[data-figma-section='footer']");
+
+    private final String key;
+    private final List<String> selectors;
+
+    PageSection(String key, String... selectors) {
+        this.key = key;
+        this.selectors = List.of(selectors);
+    }
+
+    /**
+     * Name of the section in the semantic snapshots.
+     */
+    public String getKey() {
+        return key;
+    }
+
+    public List<String> getSelectors() {
+        return selectors;
+    }
+}
@@ -1,259 +1,453 @@
 package com.mirror.capture;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.microsoft.playwright.*;
+import com.microsoft.playwright.Locator;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.options.ScreenshotAnimations;
+import com.microsoft.playwright.options.WaitUntilState;
 import com.mirror.model.Viewport;
 import com.mirror.semantic.HtmlSemanticSnapshot;
 
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
-
-public class PlaywrightCaptureService implements WebCaptureService {
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+public class PlaywrightCaptureService implements WebCaptureService, AutoCloseable {
+
+  // Playwright's own default for actions such as screenshots
+  private static final long DEFAULT_ACTION_TIMEOUT_MS = 30_000;
 
   private final ObjectMapper objectMapper = new ObjectMapper();
+  private final CaptureConfig config;
+  private final BrowserPool browserPool;
+  private final PageReadinessDetector readinessDetector;
+  private final SnapshotTransfer snapshotTransfer;
+  private final RequestRouter requestRouter;
+  private final AnimationFreezer animationFreezer;
+  private final LazyContentLoader lazyContentLoader;
+  private final CaptureMetrics metrics;
+  // Runs asynchronous captures, one thread per pooled browser; further captures queue here
+  private final ExecutorService asyncExecutor;
+
+  public PlaywrightCaptureService() {
+    this(new CaptureConfig());
+  }
+
+  public PlaywrightCaptureService(CaptureConfig config) {
+    this(config, new BrowserPool(config));
+  }
+
+  /**
+   * Shares an existing browser pool, e.g. between capture services with different
+   * snapshot engines. Closing this service closes the pool.
+   */
+  public PlaywrightCaptureService(CaptureConfig config, BrowserPool browserPool) {
+    this(config, browserPool, new CaptureMetrics());
+  }
+
+  /**
+   * Shares an existing browser pool and records capture timings into a shared
+   * metrics registry.
+   */
+  public PlaywrightCaptureService(CaptureConfig config, BrowserPool browserPool, CaptureMetrics metrics) {
+    this.config = config;
+    this.metrics = metrics;
+    this.browserPool = browserPool;
+    this.readinessDetector = new PageReadinessDetector(config);
+    this.snapshotTransfer = new SnapshotTransfer(objectMapper, config);
+    this.requestRouter = new RequestRouter(config);
+    this.animationFreezer = new AnimationFreezer(config);
+    this.lazyContentLoader = new LazyContentLoader(config);
+    AtomicInteger threads = new AtomicInteger();
+    this.asyncExecutor = Executors.newFixedThreadPool(Math.max(1, config.browserPoolSize), r -> {
+      Thread thread = new Thread(r, "capture-async-" + threads.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  public BrowserPool.Stats getPoolStats() {
+    return browserPool.stats();
+  }
+
+  public CaptureMetrics getMetrics() {
+    return metrics;
+  }
 
   @Override
-  public BufferedImage capture(String url) {
-    return capture(url, Viewport.DESKTOP);
+  public CompletableFuture<BufferedImage> captureAsync(String url, Viewport viewport, Duration deadline) {
+    return submit(deadline, call -> {
+      CaptureTimings timings = new CaptureTimings();
+      long start = System.nanoTime();
+      try (BrowserPool.Lease lease = acquire(viewport, url, timings, call)) {
+        Page page = openPage(lease, url, timings, call);
+
+        call.checkpoint("screenshot");
+        return takeScreenshot(page, timings);
+      } catch (CancellationException e) {
+        throw e;
+      } catch (Exception e) {
+        throw new RuntimeException("Failed to capture screenshot with Playwright", e);
+      } finally {
+        record(url, timings, start);
+      }
+    });
   }
 
   @Override
-  public BufferedImage capture(String url, Viewport viewport) {
-    try (Playwright playwright = Playwright.create()) {
-      Browser browser = playwright.chromium().launch(new BrowserType.LaunchOptions().setHeadless(true));
-      Page page = createPage(browser, viewport);
+  public CompletableFuture<HtmlSemanticSnapshot> captureSemanticAsync(String url, Viewport viewport,
+      Duration deadline) {
+    return submit(deadline, call -> {
+      CaptureTimings timings = new CaptureTimings();
+      long start = System.nanoTime();
+      try (BrowserPool.Lease lease = acquire(viewport, url, timings, call)) {
+        Page page = openPage(lease, url, timings, call);
+
+        call.checkpoint("snapshot");
+        return snapshot(page, timings);
+      } catch (CancellationException e) {
+        throw e;
+      } catch (Exception e) {
+        throw new RuntimeException("Failed to capture semantic snapshot with Playwright", e);
+      } finally {
+        record(url, timings, start);
+      }
+    });
+  }
 
-      navigateAndWait(page, url);
+  /**
+   * Runs a capture on the async executor. Cancelling the future or reaching the
+   * deadline completes it immediately and flags the call, so the capture thread
+   * stops at its next checkpoint and closes the page and context on its way out.
+   */
+  private <T> CompletableFuture<T> submit(Duration deadline, Function<CaptureCall, T> capture) {
+    CaptureCall call = new CaptureCall(deadline);
+    CompletableFuture<T> future = CompletableFuture.supplyAsync(() -> capture.apply(call), asyncExecutor);
+    if (deadline != null) {
+      future.orTimeout(deadline.toMillis(), TimeUnit.MILLISECONDS);
+    }
+    future.whenComplete((result, error) -> {
+      if (error != null) {
+        call.cancel();
+      }
+    });
+    return future;
+  }
 
-      byte[] screenshotBytes = page.screenshot(new Page.ScreenshotOptions().setFullPage(true));
-      return ImageIO.read(new ByteArrayInputStream(screenshotBytes));
+  @Override
+  public CaptureResult captureWithSnapshot(String url, Viewport viewport) {
+    CaptureTimings timings = new CaptureTimings();
+    long start = System.nanoTime();
+    try (BrowserPool.Lease lease = acquire(viewport, url, timings)) {
+      Page page = openPage(lease, url, timings, CaptureCall.unbounded());
+
+      // Snapshot first: the full-page screenshot may temporarily resize the viewport
+      HtmlSemanticSnapshot snapshot = snapshot(page, timings);
+      BufferedImage screenshot = takeScreenshot(page, timings);
+      return new CaptureResult(screenshot, snapshot, timings);
     } catch (Exception e) {
-      throw new RuntimeException("Failed to capture screenshot with Playwright", e);
+      throw new RuntimeException("Failed to capture screenshot and semantic snapshot with Playwright", e);
+    } finally {
+      record(url, timings, start);
     }
   }
 
   @Override
-  public HtmlSemanticSnapshot captureSemantic(String url, Viewport viewport) {
-    try (Playwright playwright = Playwright.create()) {
-      Browser browser = playwright.chromium().launch(new BrowserType.LaunchOptions().setHeadless(true));
-      Page page = createPage(browser, viewport);
-
-      navigateAndWait(page, url);
-
-      String script = buildSnapshotScript(500);
-      Object result = page.evaluate(script);
-      String json;
-      if (result instanceof String) {
-        json = (String) result;
-      } else {
-        // Should not happen if script returns JSON.stringify
-        throw new RuntimeException("Script did not return a string");
+  public Map<Viewport, CaptureResult> captureViewports(String url, List<Viewport> viewports) {
+    if (viewports.isEmpty()) {
+      throw new IllegalArgumentException("At least one viewport is required");
+    }
+    // The first viewport's timings carry the page load, later ones only their reflow
+    CaptureTimings timings = new CaptureTimings();
+    long start = System.nanoTime();
+    String label = url + " @ " + viewports.get(0).getName();
+    try (BrowserPool.Lease lease = acquire(viewports.get(0), url, timings)) {
+      Page page = openPage(lease, url, timings, CaptureCall.unbounded());
+
+      Map<Viewport, CaptureResult> results = new LinkedHashMap<>();
+      for (Viewport viewport : viewports) {
+        if (results.containsKey(viewport)) {
+          continue;
+        }
+        if (!results.isEmpty()) {
+          timings = new CaptureTimings();
+          start = System.nanoTime();
+          label = url + " @ " + viewport.getName();
+          page.setViewportSize(viewport.getWidth(), viewport.getHeight());
+          ReadinessReport reflow = readinessDetector.awaitReflow(page);
+          timings.addPhase("reflow", elapsedMs(start));
+          System.out.printf("Reflowed to %s (%s) in %.0f ms%s%n", viewport.getName(),
+              viewport.getDimensionString(), elapsedMs(start), reflow.isTimedOut() ? " [budget exhausted]" : "");
+        }
+        HtmlSemanticSnapshot snapshot = snapshot(page, timings);
+        BufferedImage screenshot = takeScreenshot(page, timings);
+        record(label, timings, start);
+        results.put(viewport, new CaptureResult(screenshot, snapshot, timings));
+        timings = null;
       }
-
-      return objectMapper.readValue(json, HtmlSemanticSnapshot.class);
+      return results;
     } catch (Exception e) {
-      throw new RuntimeException("Failed to capture semantic snapshot with Playwright", e);
+      throw new RuntimeException("Failed to capture viewports with Playwright", e);
+    } finally {
+      // A viewport that failed part way still counts, like in the single-viewport captures
+      if (timings != null) {
+        record(label, timings, start);
+      }
     }
   }
 
-  private Page createPage(Browser browser, Viewport viewport) {
-    BrowserContext context = browser.newContext(new Browser.NewContextOptions()
-        .setViewportSize(viewport.getWidth(), viewport.getHeight()));
-    return context.newPage();
+  @Override
+  public void captureTiles(String url, Viewport viewport, Consumer<ScreenshotTile> sink) {
+    CaptureTimings timings = new CaptureTimings();
+    long start = System.nanoTime();
+    try (BrowserPool.Lease lease = acquire(viewport, url, timings)) {
+      Page page = openPage(lease, url, timings, CaptureCall.unbounded());
+
+      takeTiles(page, viewport, sink, timings);
+    } catch (Exception e) {
+      throw new RuntimeException("Failed to capture screenshot tiles with Playwright", e);
+    } finally {
+      record(url, timings, start);
+    }
   }
 
-  private void navigateAndWait(Page page, String url) {
-    page.navigate(url, new Page.NavigateOptions().setTimeout(60000));
-    page.waitForTimeout(2000); // Allow initial JS layout to settle
+  @Override
+  public HtmlSemanticSnapshot captureTilesWithSnapshot(String url, Viewport viewport, Consumer<ScreenshotTile> sink) {
+    CaptureTimings timings = new CaptureTimings();
+    long start = System.nanoTime();
+    try (BrowserPool.Lease lease = acquire(viewport, url, timings)) {
+      Page page = openPage(lease, url, timings, CaptureCall.unbounded());
+
+      HtmlSemanticSnapshot snapshot = snapshot(page, timings);
+      takeTiles(page, viewport, sink, timings);
+      return snapshot;
+    } catch (Exception e) {
+      throw new RuntimeException("Failed to capture screenshot tiles and semantic snapshot with Playwright", e);
+    } finally {
+      record(url, timings, start);
+    }
+  }
 
-    // Wait for DOM content to be loaded (faster/safer than networkidle)
-    page.waitForLoadState(com.microsoft.playwright.options.LoadState.DOMCONTENTLOADED);
+  @Override
+  public Map<PageSection, BufferedImage> captureSections(String url, Viewport viewport) {
+    CaptureTimings timings = new CaptureTimings();
+    long start = System.nanoTime();
+    try (BrowserPool.Lease lease = acquire(viewport, url, timings)) {
+      Page page = openPage(lease, url, timings, CaptureCall.unbounded());
+
+      Map<PageSection, BufferedImage> sections = new LinkedHashMap<>();
+      for (PageSection section : PageSection.values()) {
+        Locator element = locateSection(page, section);
+        if (element == null) {
+          System.out.println("Section " + section.getKey() + " not found on the page");
+          continue;
+        }
+        if (!element.isVisible()) {
+          System.out.println("Section " + section.getKey() + " is not visible on the page");
+          continue;
+        }
+        long shotStart = System.nanoTime();
+        byte[] png = element.screenshot(sectionScreenshotOptions());
+        timings.addPhase("screenshot", elapsedMs(shotStart));
+        timings.addPayload("screenshot_png", png.length);
+
+        long decodeStart = System.nanoTime();
+        sections.put(section, ImageIO.read(new ByteArrayInputStream(png)));
+        timings.addPhase("png_decode", elapsedMs(decodeStart));
+      }
+      return sections;
+    } catch (Exception e) {
+      throw new RuntimeException("Failed to capture section screenshots with Playwright", e);
+    } finally {
+      record(url, timings, start);
+    }
+  }
 
-    // Optional: Wait for network idle with a short timeout, but don't fail if it
-    // times out
-    try {
-      page.waitForLoadState(com.microsoft.playwright.options.LoadState.NETWORKIDLE,
-          new Page.WaitForLoadStateOptions().setTimeout(5000));
-    } catch (TimeoutError e) {
-      System.out.println("Warning: Network idle timeout (proceeding anyway)");
+  /**
+   * The first match of the first selector that matches, visible or not, as in
+   * the semantic snapshot script.
+   */
+  private static Locator locateSection(Page page, PageSection section) {
+    for (String selector : section.getSelectors()) {
+      Locator element = page.locator(selector).first();
+      if (element.count() > 0) {
+        return element;
+      }
     }
+    return null;
+  }
 
-    // Wait for fonts
-    page.evaluate("document.fonts.ready");
-
-    // Trigger lazy loading and scroll animations via incremental scrolling
-    page.evaluate("""
-            async () => {
-                const delay = 150;
-                const step = 300;
-                let lastHeight = document.body.scrollHeight;
-                let currentScroll = 0;
-
-                while (true) {
-                    window.scrollBy(0, step);
-                    currentScroll += step;
-                    await new Promise(resolve => setTimeout(resolve, delay));
-
-                    if (currentScroll >= document.body.scrollHeight) {
-                        await new Promise(resolve => setTimeout(resolve, 500));
-                        if (document.body.scrollHeight === lastHeight) break;
-                        lastHeight = document.body.scrollHeight;
-                    }
-                }
-
-                window.scrollTo(0, 0);
-                await new Promise(resolve => setTimeout(resolve, 1000));
-            }
+  /**
+   * Screenshots the page in clips of one tile height. Chromium renders only the
+   * clipped region, and each tile is decoded and passed on before the next one.
+   */
+  private void takeTiles(Page page, Viewport viewport, Consumer<ScreenshotTile> sink, CaptureTimings timings)
+      throws IOException {
+    @SuppressWarnings("unchecked")
+    List<Number> size = (List<Number>) page.evaluate("""
+            () => [
+                Math.max(document.documentElement.scrollWidth || 0, document.body ? document.body.scrollWidth : 0),
+                Math.max(document.documentElement.scrollHeight || 0, document.body ? document.body.scrollHeight : 0)
+            ]
         """);
+    int pageWidth = Math.max(1, size.get(0).intValue());
+    int pageHeight = Math.max(1, size.get(1).intValue());
+    int tileHeight = config.tileHeight > 0 ? config.tileHeight : viewport.getHeight();
+
+    int index = 0;
+    for (int y = 0; y < pageHeight; y += tileHeight) {
+      int height = Math.min(tileHeight, pageHeight - y);
+      Page.ScreenshotOptions clip = screenshotOptions().setClip(0, y, pageWidth, height);
+      sink.accept(new ScreenshotTile(index++, y, pageWidth, pageHeight, screenshot(page, clip, timings)));
+    }
+    System.out.println("Captured " + index + " tiles of up to " + tileHeight + "px (page " + pageWidth + "x"
+        + pageHeight + ")");
+  }
+
+  private BufferedImage takeScreenshot(Page page, CaptureTimings timings) throws IOException {
+    return screenshot(page, screenshotOptions(), timings);
+  }
+
+  private static BufferedImage screenshot(Page page, Page.ScreenshotOptions options, CaptureTimings timings)
+      throws IOException {
+    long start = System.nanoTime();
+    byte[] png = page.screenshot(options);
+    timings.addPhase("screenshot", elapsedMs(start));
+    timings.addPayload("screenshot_png", png.length);
+
+    start = System.nanoTime();
+    BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+    timings.addPhase("png_decode", elapsedMs(start));
+    return image;
+  }
+
+  private Locator.ScreenshotOptions sectionScreenshotOptions() {
+    Locator.ScreenshotOptions options = new Locator.ScreenshotOptions();
+    if (animationFreezer.isEnabled()) {
+      options.setAnimations(ScreenshotAnimations.DISABLED);
+    }
+    return options;
+  }
+
+  private Page.ScreenshotOptions screenshotOptions() {
+    Page.ScreenshotOptions options = new Page.ScreenshotOptions().setFullPage(true);
+    if (animationFreezer.isEnabled()) {
+      options.setAnimations(ScreenshotAnimations.DISABLED);
+    }
+    return options;
+  }
+
+  private HtmlSemanticSnapshot snapshot(Page page, CaptureTimings timings) throws IOException {
+    long start = System.nanoTime();
+    HtmlSemanticSnapshot snapshot = extractSnapshot(page, timings);
+    timings.addPhase("snapshot", elapsedMs(start));
+    System.out.printf("Semantic snapshot (%s engine): %d text nodes, %d interactive elements in %.1f ms%n",
+        engine(), snapshot.getTextNodes().size(), snapshot.getInteractiveElements().size(), elapsedMs(start));
+    return snapshot;
+  }
+
+  /**
+   * Extracts the semantic snapshot from a loaded, settled page. Subclasses may
+   * replace the in-page script with another extraction engine, recording their
+   * browser round trips as snapshot_evaluate.
+   */
+  protected HtmlSemanticSnapshot extractSnapshot(Page page, CaptureTimings timings) throws IOException {
+    return snapshotTransfer.read(page, timings);
+  }
 
-    // Give a small extra buffer for final animation frames
-    page.waitForTimeout(1000);
+  protected SnapshotEngine engine() {
+    return SnapshotEngine.SCRIPT;
+  }
+
+  @Override
+  public void close() {
+    asyncExecutor.shutdownNow();
+    browserPool.close();
+  }
+
+  private BrowserPool.Lease acquire(Viewport viewport, String url, CaptureTimings timings) {
+    return acquire(viewport, url, timings, CaptureCall.unbounded());
+  }
+
+  private BrowserPool.Lease acquire(Viewport viewport, String url, CaptureTimings timings, CaptureCall call) {
+    call.checkpoint("acquire");
+    long start = System.nanoTime();
+    BrowserPool.Lease lease = browserPool.acquire(viewport, url, call.boundTimeoutMs(config.acquireTimeoutMs));
+    timings.addPhase("acquire", elapsedMs(start));
+    return lease;
+  }
+
+  private Page openPage(BrowserPool.Lease lease, String url, CaptureTimings timings, CaptureCall call) {
+    call.checkpoint("new_page");
+    long start = System.nanoTime();
+    Page page = lease.newPage();
+    // Screenshots and locator calls must not outlive the call's deadline either
+    page.setDefaultTimeout(call.boundTimeoutMs(DEFAULT_ACTION_TIMEOUT_MS));
+    requestRouter.install(lease, page, url);
+    timings.addPhase("new_page", elapsedMs(start));
+    timings.addReadiness(navigateAndWait(page, url, call));
+    return page;
+  }
+
+  private void record(String label, CaptureTimings timings, long startNanos) {
+    timings.setTotalMs(elapsedMs(startNanos));
+    metrics.record(timings);
+    System.out.println("Capture timings (" + label + "): " + timings);
+  }
+
+  private ReadinessReport navigateAndWait(Page page, String url, CaptureCall call) {
+    readinessDetector.install(page);
+    animationFreezer.beforeNavigation(page);
+
+    ReadinessReport report = new ReadinessReport();
+    long start = System.nanoTime();
+    page.navigate(url, new Page.NavigateOptions()
+        .setTimeout(call.boundTimeoutMs(config.navigationTimeoutMs))
+        .setWaitUntil(WaitUntilState.DOMCONTENTLOADED));
+    animationFreezer.afterNavigation(page);
+    report.addPhase("navigation", elapsedMs(start));
+
+    // Wait for fonts, eager images and layout quiescence instead of fixed sleeps
+    call.checkpoint("readiness");
+    report.merge("", readinessDetector.awaitReady(page, call.boundTimeoutMs(config.readinessBudgetMs)));
+
+    // Trigger lazy loading and scroll-driven reveals in viewport-sized jumps
+    call.checkpoint("lazy_load");
+    report.merge("lazy_", lazyContentLoader.load(page, call.boundTimeoutMs(config.lazyLoadBudgetMs)));
+
+    // Fire pending timers (delayed reveals, JS-driven animations) on the virtual clock
+    if (animationFreezer.isEnabled()) {
+      call.checkpoint("fast_forward");
+      start = System.nanoTime();
+      animationFreezer.fastForward(page);
+      report.addPhase("fast_forward", elapsedMs(start));
+    }
+
+    // Let anything revealed by scrolling settle before capturing
+    call.checkpoint("settle");
+    report.merge("settle_", readinessDetector.awaitReady(page, call.boundTimeoutMs(config.readinessBudgetMs)));
+
+    if (report.isTimedOut()) {
+      System.out.println("Warning: page did not fully settle within the readiness budget (proceeding anyway)");
+    }
+    System.out.println("Page ready in " + report);
+    return report;
   }
 
-  private String buildSnapshotScript(int maxTextNodes) {
-    // Wrapped in IIFE to allow 'return' and isolated scope
-    return String.format(
-        """
-            (() => {
-                const maxTextNodes = %d;
-
-                function toRect(el) {
-                  if (!el) return null;
-                  const r = el.getBoundingClientRect();
-                  return {
-                    x: r.x,
-                    y: r.y,
-                    width: r.width,
-                    height: r.height
-                  };
-                }
-
-                function pick(selectors) {
-                  for (const sel of selectors) {
-                    const el = document.querySelector(sel);
-                    if (el) return el;
-                  }
-                  return null;
-                }
-
-                function getNumeric(value) {
-                  const n = parseFloat(value);
-                  return isNaN(n) ? 0 : n;
-                }
-
-                const headerEl = pick(["header", "[data-section='header']", "[data-figma-section='header']"]);
-                const heroEl = pick(["main section", "section[data-section='hero']", "[data-figma-section='hero']"]);
-                const featuresEl = pick(["section.features", "[data-section='features']", "[data-figma-section='features']"]);
-                const ctasEl = pick(["section.cta", "[data-section='cta']", "[data-figma-section='cta']", "[data-section='ctas']"]);
-                const footerEl = pick(["footer", "[data-section='footer']", "[data-figma-section='footer']"]);
-
-                // Expanded selectors to capture ALL text content including labels and table cells
-                function isVisible(el) {
-                  const style = window.getComputedStyle(el);
-                  return style.display !== 'none' && style.visibility !== 'hidden' && style.opacity !== '0' && !!(el.offsetWidth || el.offsetHeight || el.getClientRects().length);
-                }
-
-                // Whitelist containers that usually represent a single Figma text block
-                const textContainers = Array.from(document.querySelectorAll("h1,h2,h3,h4,h5,h6,p,li,label,button,a"));
-                const textNodes = [];
-
-                function addNode(el) {
-                  const r = el.getBoundingClientRect();
-                  if (r.width === 0 || r.height === 0) return;
-
-                  const style = window.getComputedStyle(el);
-                  let text = el.innerText.trim().replace(/\\s+/g, " ");
-                  if (!text || text.length < 1) return;
-
-                  // Avoid duplicates and sub-strings (nested elements)
-                  // If we already have a node at this spot with overlapping text, it's the same designer intent
-                  const existing = textNodes.find(n => (n.text.includes(text) || text.includes(n.text)) && Math.abs(n.x - r.x) < 20 && Math.abs(n.y - r.y) < 20);
-                  if (existing) {
-                    // If the new one is longer, it carries more content. Replace.
-                    if (text.length > existing.text.length) {
-                       existing.text = text;
-                       existing.tag = el.tagName.toLowerCase();
-                       // We keep the first one's styles if it was a leaf, but update the text
-                    }
-                    return;
-                  }
-
-                  textNodes.push({
-                    id: el.id || null,
-                    tag: el.tagName.toLowerCase(),
-                    text: text,
-                    x: r.x,
-                    y: r.y,
-                    font_family: style.fontFamily || "",
-                    font_size: getNumeric(style.fontSize),
-                    font_weight: style.fontWeight || "",
-                    line_height: getNumeric(style.lineHeight),
-                    letter_spacing: getNumeric(style.letterSpacing),
-                    color: style.color || "",
-                    parent_id: el.parentElement ? (el.parentElement.id || el.parentElement.tagName.toLowerCase()) : null
-                  });
-                }
-
-                // 1. Process leaves first (specific styles)
-                const leaves = Array.from(document.querySelectorAll("span, b, strong, i, em, small, a, button, label, td, th"));
-                leaves.forEach(el => {
-                   if (isVisible(el)) addNode(el);
-                });
-
-                // 2. Process containers (paragraphs, headings)
-                const containers = Array.from(document.querySelectorAll("h1,h2,h3,h4,h5,h6,p,li,div"));
-                containers.forEach(el => {
-                   if (isVisible(el)) addNode(el);
-                });
-
-                textNodes.sort((a, b) => a.y === b.y ? a.x - b.x : a.y - b.y);
-
-                // Expanded interactive selectors
-                const interactives = Array.from(document.querySelectorAll("button, a, input:not([type='hidden']), textarea, select, [role='button'], [role='link']"));
-                const interactiveNodes = [];
-                for (const el of interactives) {
-                   if (el.offsetParent === null) continue; // skip hidden
-                   const r = el.getBoundingClientRect();
-                   if (r.width === 0 || r.height === 0) continue;
-                   const style = window.getComputedStyle(el);
-
-                   // Determine text content for interactive
-                   let text = el.innerText || el.value || el.getAttribute("aria-label") || "";
-
-                   interactiveNodes.push({
-                       text: text.trim().replace(/\\s+/g, " "),
-                       tag: el.tagName.toLowerCase(),
-                       rect: { x: r.x, y: r.y, width: r.width, height: r.height },
-                       background_color: style.backgroundColor,
-                       border_radius: style.borderRadius,
-                       padding: style.padding,
-                       color: style.color,
-                       parent_id: el.parentElement ? (el.parentElement.id || el.parentElement.tagName.toLowerCase()) : null
-                   });
-                }
-
-                const limitedText = textNodes.slice(0, maxTextNodes);
-
-                const snapshot = {
-                  viewport_width: window.innerWidth,
-                  viewport_height: window.innerHeight,
-                  document_width: Math.max(document.documentElement.scrollWidth || 0, document.body.scrollWidth || 0),
-                  document_height: Math.max(document.documentElement.scrollHeight || 0, document.body.scrollHeight || 0),
-                  sections: {
-                    header: toRect(headerEl),
-                    hero: toRect(heroEl),
-                    features: toRect(featuresEl),
-                    ctas: toRect(ctasEl),
-                    footer: toRect(footerEl)
-                  },
-                  text_nodes: limitedText,
-                  interactive_elements: interactiveNodes
-                };
-
-                return JSON.stringify(snapshot);
-            })();
-            """,
-        maxTextNodes);
+  private static double elapsedMs(long startNanos) {
+    return (System.nanoTime() - startNanos) / 1_000_000.0;
   }
 }
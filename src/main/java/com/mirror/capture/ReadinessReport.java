@@ -0,0 +1,90 @@
+package com.mirror.capture;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-phase timings of a page readiness wait.
+ */
+public class ReadinessReport {
+
+    private final Map<String, Double> phaseMs = new LinkedHashMap<>();
+    private boolean timedOut;
+    private int pendingImages;
+    private int mutations;
+    // Elements whose class/style churn was ignored to let the page go quiet
+    private int churningElements;
+
+    public Map<String, Double> getPhaseMs() { return phaseMs; }
+    public boolean isTimedOut() { return timedOut; }
+    public int getPendingImages() { return pendingImages; }
+    public int getMutations() { return mutations; }
+    public int getChurningElements() { return churningElements; }
+
+    public void addPhase(String name, double durationMs) {
+        phaseMs.merge(name, durationMs, Double::sum);
+    }
+
+    /**
+     * Merges another wait (e.g. the post-scroll settle) into this report.
+     */
+    public void merge(String prefix, ReadinessReport other) {
+        other.phaseMs.forEach((name, ms) -> addPhase(prefix + name, ms));
+        timedOut |= other.timedOut;
+        pendingImages += other.pendingImages;
+        mutations = Math.max(mutations, other.mutations);
+        churningElements = Math.max(churningElements, other.churningElements);
+    }
+
+    public double getTotalMs() {
+        return phaseMs.values().stream().mapToDouble(Double::doubleValue).sum();
+    }
+
+    @SuppressWarnings("unchecked")
+    static ReadinessReport fromScriptResult(Object result) {
+        ReadinessReport report = new ReadinessReport();
+        if (!(result instanceof Map)) {
+            return report;
+        }
+        Map<String, Object> map = (Map<String, Object>) result;
+        Object phases = map.get("phases");
+        if (phases instanceof Map) {
+            ((Map<String, Object>) phases).forEach((name, value) -> {
+                if (value instanceof Number) {
+                    report.addPhase(name, ((Number) value).doubleValue());
+                }
+            });
+        }
+        report.timedOut = Boolean.TRUE.equals(map.get("timed_out"));
+        report.pendingImages = asInt(map.get("pending_images"));
+        report.mutations = asInt(map.get("mutations"));
+        report.churningElements = asInt(map.get("churning_elements"));
+        return report;
+    }
+
+    private static int asInt(Object value) {
+        return value instanceof Number ? ((Number) value).intValue() : 0;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(String.format("%.0f ms", getTotalMs()));
+        sb.append(" (");
+        boolean first = true;
+        for (Map.Entry<String, Double> e : phaseMs.entrySet()) {
+            if (!first) {
+                sb.append(", ");
+            }
+            sb.append(e.getKey()).append('=').append(String.format("%.0f", e.getValue()));
+            first = false;
+        }
+        sb.append(')');
+        if (timedOut) {
+            sb.append(" [budget exhausted]");
+        }
+        if (churningElements > 0) {
+            sb.append(" [").append(churningElements).append(" churning elements ignored]");
+        }
+        return sb.toString();
+    }
+}
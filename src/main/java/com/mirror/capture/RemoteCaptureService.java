@@ -0,0 +1,190 @@
+package com.mirror.capture;
+
+import com.mirror.model.Viewport;
+import com.mirror.semantic.CompactSnapshotCodec;
+import com.mirror.semantic.HtmlSemanticSnapshot;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * {@link WebCaptureService} backed by out-of-process {@link CaptureWorker}s.
+ *
+ * Browsers and page screenshots live in the workers; this process only maps
+ * the finished screenshot buffers, so a page that exhausts memory crashes a
+ * worker instead of the analysis JVM. Capture timings are logged by the workers
+ * and results carry none.
+ *
+ * Asynchronous captures forward their deadline to the worker, which stops the
+ * capture there. Cancelling one, or its deadline passing here first, closes its
+ * worker connection: the caller and the worker slot are released at once, and
+ * the worker cancels the capture, which stops at its next phase and closes its
+ * page and browser context.
+ */
+public class RemoteCaptureService implements WebCaptureService {
+
+    private final CaptureWorkerPool workers;
+    private final SnapshotEngine engine;
+    private final CompactSnapshotCodec codec = new CompactSnapshotCodec();
+    // Waits on worker sockets for asynchronous captures, one thread per worker slot
+    private final ExecutorService asyncExecutor;
+
+    public RemoteCaptureService(CaptureWorkerPool workers, SnapshotEngine engine) {
+        this.workers = workers;
+        this.engine = engine;
+        AtomicInteger threads = new AtomicInteger();
+        this.asyncExecutor = Executors.newFixedThreadPool(workers.slotCount(), r -> {
+            Thread thread = new Thread(r, "remote-capture-async-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public CompletableFuture<BufferedImage> captureAsync(String url, Viewport viewport, Duration deadline) {
+        WorkerProtocol.Request request = request(WorkerProtocol.Op.CAPTURE, url, viewport, deadline);
+        return submit(deadline, future -> image(workers.call(request, tile -> { }, future), WorkerProtocol.PAGE));
+    }
+
+    @Override
+    public CompletableFuture<HtmlSemanticSnapshot> captureSemanticAsync(String url, Viewport viewport,
+            Duration deadline) {
+        WorkerProtocol.Request request = request(WorkerProtocol.Op.SEMANTIC, url, viewport, deadline);
+        return submit(deadline,
+                future -> snapshot(workers.call(request, tile -> { }, future), WorkerProtocol.PAGE));
+    }
+
+    /**
+     * Runs a remote capture on the async executor, handing it the returned
+     * future so that completing that future early closes the worker connection.
+     */
+    private <T> CompletableFuture<T> submit(Duration deadline, Function<CompletableFuture<?>, T> capture) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        if (deadline != null) {
+            future.orTimeout(deadline.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        asyncExecutor.execute(() -> {
+            if (future.isDone()) {
+                return;
+            }
+            try {
+                future.complete(capture.apply(future));
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    @Override
+    public CaptureResult captureWithSnapshot(String url, Viewport viewport) {
+        WorkerProtocol.Response response = call(WorkerProtocol.Op.WITH_SNAPSHOT, url, viewport);
+        return new CaptureResult(image(response, WorkerProtocol.PAGE), snapshot(response, WorkerProtocol.PAGE));
+    }
+
+    @Override
+    public Map<Viewport, CaptureResult> captureViewports(String url, List<Viewport> viewports) {
+        WorkerProtocol.Request request = request(WorkerProtocol.Op.VIEWPORTS, url, null);
+        request.viewports = new ArrayList<>();
+        viewports.forEach(viewport -> request.viewports.add(viewport.name()));
+        WorkerProtocol.Response response = workers.call(request, tile -> { });
+
+        Map<Viewport, CaptureResult> results = new LinkedHashMap<>();
+        for (String name : response.images.keySet()) {
+            results.put(Viewport.valueOf(name), new CaptureResult(image(response, name), snapshot(response, name)));
+        }
+        return results;
+    }
+
+    @Override
+    public void captureTiles(String url, Viewport viewport, Consumer<ScreenshotTile> sink) {
+        workers.call(request(WorkerProtocol.Op.TILES, url, viewport), tile -> sink.accept(tile(tile)));
+    }
+
+    @Override
+    public HtmlSemanticSnapshot captureTilesWithSnapshot(String url, Viewport viewport,
+            Consumer<ScreenshotTile> sink) {
+        WorkerProtocol.Response response = workers.call(
+                request(WorkerProtocol.Op.TILES_WITH_SNAPSHOT, url, viewport), tile -> sink.accept(tile(tile)));
+        return snapshot(response, WorkerProtocol.PAGE);
+    }
+
+    @Override
+    public Map<PageSection, BufferedImage> captureSections(String url, Viewport viewport) {
+        WorkerProtocol.Response response = call(WorkerProtocol.Op.SECTIONS, url, viewport);
+        Map<PageSection, BufferedImage> sections = new LinkedHashMap<>();
+        for (String name : response.images.keySet()) {
+            sections.put(PageSection.valueOf(name), image(response, name));
+        }
+        return sections;
+    }
+
+    private WorkerProtocol.Response call(WorkerProtocol.Op op, String url, Viewport viewport) {
+        return workers.call(request(op, url, viewport), tile -> { });
+    }
+
+    private WorkerProtocol.Request request(WorkerProtocol.Op op, String url, Viewport viewport) {
+        return request(op, url, viewport, null);
+    }
+
+    private WorkerProtocol.Request request(WorkerProtocol.Op op, String url, Viewport viewport,
+            Duration deadline) {
+        WorkerProtocol.Request request = new WorkerProtocol.Request();
+        request.op = op;
+        request.url = url;
+        request.engine = engine;
+        request.viewport = viewport != null ? viewport.name() : null;
+        request.deadlineMs = deadline != null ? deadline.toMillis() : 0;
+        return request;
+    }
+
+    private ScreenshotTile tile(WorkerProtocol.Response tile) {
+        return new ScreenshotTile(tile.index, tile.y, tile.pageWidth, tile.pageHeight,
+                image(tile, WorkerProtocol.PAGE));
+    }
+
+    /**
+     * Maps a shared screenshot buffer and deletes the file once copied.
+     */
+    private static BufferedImage image(WorkerProtocol.Response response, String key) {
+        String file = response.images.get(key);
+        if (file == null) {
+            throw new RuntimeException("Capture worker returned no screenshot for " + key);
+        }
+        Path path = Paths.get(file);
+        try {
+            return SharedImageBuffer.read(path);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read shared screenshot " + path, e);
+        } finally {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                System.out.println("Warning: could not delete shared screenshot " + path + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private HtmlSemanticSnapshot snapshot(WorkerProtocol.Response response, String key) {
+        String encoded = response.snapshots.get(key);
+        if (encoded == null) {
+            throw new RuntimeException("Capture worker returned no snapshot for " + key);
+        }
+        return codec.decode(encoded);
+    }
+}
@@ -0,0 +1,156 @@
+package com.mirror.capture;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.microsoft.playwright.BrowserContext;
+import com.microsoft.playwright.CDPSession;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.Request;
+import com.microsoft.playwright.Route;
+import com.microsoft.playwright.options.HarMode;
+import com.microsoft.playwright.options.HarNotFound;
+import com.microsoft.playwright.options.RouteFromHarUpdateContentPolicy;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Network layer for captures: aborts blocked requests (analytics, chat widgets,
+ * media) and optionally records the page's traffic to a HAR archive on disk so
+ * that later captures of the same URL are replayed locally.
+ *
+ * Blocking runs as a page route, which takes precedence over the context-level
+ * HAR route; requests that are not blocked fall through to the recording or
+ * replay. Recordings are written to a temporary file and moved into place when
+ * the lease's context closes, so concurrent captures never read a partial HAR.
+ *
+ * On a persistent browser profile URL patterns are blocked through Chromium's
+ * Network.setBlockedURLs instead, because a route would bypass the profile's
+ * disk cache; resource types cannot be blocked that way and load normally.
+ */
+public class RequestRouter {
+
+    private final CaptureConfig config;
+
+    public RequestRouter(CaptureConfig config) {
+        this.config = config;
+    }
+
+    public void install(BrowserPool.Lease lease, Page page, String url) {
+        if (config.replayCacheEnabled) {
+            installReplayCache(lease, url);
+        }
+        if (lease.isPersistent()) {
+            blockWithoutRouting(lease, page);
+            return;
+        }
+        // Any route disables the browser's HTTP cache, so only route when there is something to block
+        if (!config.blockedUrlPatterns.isEmpty() || !config.blockedResourceTypes.isEmpty()) {
+            page.route("**/*", this::handle);
+        }
+    }
+
+    private void blockWithoutRouting(BrowserPool.Lease lease, Page page) {
+        if (config.blockedUrlPatterns.isEmpty()) {
+            return;
+        }
+        JsonArray urls = new JsonArray();
+        for (String pattern : config.blockedUrlPatterns) {
+            urls.add("*" + pattern + "*");
+        }
+        JsonObject params = new JsonObject();
+        params.add("urls", urls);
+        CDPSession session = lease.context().newCDPSession(page);
+        session.send("Network.enable");
+        session.send("Network.setBlockedURLs", params);
+    }
+
+    private void handle(Route route) {
+        if (isBlocked(route.request())) {
+            route.abort("blockedbyclient");
+        } else {
+            route.fallback();
+        }
+    }
+
+    private boolean isBlocked(Request request) {
+        if (request.isNavigationRequest()) {
+            return false;
+        }
+        if (config.blockedResourceTypes.contains(request.resourceType())) {
+            return true;
+        }
+        String url = request.url();
+        for (String pattern : config.blockedUrlPatterns) {
+            if (url.contains(pattern)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void installReplayCache(BrowserPool.Lease lease, String url) {
+        BrowserContext context = lease.context();
+        Path har = harPath(url);
+        if (isFresh(har)) {
+            System.out.println("Replaying recorded responses from " + har);
+            // Requests missing from the recording still go to the network
+            context.routeFromHAR(har, new BrowserContext.RouteFromHAROptions()
+                    .setNotFound(HarNotFound.FALLBACK));
+            return;
+        }
+
+        try {
+            Files.createDirectories(har.getParent());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to create replay cache directory " + har.getParent(), e);
+        }
+        Path recording = har.resolveSibling(har.getFileName() + "." + System.nanoTime() + ".zip");
+        System.out.println("Recording responses to " + har);
+        context.routeFromHAR(recording, new BrowserContext.RouteFromHAROptions()
+                .setUpdate(true)
+                .setUpdateContent(RouteFromHarUpdateContentPolicy.ATTACH)
+                .setUpdateMode(HarMode.MINIMAL));
+
+        // Playwright writes the HAR when the context closes
+        lease.onClose(() -> {
+            try {
+                if (Files.exists(recording)) {
+                    Files.move(recording, har, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to store recording " + recording, e);
+            }
+        });
+    }
+
+    private boolean isFresh(Path har) {
+        try {
+            if (!Files.exists(har)) {
+                return false;
+            }
+            if (config.replayCacheTtlMs <= 0) {
+                return true;
+            }
+            long age = System.currentTimeMillis() - Files.getLastModifiedTime(har).toMillis();
+            return age < config.replayCacheTtlMs;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private Path harPath(String url) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(url.getBytes(StandardCharsets.UTF_8));
+            return Path.of(config.replayCacheDir).resolve(HexFormat.of().formatHex(digest, 0, 16) + ".zip");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 not available", e);
+        }
+    }
+}
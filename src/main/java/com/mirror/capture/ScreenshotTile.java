@@ -0,0 +1,30 @@
+package com.mirror.capture;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * One horizontal band of a tiled full-page capture.
+ */
+public class ScreenshotTile {
+
+    private final int index;
+    private final int y;
+    private final int pageWidth;
+    private final int pageHeight;
+    private final BufferedImage image;
+
+    public ScreenshotTile(int index, int y, int pageWidth, int pageHeight, BufferedImage image) {
+        this.index = index;
+        this.y = y;
+        this.pageWidth = pageWidth;
+        this.pageHeight = pageHeight;
+        this.image = image;
+    }
+
+    public int getIndex() { return index; }
+    // Offset of the tile's top edge from the top of the page, in CSS pixels
+    public int getY() { return y; }
+    public int getPageWidth() { return pageWidth; }
+    public int getPageHeight() { return pageHeight; }
+    public BufferedImage getImage() { return image; }
+}
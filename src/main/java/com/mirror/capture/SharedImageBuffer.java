@@ -0,0 +1,62 @@
+package com.mirror.capture;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Hands decoded screenshots between processes through memory-mapped files.
+ *
+ * Pixels are stored raw (a small header, then one RGB int per pixel), so the
+ * receiving side maps the file and copies it straight into the raster of a
+ * TYPE_INT_RGB image: no PNG encode in the worker and no decode in the reader.
+ */
+final class SharedImageBuffer {
+
+    private static final int MAGIC = 0x4D495252; // "MIRR"
+    private static final int HEADER_BYTES = 3 * Integer.BYTES;
+
+    private SharedImageBuffer() {
+    }
+
+    static void write(BufferedImage image, Path file) throws IOException {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        long size = HEADER_BYTES + (long) width * height * Integer.BYTES;
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Screenshot too large to share: " + width + "x" + height);
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(MAGIC).putInt(width).putInt(height);
+            IntBuffer pixels = buffer.asIntBuffer();
+            int[] row = new int[width];
+            for (int y = 0; y < height; y++) {
+                image.getRGB(0, y, width, 1, row, 0, width);
+                pixels.put(row);
+            }
+        }
+    }
+
+    static BufferedImage read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a shared screenshot buffer: " + file);
+            }
+            int width = buffer.getInt();
+            int height = buffer.getInt();
+            BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            int[] data = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            buffer.asIntBuffer().get(data);
+            return image;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.mirror.capture;
+
+/**
+ * How the semantic snapshot is extracted from the rendered page.
+ */
+public enum SnapshotEngine {
+    // In-page JavaScript walker, see SnapshotScript
+    SCRIPT,
+    // One bulk DOMSnapshot.captureSnapshot call over the Chrome DevTools Protocol
+    CDP
+}
@@ -0,0 +1,286 @@
+package com.mirror.capture;
+
+/**
+ * Builds the in-page JavaScript that extracts the semantic DOM snapshot
+ * (sections, text nodes and interactive elements).
+ *
+ * The script returns only a small JSON header (page metrics, sections and node
+ * counts). The node lists stay in a page-side buffer and are pulled in chunks by
+ * {@link SnapshotTransfer}, so large pages never produce one giant string.
+ */
+public final class SnapshotScript {
+
+    private SnapshotScript() {
+    }
+
+    // Page-side buffer holding the node lists until they have been transferred
+    static final String BUFFER = "window.__mirrorSnapshot";
+
+    /**
+     * @param maxTextNodes maximum number of text nodes to keep, or 0 for no limit
+     */
+    public static String build(int maxTextNodes) {
+        // Wrapped in IIFE to allow 'return' and isolated scope
+        return String.format(
+                """
+                (() => {
+                    const maxTextNodes = %d;
+
+                    function toRect(el) {
+                      if (!el) return null;
+                      const r = el.getBoundingClientRect();
+                      return {
+                        x: r.x,
+                        y: r.y,
+                        width: r.width,
+                        height: r.height
+                      };
+                    }
+
+                    function pick(selectors) {
+                      for (const sel of selectors) {
+                        const el = document.querySelector(sel);
+                        if (el) return el;
+                      }
+                      return null;
+                    }
+
+                    function getNumeric(value) {
+                      const n = parseFloat(value);
+                      return isNaN(n) ? 0 : n;
+                    }
+
+                    const headerEl = pick(%s);
+                    const heroEl = pick(%s);
+                    const featuresEl = pick(%s);
+                    const ctasEl = pick(%s);
+                    const footerEl = pick(%s);
+
+                    // Element classes, matched in a single traversal of the DOM
+                    const LEAF_TAGS = new Set(["SPAN", "B", "STRONG", "I", "EM", "SMALL", "A", "BUTTON", "LABEL", "TD", "TH"]);
+                    const CONTAINER_TAGS = new Set(["H1", "H2", "H3", "H4", "H5", "H6", "P", "LI", "DIV"]);
+                    const INTERACTIVE_TAGS = new Set(["BUTTON", "A", "INPUT", "TEXTAREA", "SELECT"]);
+                    const SKIPPED_TAGS = new Set(["SCRIPT", "STYLE", "NOSCRIPT", "TEMPLATE"]);
+
+                    function isInteractive(el, tag) {
+                      if (tag === "INPUT") return el.type !== "hidden";
+                      if (INTERACTIVE_TAGS.has(tag)) return true;
+                      const role = el.getAttribute("role");
+                      return role === "button" || role === "link";
+                    }
+
+                    const textNodes = [];
+
+                    // Spatial hash for de-duplication: nodes are bucketed into DEDUPE_PX cells by
+                    // their (x, y) origin, so a duplicate (< DEDUPE_PX away on both axes) can only
+                    // live in the same or a neighbouring cell. This keeps dedupe O(1) per element.
+                    const DEDUPE_PX = 20;
+                    const grid = new Map();
+                    const cellKey = (cx, cy) => cx + ":" + cy;
+
+                    function findDuplicate(text, x, y) {
+                      const cx = Math.floor(x / DEDUPE_PX);
+                      const cy = Math.floor(y / DEDUPE_PX);
+                      let best = -1;
+                      for (let dx = -1; dx <= 1; dx++) {
+                        for (let dy = -1; dy <= 1; dy++) {
+                          const bucket = grid.get(cellKey(cx + dx, cy + dy));
+                          if (!bucket) continue;
+                          for (const idx of bucket) {
+                            // Keep the earliest match, like a linear scan would
+                            if (best !== -1 && idx > best) continue;
+                            const n = textNodes[idx];
+                            if (Math.abs(n.x - x) < DEDUPE_PX && Math.abs(n.y - y) < DEDUPE_PX
+                                && (n.text.includes(text) || text.includes(n.text))) {
+                              best = idx;
+                            }
+                          }
+                        }
+                      }
+                      return best === -1 ? null : textNodes[best];
+                    }
+
+                    function addNode(info) {
+                      const el = info.el;
+                      const r = info.rect;
+                      const style = info.style;
+                      let text = textOf(info).trim().replace(/\\s+/g, " ");
+                      if (!text || text.length < 1) return;
+
+                      // Avoid duplicates and sub-strings (nested elements)
+                      // If we already have a node at this spot with overlapping text, it's the same designer intent
+                      const existing = findDuplicate(text, r.x, r.y);
+                      if (existing) {
+                        // If the new one is longer, it carries more content. Replace.
+                        if (text.length > existing.text.length) {
+                           existing.text = text;
+                           existing.tag = el.tagName.toLowerCase();
+                           // We keep the first one's styles if it was a leaf, but update the text
+                        }
+                        return;
+                      }
+
+                      const key = cellKey(Math.floor(r.x / DEDUPE_PX), Math.floor(r.y / DEDUPE_PX));
+                      let bucket = grid.get(key);
+                      if (!bucket) {
+                        bucket = [];
+                        grid.set(key, bucket);
+                      }
+                      bucket.push(textNodes.length);
+
+                      textNodes.push({
+                        id: el.id || null,
+                        tag: el.tagName.toLowerCase(),
+                        text: text,
+                        x: r.x,
+                        y: r.y,
+                        font_family: style.fontFamily || "",
+                        font_size: getNumeric(style.fontSize),
+                        font_weight: style.fontWeight || "",
+                        line_height: getNumeric(style.lineHeight),
+                        letter_spacing: getNumeric(style.letterSpacing),
+                        color: style.color || "",
+                        parent_id: el.parentElement ? (el.parentElement.id || el.parentElement.tagName.toLowerCase()) : null
+                      });
+                    }
+
+                    // innerText forces layout-aware text extraction, so compute it at most once per element
+                    function textOf(info) {
+                      if (info.text === undefined) info.text = info.el.innerText || "";
+                      return info.text;
+                    }
+
+                    // Single pass: one getComputedStyle and one getBoundingClientRect per candidate
+                    // element. Subtrees hidden with display:none are skipped entirely.
+                    const leaves = [];
+                    const containers = [];
+                    const interactiveNodes = [];
+                    let currentStyle = null;
+                    const walker = document.createTreeWalker(document.body || document.documentElement, NodeFilter.SHOW_ELEMENT, {
+                      acceptNode(el) {
+                        if (SKIPPED_TAGS.has(el.tagName)) return NodeFilter.FILTER_REJECT;
+                        currentStyle = window.getComputedStyle(el);
+                        return currentStyle.display === 'none' ? NodeFilter.FILTER_REJECT : NodeFilter.FILTER_ACCEPT;
+                      }
+                    });
+
+                    for (let el = walker.nextNode(); el; el = walker.nextNode()) {
+                      const tag = el.tagName;
+                      const isLeaf = LEAF_TAGS.has(tag);
+                      const isContainer = CONTAINER_TAGS.has(tag);
+                      const interactive = isInteractive(el, tag);
+                      if (!isLeaf && !isContainer && !interactive) continue;
+
+                      const style = currentStyle;
+                      const r = el.getBoundingClientRect();
+                      if (r.width === 0 || r.height === 0) continue;
+                      const info = { el: el, style: style, rect: r, text: undefined };
+
+                      if ((isLeaf || isContainer) && style.visibility !== 'hidden' && style.opacity !== '0') {
+                        (isLeaf ? leaves : containers).push(info);
+                      }
+
+                      if (interactive && el.offsetParent !== null) {
+                        // Determine text content for interactive
+                        let text = textOf(info) || el.value || el.getAttribute("aria-label") || "";
+
+                        interactiveNodes.push({
+                            text: text.trim().replace(/\\s+/g, " "),
+                            tag: tag.toLowerCase(),
+                            rect: { x: r.x, y: r.y, width: r.width, height: r.height },
+                            background_color: style.backgroundColor,
+                            border_radius: style.borderRadius,
+                            padding: style.padding,
+                            color: style.color,
+                            parent_id: el.parentElement ? (el.parentElement.id || el.parentElement.tagName.toLowerCase()) : null
+                        });
+                      }
+                    }
+
+                    // Leaves first (specific styles), then containers (paragraphs, headings)
+                    leaves.forEach(addNode);
+                    containers.forEach(addNode);
+
+                    textNodes.sort((a, b) => a.y === b.y ? a.x - b.x : a.y - b.y);
+
+                    const limitedText = maxTextNodes > 0 ? textNodes.slice(0, maxTextNodes) : textNodes;
+
+                    const snapshot = {
+                      viewport_width: window.innerWidth,
+                      viewport_height: window.innerHeight,
+                      document_width: Math.max(document.documentElement.scrollWidth || 0, document.body.scrollWidth || 0),
+                      document_height: Math.max(document.documentElement.scrollHeight || 0, document.body.scrollHeight || 0),
+                      sections: {
+                        header: toRect(headerEl),
+                        hero: toRect(heroEl),
+                        features: toRect(featuresEl),
+                        ctas: toRect(ctasEl),
+                        footer: toRect(footerEl)
+                      }
+                    };
+
+                    %s = {
+                      text_nodes: limitedText,
+                      interactive_elements: interactiveNodes,
+
+                      // Compact columnar encoding of one chunk, see CompactSnapshotCodec.
+                      // The string table persists across chunks of the same snapshot.
+                      table: new Map(),
+                      encode(key, offset, limit) {
+                        const items = this[key].slice(offset, offset + limit);
+                        const spec = key === "text_nodes"
+                          ? { marker: "T", nums: ["x", "y", "font_size", "line_height", "letter_spacing"],
+                              strs: ["id", "tag", "text", "font_family", "font_weight", "color", "parent_id"],
+                              numOf: (n, k) => n[k] }
+                          : { marker: "I", nums: ["x", "y", "width", "height"],
+                              strs: ["text", "tag", "background_color", "border_radius", "padding", "color", "parent_id"],
+                              numOf: (n, k) => n.rect ? n.rect[k] : NaN };
+                        const out = [];
+                        const str = v => {
+                          if (v === null || v === undefined) return -1;
+                          let idx = this.table.get(v);
+                          if (idx === undefined) {
+                            idx = this.table.size;
+                            this.table.set(v, idx);
+                            out.push("S\\t" + String(v).replace(/\\\\/g, "\\\\\\\\").replace(/\\n/g, "\\\\n").replace(/\\r/g, "\\\\r"));
+                          }
+                          return idx;
+                        };
+                        const num = v => String(Math.round(v * 100) / 100);
+
+                        const strCols = spec.strs.map(k => items.map(n => str(n[k])));
+                        out.push(spec.marker + "\\t" + items.length);
+                        for (const k of spec.nums) out.push(k + "\\t" + items.map(n => num(spec.numOf(n, k))).join(","));
+                        spec.strs.forEach((k, c) => out.push(k + "\\t" + strCols[c].join(",")));
+                        return out.join("\\n") + "\\n";
+                      }
+                    };
+
+                    return JSON.stringify({
+                      snapshot: snapshot,
+                      text_node_count: limitedText.length,
+                      interactive_count: interactiveNodes.length
+                    });
+                })();
+                """,
+                maxTextNodes,
+                selectors(PageSection.HEADER), selectors(PageSection.HERO), selectors(PageSection.FEATURES),
+                selectors(PageSection.CTAS), selectors(PageSection.FOOTER),
+                BUFFER);
+    }
+
+    /**
+     * The section's selectors as a JavaScript array literal, so that the script
+     * tries the same selectors as the section screenshots.
+     */
+    private static String selectors(PageSection section) {
+        StringBuilder array = new StringBuilder("[");
+        for (String selector : section.getSelectors()) {
+            if (array.length() > 1) {
+                array.append(", ");
+            }
+            array.append('"').append(selector.replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+        }
+        return array.append(']').toString();
+    }
+}
@@ -0,0 +1,144 @@
+package com.mirror.capture;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microsoft.playwright.Page;
+import com.mirror.semantic.CompactSnapshotCodec;
+import com.mirror.semantic.HtmlSemanticSnapshot;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs the snapshot script and pulls the resulting node lists out of the page
+ * in fixed-size chunks.
+ *
+ * Each chunk is either compact columnar text decoded by {@link CompactSnapshotCodec}
+ * or a small JSON array parsed element by element with a streaming parser. Chunks
+ * are dropped once decoded, so neither side ever materialises the full snapshot
+ * as a single string and there is no need to cap the node count.
+ */
+public class SnapshotTransfer {
+
+    private static final String READ_CHUNK = "([key, offset, limit]) => JSON.stringify("
+            + SnapshotScript.BUFFER + "[key].slice(offset, offset + limit))";
+
+    private static final String READ_COMPACT_CHUNK = "([key, offset, limit]) => "
+            + SnapshotScript.BUFFER + ".encode(key, offset, limit)";
+
+    private static final String RELEASE = "() => { delete " + SnapshotScript.BUFFER + "; }";
+
+    private final ObjectMapper objectMapper;
+    private final CompactSnapshotCodec codec = new CompactSnapshotCodec();
+    private final CaptureConfig config;
+
+    public SnapshotTransfer(ObjectMapper objectMapper, CaptureConfig config) {
+        this.objectMapper = objectMapper;
+        this.config = config;
+    }
+
+    /**
+     * Reads the snapshot, recording the time spent in {@code page.evaluate} as
+     * snapshot_evaluate and the JSON characters transferred as snapshot_json.
+     */
+    public HtmlSemanticSnapshot read(Page page, CaptureTimings timings) throws IOException {
+        Object result = evaluate(page, SnapshotScript.build(config.maxTextNodes), null, timings);
+        if (!(result instanceof String)) {
+            // Should not happen if script returns JSON.stringify
+            throw new RuntimeException("Script did not return a string");
+        }
+
+        Throwable failure = null;
+        try {
+            JsonNode header = objectMapper.readTree((String) result);
+            HtmlSemanticSnapshot snapshot = objectMapper.treeToValue(header.get("snapshot"), HtmlSemanticSnapshot.class);
+            int textCount = header.path("text_node_count").asInt();
+            int interactiveCount = header.path("interactive_count").asInt();
+
+            if (config.snapshotEncoding == CaptureConfig.SnapshotEncoding.COMPACT) {
+                CompactSnapshotCodec.Decoder decoder = codec.newDecoder(snapshot);
+                readCompact(page, decoder, "text_nodes", textCount, timings);
+                readCompact(page, decoder, "interactive_elements", interactiveCount, timings);
+                return snapshot;
+            }
+
+            snapshot.setTextNodes(readList(page, "text_nodes", textCount,
+                    HtmlSemanticSnapshot.TextNode.class, timings));
+            snapshot.setInteractiveElements(readList(page, "interactive_elements",
+                    interactiveCount, HtmlSemanticSnapshot.InteractiveElement.class, timings));
+            return snapshot;
+        } catch (Throwable e) {
+            failure = e;
+            throw e;
+        } finally {
+            release(page, timings, failure);
+        }
+    }
+
+    /**
+     * Frees the page-side snapshot. A failure here must not replace the error
+     * that ended the read, so it is attached to that error as suppressed.
+     */
+    private static void release(Page page, CaptureTimings timings, Throwable failure) {
+        try {
+            evaluate(page, RELEASE, null, timings);
+        } catch (RuntimeException e) {
+            if (failure != null) {
+                failure.addSuppressed(e);
+            } else {
+                System.out.println("Warning: failed to release page snapshot (" + e.getMessage() + ")");
+            }
+        }
+    }
+
+    private static Object evaluate(Page page, String script, Object arg, CaptureTimings timings) {
+        long start = System.nanoTime();
+        Object result = page.evaluate(script, arg);
+        timings.addPhase("snapshot_evaluate", (System.nanoTime() - start) / 1_000_000.0);
+        if (result instanceof String) {
+            timings.addPayload("snapshot_json", ((String) result).length());
+        }
+        return result;
+    }
+
+    private void readCompact(Page page, CompactSnapshotCodec.Decoder decoder, String key, int count,
+            CaptureTimings timings) {
+        int chunkSize = Math.max(1, config.snapshotChunkSize);
+        for (int offset = 0; offset < count; offset += chunkSize) {
+            Object chunk = evaluate(page, READ_COMPACT_CHUNK, Arrays.asList(key, offset, chunkSize), timings);
+            if (!(chunk instanceof String)) {
+                throw new RuntimeException("Snapshot chunk " + key + "[" + offset + "] was not a string");
+            }
+            decoder.decode((String) chunk);
+        }
+    }
+
+    private <T> List<T> readList(Page page, String key, int count, Class<T> type, CaptureTimings timings)
+            throws IOException {
+        int chunkSize = Math.max(1, config.snapshotChunkSize);
+        List<T> items = new ArrayList<>(count);
+        for (int offset = 0; offset < count; offset += chunkSize) {
+            Object chunk = evaluate(page, READ_CHUNK, Arrays.asList(key, offset, chunkSize), timings);
+            if (!(chunk instanceof String)) {
+                throw new RuntimeException("Snapshot chunk " + key + "[" + offset + "] was not a string");
+            }
+            parseChunk((String) chunk, type, items);
+        }
+        return items;
+    }
+
+    private <T> void parseChunk(String json, Class<T> type, List<T> into) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Expected a JSON array for snapshot chunk");
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                into.add(objectMapper.readValue(parser, type));
+            }
+        }
+    }
+}
@@ -4,11 +4,88 @@ import com.mirror.model.Viewport;
 import com.mirror.semantic.HtmlSemanticSnapshot;
 
 import java.awt.image.BufferedImage;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 
 public interface WebCaptureService {
-    BufferedImage capture(String url);
+    default BufferedImage capture(String url) {
+        return capture(url, Viewport.DESKTOP);
+    }
 
-    BufferedImage capture(String url, Viewport viewport);
+    default BufferedImage capture(String url, Viewport viewport) {
+        return await(captureAsync(url, viewport, null));
+    }
 
-    HtmlSemanticSnapshot captureSemantic(String url, Viewport viewport);
+    default HtmlSemanticSnapshot captureSemantic(String url, Viewport viewport) {
+        return await(captureSemanticAsync(url, viewport, null));
+    }
+
+    /**
+     * Starts a full-page screenshot capture without blocking the caller.
+     *
+     * Cancelling the returned future, or letting the deadline pass, stops the
+     * capture at its next phase and closes its page and browser context. The
+     * future then completes with a {@link java.util.concurrent.CancellationException}
+     * or, on deadline, a {@link java.util.concurrent.TimeoutException}.
+     *
+     * @param deadline time allowed for the whole capture, or null for none
+     */
+    CompletableFuture<BufferedImage> captureAsync(String url, Viewport viewport, Duration deadline);
+
+    /**
+     * Starts a semantic snapshot capture without blocking the caller; see
+     * {@link #captureAsync} for cancellation and deadline semantics.
+     */
+    CompletableFuture<HtmlSemanticSnapshot> captureSemanticAsync(String url, Viewport viewport, Duration deadline);
+
+    /**
+     * Captures the full-page screenshot and the semantic snapshot from one navigation.
+     */
+    CaptureResult captureWithSnapshot(String url, Viewport viewport);
+
+    /**
+     * Loads the page once and captures the screenshot and semantic snapshot at
+     * each viewport in turn, resizing the page instead of reloading it.
+     *
+     * @return results keyed by viewport, in the requested order
+     */
+    Map<Viewport, CaptureResult> captureViewports(String url, List<Viewport> viewports);
+
+    /**
+     * Captures the full page as viewport-height tiles, top to bottom. Each tile is
+     * handed to the sink before the next one is taken, so only one tile needs to
+     * be held in memory at a time.
+     */
+    void captureTiles(String url, Viewport viewport, Consumer<ScreenshotTile> sink);
+
+    /**
+     * Tiled capture plus the semantic snapshot from the same navigation.
+     */
+    HtmlSemanticSnapshot captureTilesWithSnapshot(String url, Viewport viewport, Consumer<ScreenshotTile> sink);
+
+    /**
+     * Screenshots only the page's section elements (header, hero, ...), each
+     * cropped to its own bounding box.
+     *
+     * @return screenshots of the sections found on the page, in {@link PageSection} order
+     */
+    Map<PageSection, BufferedImage> captureSections(String url, Viewport viewport);
+
+    /**
+     * Waits for an asynchronous capture, rethrowing its failure unwrapped.
+     */
+    static <T> T await(CompletableFuture<T> capture) {
+        try {
+            return capture.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
 }
@@ -0,0 +1,68 @@
+package com.mirror.capture;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Messages exchanged with a {@link CaptureWorker}: one JSON object per line
+ * over a loopback socket. Screenshots are not inlined but written to
+ * {@link SharedImageBuffer} files whose paths are sent instead; snapshots use
+ * the compact columnar encoding.
+ */
+final class WorkerProtocol {
+
+    // Key of the single image/snapshot in responses to whole-page operations
+    static final String PAGE = "page";
+
+    enum Op {
+        CAPTURE,
+        SEMANTIC,
+        WITH_SNAPSHOT,
+        VIEWPORTS,
+        TILES,
+        TILES_WITH_SNAPSHOT,
+        SECTIONS;
+
+        /**
+         * Asynchronous captures take their connection to themselves: the caller
+         * cancels one by closing the connection before the response arrives.
+         */
+        boolean isAsync() {
+            return this == CAPTURE || this == SEMANTIC;
+        }
+    }
+
+    private WorkerProtocol() {
+    }
+
+    static class Request {
+        public long id;
+        public Op op;
+        public String url;
+        public SnapshotEngine engine;
+        public String viewport;
+        public List<String> viewports;
+        // Time allowed for an asynchronous capture, 0 for none
+        public long deadlineMs;
+    }
+
+    /**
+     * Tiled operations stream one TILE response per tile before the RESULT.
+     */
+    static class Response {
+        enum Type { TILE, RESULT, ERROR }
+
+        public long id;
+        public Type type;
+        public String error;
+        // Shared image file per key: PAGE, a viewport name or a section name
+        public Map<String, String> images = new LinkedHashMap<>();
+        public Map<String, String> snapshots = new LinkedHashMap<>();
+        // Tile placement, for TILE responses (the image is under PAGE)
+        public int index;
+        public int y;
+        public int pageWidth;
+        public int pageHeight;
+    }
+}
@@ -1,9 +1,15 @@
 package com.mirror.cli;
 
+import com.mirror.capture.CaptureConfig;
+import com.mirror.capture.SnapshotEngine;
 import com.mirror.model.SemanticComparisonResult;
 import com.mirror.model.Viewport;
 import com.mirror.orchestrator.ComparisonOrchestrator;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
 
 /**
@@ -14,14 +20,32 @@ import java.util.Scanner;
  * 
  * Or provide arguments:
  * java -cp ... com.mirror.cli.VisualComparisonCLI <url> <figmaFileId>
- * <figmaNodeId> [viewport]
+ * <figmaNodeId> [viewport] [mode] [engine]
+ *
+ * Capture settings can be given in either mode as {@code --capture.<setting>=<value>},
+ * e.g. {@code --capture.tiledCapture=true} or {@code --capture.blocked-resource-types=media,font};
+ * a flag without a value sets it to true. See {@link CaptureConfig} for the settings.
  */
 public class VisualComparisonCLI {
 
     private static final Scanner scanner = new Scanner(System.in);
-    private static final ComparisonOrchestrator orchestrator = new ComparisonOrchestrator();
+    static final String CAPTURE_FLAG = "--capture.";
+
+    private static ComparisonOrchestrator orchestrator;
 
     public static void main(String[] args) {
+        List<String> positional = new ArrayList<>();
+        CaptureConfig captureConfig;
+        try {
+            captureConfig = parseCaptureFlags(args, positional);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.err.println("Capture settings: " + String.join(", ", CaptureConfig.settingNames()));
+            return;
+        }
+        orchestrator = new ComparisonOrchestrator(captureConfig);
+        args = positional.toArray(new String[0]);
+
         System.out.println("╔════════════════════════════════════════════════════════╗");
         System.out.println("║   🎨 Figma HTML Visual Regression Testing Tool         ║");
         System.out.println("║   QA-Friendly Pixel-to-Pixel Comparison               ║");
@@ -35,14 +59,46 @@ public class VisualComparisonCLI {
             String figmaNode = args[2];
             Viewport viewport = args.length >= 4 ? Viewport.valueOf(args[3].toUpperCase()) : Viewport.DESKTOP;
             String mode = args.length >= 5 ? args[4] : "ALL";
+            SnapshotEngine engine = args.length >= 6 ? SnapshotEngine.valueOf(args[5].toUpperCase())
+                    : SnapshotEngine.SCRIPT;
 
-            runComparison(url, figmaFile, figmaNode, viewport, mode);
+            runComparison(url, figmaFile, figmaNode, viewport, mode, engine);
         } else {
             // Interactive mode
             runInteractiveMode();
         }
     }
 
+    /**
+     * Builds the capture config from {@code --capture.*} flags and collects the
+     * remaining arguments.
+     */
+    static CaptureConfig parseCaptureFlags(String[] args, List<String> positional) {
+        Map<String, String> settings = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith(CAPTURE_FLAG)) {
+                positional.add(arg);
+                continue;
+            }
+            String flag = arg.substring(CAPTURE_FLAG.length());
+            int eq = flag.indexOf('=');
+            String name = eq < 0 ? flag : flag.substring(0, eq);
+            settings.put(settingName(name), eq < 0 ? "true" : flag.substring(eq + 1));
+        }
+        return CaptureConfig.fromSettings(settings);
+    }
+
+    // Accepts the field name as well as its dashed form, in any case
+    private static String settingName(String flag) {
+        String wanted = flag.replace("-", "");
+        for (String name : CaptureConfig.settingNames()) {
+            if (name.equalsIgnoreCase(wanted)) {
+                return name;
+            }
+        }
+        throw new IllegalArgumentException("Unknown capture setting '" + flag + "'");
+    }
+
     private static void runInteractiveMode() {
         System.out.println("Enter the following information:");
         System.out.println();
@@ -108,10 +164,15 @@ public class VisualComparisonCLI {
     }
 
     private static void runComparison(String url, String figmaFile, String figmaNode, Viewport viewport, String mode) {
+        runComparison(url, figmaFile, figmaNode, viewport, mode, SnapshotEngine.SCRIPT);
+    }
+
+    private static void runComparison(String url, String figmaFile, String figmaNode, Viewport viewport, String mode,
+            SnapshotEngine engine) {
         try {
             boolean includePixel = !"SEMANTIC".equalsIgnoreCase(mode);
             SemanticComparisonResult result = orchestrator.compareSemantic(url, figmaFile, figmaNode, viewport,
-                    includePixel);
+                    includePixel, engine);
 
             System.out.println("\n╔════════════════════════════════════════════════════════╗");
             System.out.println("║                  📊 COMPARISON RESULTS                   ║");
@@ -0,0 +1,319 @@
+package com.mirror.figma;
+
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Paces Figma API requests so that bursts queue up instead of failing.
+ *
+ * A token bucket refilled at the plan's request rate admits requests in
+ * priority order (interactive before prefetch, FIFO within a priority). An
+ * HTTP 429 pauses all dispatching for the Retry-After period plus jitter and
+ * re-queues the request at the front of its priority; only Retry-After values
+ * beyond {@code maxDeferral}, or repeated 429s, reach the caller. Nothing blocks
+ * while waiting: dispatching runs on a shared timer thread and requests are
+ * sent asynchronously.
+ */
+public class FigmaRequestScheduler {
+
+    public enum Priority { INTERACTIVE, PREFETCH }
+
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "figma-request-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Share of the retry delay added at random so that deferred requests do not return in lockstep
+    private static final double MAX_JITTER = 0.2;
+
+    private final double tokensPerNano;
+    private final int burst;
+    private final int maxRetries;
+    private final long maxDeferralNanos;
+
+    private final PriorityQueue<Request> queue = new PriorityQueue<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private double tokens;
+    private long refilledAt = System.nanoTime();
+    private long pausedUntil = System.nanoTime();
+    private ScheduledFuture<?> wakeUp;
+    private long wakeUpAt;
+
+    private final AtomicLong dispatched = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong rateLimited = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    /**
+     * @param requestsPerMinute sustained rate allowed by the Figma plan
+     * @param burst             requests that may be sent at once after a quiet period
+     * @param maxRetries        deferred retries of a rate-limited request
+     * @param maxDeferral       longest Retry-After that is waited out instead of failing
+     */
+    public FigmaRequestScheduler(double requestsPerMinute, int burst, int maxRetries, Duration maxDeferral) {
+        this.tokensPerNano = requestsPerMinute / TimeUnit.MINUTES.toNanos(1);
+        this.burst = Math.max(1, burst);
+        this.maxRetries = maxRetries;
+        this.maxDeferralNanos = maxDeferral.toNanos();
+        this.tokens = this.burst;
+    }
+
+    /**
+     * Queues an API request. {@code send} is called when the request is admitted,
+     * again for each retry.
+     */
+    Request submit(Priority priority, Supplier<CompletableFuture<HttpResponse<byte[]>>> send) {
+        Request request = new Request(priority, send);
+        synchronized (this) {
+            queue.add(request);
+        }
+        drain();
+        return request;
+    }
+
+    /**
+     * Sends as many queued requests as the bucket allows and schedules a wake-up
+     * for the rest.
+     */
+    private void drain() {
+        while (true) {
+            Request next;
+            synchronized (this) {
+                if (queue.isEmpty()) {
+                    return;
+                }
+                long now = System.nanoTime();
+                refill(now);
+                long waitNanos = Math.max(pausedUntil - now,
+                        tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / tokensPerNano));
+                if (waitNanos > 0) {
+                    scheduleWakeUp(now, waitNanos);
+                    return;
+                }
+                tokens -= 1;
+                next = queue.poll();
+            }
+            dispatch(next);
+        }
+    }
+
+    private void refill(long now) {
+        tokens = Math.min(burst, tokens + (now - refilledAt) * tokensPerNano);
+        refilledAt = now;
+    }
+
+    private void scheduleWakeUp(long now, long waitNanos) {
+        long at = now + waitNanos;
+        // A wake-up that is due has fired or is firing (possibly this very drain)
+        if (wakeUp != null && wakeUpAt > now && wakeUpAt <= at) {
+            return;
+        }
+        if (wakeUp != null) {
+            wakeUp.cancel(false);
+        }
+        wakeUpAt = at;
+        wakeUp = TIMER.schedule(this::drain, waitNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void dispatch(Request request) {
+        long waited = System.nanoTime() - request.queuedAt;
+        dispatched.incrementAndGet();
+        totalWaitNanos.addAndGet(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+
+        CompletableFuture<HttpResponse<byte[]>> sent;
+        try {
+            sent = request.send.get();
+        } catch (RuntimeException e) {
+            request.response.completeExceptionally(e);
+            return;
+        }
+        sent.whenComplete((response, error) -> {
+            if (error != null) {
+                request.response.completeExceptionally(error);
+            } else if (response.statusCode() == 429 && !defer(request, response)) {
+                // Out of retries or asked to wait too long: the caller reports the rate limit
+                request.response.complete(response);
+            } else if (response.statusCode() != 429) {
+                request.response.complete(response);
+            }
+        });
+    }
+
+    /**
+     * Pauses dispatching for the response's Retry-After plus jitter and re-queues
+     * the request.
+     *
+     * @return false if the request should fail instead
+     */
+    private boolean defer(Request request, HttpResponse<byte[]> response) {
+        rateLimited.incrementAndGet();
+        long delayNanos = retryAfterNanos(response, request.attempts);
+        if (request.attempts >= maxRetries || delayNanos > maxDeferralNanos) {
+            return false;
+        }
+        delayNanos += (long) (delayNanos * ThreadLocalRandom.current().nextDouble(MAX_JITTER));
+        request.attempts++;
+        retries.incrementAndGet();
+        System.out.printf("Figma rate limit hit, retrying %s request in %.1f s (attempt %d of %d)%n",
+                request.priority, delayNanos / 1e9, request.attempts, maxRetries);
+        synchronized (this) {
+            long now = System.nanoTime();
+            pausedUntil = Math.max(pausedUntil, now + delayNanos);
+            // Whatever the bucket held was evidently not available on Figma's side
+            tokens = 0;
+            refilledAt = now;
+            queue.add(request);
+        }
+        drain();
+        return true;
+    }
+
+    /**
+     * Retry-After in seconds or as an HTTP date; exponential backoff from one
+     * second when the header is missing or unreadable.
+     */
+    static long retryAfterNanos(HttpResponse<?> response, int attempt) {
+        long fallback = TimeUnit.SECONDS.toNanos(1L << Math.min(attempt, 6));
+        String retryAfter = response.headers().firstValue("Retry-After").orElse(null);
+        if (retryAfter == null) {
+            return fallback;
+        }
+        try {
+            return TimeUnit.SECONDS.toNanos(Math.max(0, Long.parseLong(retryAfter.trim())));
+        } catch (NumberFormatException e) {
+            try {
+                ZonedDateTime at = ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                return Math.max(0, Duration.between(ZonedDateTime.now(at.getZone()), at).toNanos());
+            } catch (DateTimeParseException ignored) {
+                return fallback;
+            }
+        }
+    }
+
+    public synchronized Stats stats() {
+        long now = System.nanoTime();
+        refill(now);
+        Map<Priority, Integer> queued = new EnumMap<>(Priority.class);
+        for (Priority priority : Priority.values()) {
+            queued.put(priority, 0);
+        }
+        for (Request request : queue) {
+            queued.merge(request.priority, 1, Integer::sum);
+        }
+        long count = dispatched.get();
+        double avgWaitMs = count == 0 ? 0 : totalWaitNanos.get() / 1_000_000.0 / count;
+        return new Stats(queue.size(), queued, count, retries.get(), rateLimited.get(), avgWaitMs,
+                maxWaitNanos.get() / 1_000_000.0, tokens, Math.max(0, pausedUntil - now) / 1_000_000);
+    }
+
+    /**
+     * A queued or sent API request.
+     */
+    class Request implements Comparable<Request> {
+        private final Supplier<CompletableFuture<HttpResponse<byte[]>>> send;
+        private final CompletableFuture<HttpResponse<byte[]>> response = new CompletableFuture<>();
+        private final long queuedAt = System.nanoTime();
+        private final long seq = sequence.incrementAndGet();
+        private Priority priority;
+        private int attempts;
+
+        private Request(Priority priority, Supplier<CompletableFuture<HttpResponse<byte[]>>> send) {
+            this.priority = priority;
+            this.send = send;
+        }
+
+        /**
+         * Completes with the final response, which is a 429 only if retrying was
+         * given up.
+         */
+        CompletableFuture<HttpResponse<byte[]>> response() {
+            return response;
+        }
+
+        /**
+         * Moves a still queued request up to the given priority, e.g. when an
+         * interactive caller starts waiting on a prefetch.
+         */
+        void promote(Priority to) {
+            synchronized (FigmaRequestScheduler.this) {
+                if (to.ordinal() >= priority.ordinal()) {
+                    return;
+                }
+                // Re-insert so the queue sees the new ordering
+                boolean queued = queue.remove(this);
+                priority = to;
+                if (queued) {
+                    queue.add(this);
+                }
+            }
+        }
+
+        @Override
+        public int compareTo(Request other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(seq, other.seq);
+        }
+    }
+
+    /**
+     * Point-in-time scheduler metrics.
+     */
+    public static class Stats {
+        private final int queued;
+        private final Map<Priority, Integer> queuedByPriority;
+        private final long dispatched;
+        private final long retries;
+        private final long rateLimited;
+        private final double avgWaitMs;
+        private final double maxWaitMs;
+        private final double tokens;
+        private final long pausedForMs;
+
+        Stats(int queued, Map<Priority, Integer> queuedByPriority, long dispatched, long retries, long rateLimited,
+                double avgWaitMs, double maxWaitMs, double tokens, long pausedForMs) {
+            this.queued = queued;
+            this.queuedByPriority = queuedByPriority;
+            this.dispatched = dispatched;
+            this.retries = retries;
+            this.rateLimited = rateLimited;
+            this.avgWaitMs = avgWaitMs;
+            this.maxWaitMs = maxWaitMs;
+            this.tokens = tokens;
+            this.pausedForMs = pausedForMs;
+        }
+
+        public int getQueued() { return queued; }
+        public Map<Priority, Integer> getQueuedByPriority() { return queuedByPriority; }
+        public long getDispatched() { return dispatched; }
+        public long getRetries() { return retries; }
+        public long getRateLimited() { return rateLimited; }
+        public double getAvgWaitMs() { return avgWaitMs; }
+        public double getMaxWaitMs() { return maxWaitMs; }
+        public double getTokens() { return tokens; }
+        public long getPausedForMs() { return pausedForMs; }
+
+        @Override
+        public String toString() {
+            return String.format("queued=%d %s dispatched=%d retries=%d rateLimited=%d avgWait=%.1fms"
+                    + " maxWait=%.1fms tokens=%.1f pausedFor=%dms", queued, queuedByPriority, dispatched, retries,
+                    rateLimited, avgWaitMs, maxWaitMs, tokens, pausedForMs);
+        }
+    }
+}
@@ -3,9 +3,49 @@ package com.mirror.figma;
 import com.fasterxml.jackson.databind.JsonNode;
 
 import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 public interface FigmaService {
     BufferedImage getFrame(String fileKey, String frameId);
 
     JsonNode getStructure(String fileKey, String frameId);
+
+    /**
+     * Fetches several frames of one file. Implementations batch the ids into as
+     * few API calls as possible; this default fetches them one by one.
+     *
+     * @return images keyed by the requested frame id, in request order
+     */
+    default Map<String, BufferedImage> getFrames(String fileKey, List<String> frameIds) {
+        Map<String, BufferedImage> frames = new LinkedHashMap<>();
+        for (String frameId : frameIds) {
+            frames.put(frameId, getFrame(fileKey, frameId));
+        }
+        return frames;
+    }
+
+    /**
+     * Fetches the node structure of several frames of one file; see
+     * {@link #getFrames(String, List)}.
+     *
+     * @return document nodes keyed by the requested frame id, in request order
+     */
+    default Map<String, JsonNode> getStructures(String fileKey, List<String> frameIds) {
+        Map<String, JsonNode> structures = new LinkedHashMap<>();
+        for (String frameId : frameIds) {
+            structures.put(frameId, getStructure(fileKey, frameId));
+        }
+        return structures;
+    }
+
+    /**
+     * A view of this service whose API calls are scheduled at the given priority,
+     * e.g. {@code PREFETCH} for speculative fetches that should not delay
+     * interactive ones. Services without a request scheduler return themselves.
+     */
+    default FigmaService withPriority(FigmaRequestScheduler.Priority priority) {
+        return this;
+    }
 }
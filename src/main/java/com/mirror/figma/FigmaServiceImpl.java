@@ -2,166 +2,892 @@ package com.mirror.figma;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mirror.figma.FigmaRequestScheduler.Priority;
 
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.*;
-import java.net.HttpURLConnection;
 import java.net.URI;
-import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
 
+/**
+ * Figma REST client with a disk cache under {@code cache/figma}.
+ *
+ * Cache entries are kept per file version ({@code <fileKey>/<version>/}). The
+ * file's current version comes from a {@code depth=1} file request that is
+ * itself reused for {@value #VERSION_TTL_SECONDS} seconds, so an edited design
+ * is picked up within that time. When the version changes, a frame whose node
+ * tree is identical to the previous version reuses that version's PNG instead
+ * of being rendered again; only the newest {@value #KEPT_VERSIONS} versions of
+ * a file are kept on disk. An older version that fetches or carry-overs are
+ * still using is deleted once they have settled.
+ *
+ * All instances share one {@link HttpClient}, so API and image requests reuse
+ * pooled keep-alive connections (HTTP/2 where the server offers it), and one
+ * {@link ObjectMapper}. Responses are requested gzip-compressed and requests
+ * are sent asynchronously; the blocking methods wait for them.
+ *
+ * Frames missing from the cache are requested in batches: one images or nodes
+ * call covers up to {@value #MAX_IDS_PER_REQUEST} ids, and the rendered PNGs
+ * are downloaded in parallel.
+ *
+ * Concurrent requests for the same frame share one fetch: the first caller
+ * registers a pending future per (file, frame, kind) and later callers wait on
+ * it instead of calling the API again.
+ *
+ * API calls (not image downloads, which go to Figma's storage) pass through a
+ * {@link FigmaRequestScheduler} that keeps them within the token's rate limit
+ * and retries rate-limited ones. Calls made through {@link #withPriority}
+ * views queue at that priority; an interactive caller joining a queued
+ * prefetch promotes it.
+ */
 public class FigmaServiceImpl implements FigmaService {
 
     private static final String FIGMA_TOKEN = System.getenv("FIGMA_TOKEN") != null
             ? System.getenv("FIGMA_TOKEN")
             : "YOUR_FIGMA_TOKEN";
 
+    // Figma's per-token limits depend on the plan and endpoint tier
+    private static final double REQUESTS_PER_MINUTE = envNumber("FIGMA_REQUESTS_PER_MINUTE", 60);
+    private static final int REQUEST_BURST = (int) envNumber("FIGMA_REQUEST_BURST", 10);
+    private static final int RATE_LIMIT_RETRIES = 3;
+    // Longer Retry-After periods fail the request rather than stall a comparison
+    private static final Duration MAX_RATE_LIMIT_DEFERRAL = Duration.ofMinutes(2);
+
+    private static final String API_BASE_URL = "https://api.figma.com";
     private static final Path CACHE_DIR = Path.of("cache", "figma");
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(60);
+    // Keeps batched request URLs well below common length limits
+    private static final int MAX_IDS_PER_REQUEST = 50;
+    private static final long VERSION_TTL_SECONDS = 60;
+    // The current version plus older ones that unchanged frames can still be carried over from
+    private static final int KEPT_VERSIONS = 3;
+    // Touched when a version becomes current; writes into the directory would also change its own mtime
+    private static final String USED_MARKER = ".used";
+
+    private static final HttpClient HTTP_CLIENT = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final String baseUrl;
+    private final String token;
+    private final Path cacheDir;
+    private final FigmaRequestScheduler scheduler;
+    private final Priority priority;
+    // Fetches in progress; an entry is removed once its result is in the disk cache
+    private final Map<FlightKey, Flight<?>> inFlight;
+    // Latest version lookup per file key
+    private final Map<String, VersionCheck> versions;
+    // Carry-overs reading a version ("fileKey/version"), which keep it from being deleted
+    private final Map<String, Integer> versionReaders;
+    // File keys with old versions left on disk because they were still in use
+    private final Set<String> uncollected;
+
+    public FigmaServiceImpl() {
+        this(API_BASE_URL, FIGMA_TOKEN, CACHE_DIR);
+    }
+
+    /**
+     * Uses another API host, token and cache directory, e.g. a local stand-in
+     * server for benchmarks.
+     */
+    public FigmaServiceImpl(String baseUrl, String token, Path cacheDir) {
+        this(baseUrl, token, cacheDir, new FigmaRequestScheduler(REQUESTS_PER_MINUTE, REQUEST_BURST,
+                RATE_LIMIT_RETRIES, MAX_RATE_LIMIT_DEFERRAL));
+    }
+
+    public FigmaServiceImpl(String baseUrl, String token, Path cacheDir, FigmaRequestScheduler scheduler) {
+        this(baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl, token, cacheDir,
+                scheduler, Priority.INTERACTIVE, new ConcurrentHashMap<>(), new ConcurrentHashMap<>(),
+                new ConcurrentHashMap<>(), ConcurrentHashMap.newKeySet());
+    }
+
+    private FigmaServiceImpl(String baseUrl, String token, Path cacheDir, FigmaRequestScheduler scheduler,
+            Priority priority, Map<FlightKey, Flight<?>> inFlight, Map<String, VersionCheck> versions,
+            Map<String, Integer> versionReaders, Set<String> uncollected) {
+        this.baseUrl = baseUrl;
+        this.token = token;
+        this.cacheDir = cacheDir;
+        this.scheduler = scheduler;
+        this.priority = priority;
+        this.inFlight = inFlight;
+        this.versions = versions;
+        this.versionReaders = versionReaders;
+        this.uncollected = uncollected;
+    }
+
+    /**
+     * A view of this client whose API calls queue at the given priority. It
+     * shares the scheduler, cache and in-flight fetches with this one.
+     */
+    @Override
+    public FigmaServiceImpl withPriority(Priority priority) {
+        return priority == this.priority ? this
+                : new FigmaServiceImpl(baseUrl, token, cacheDir, scheduler, priority, inFlight, versions,
+                        versionReaders, uncollected);
+    }
+
+    public FigmaRequestScheduler.Stats getSchedulerStats() {
+        return scheduler.stats();
+    }
 
     @Override
     public BufferedImage getFrame(String fileKey, String frameId) {
+        return await(getFrameAsync(fileKey, frameId), "Failed to fetch Figma frame");
+    }
 
-        if ("YOUR_FIGMA_TOKEN".equals(FIGMA_TOKEN)) {
-            throw new RuntimeException("FIGMA_TOKEN not configured");
-        }
+    /**
+     * Renders the frame as PNG through the images endpoint and downloads it,
+     * or reads it from the disk cache.
+     */
+    public CompletableFuture<BufferedImage> getFrameAsync(String fileKey, String frameId) {
+        return getFramesAsync(fileKey, List.of(frameId)).thenApply(frames -> frames.get(frameId));
+    }
 
-        try {
-            // ---------------- CACHE ----------------
-            Path cachedImage = CACHE_DIR
-                    .resolve(fileKey)
-                    .resolve(frameId + ".png");
+    @Override
+    public Map<String, BufferedImage> getFrames(String fileKey, List<String> frameIds) {
+        return await(getFramesAsync(fileKey, frameIds), "Failed to fetch Figma frames");
+    }
+
+    public CompletableFuture<Map<String, BufferedImage>> getFramesAsync(String fileKey, List<String> frameIds) {
+        checkToken();
+        return fileVersionAsync(fileKey).thenCompose(version -> framesAsync(fileKey, version, frameIds));
+    }
+
+    private CompletableFuture<Map<String, BufferedImage>> framesAsync(String fileKey, String version,
+            List<String> frameIds) {
 
+        // ---------------- CACHE ----------------
+        Map<String, CompletableFuture<BufferedImage>> frames = new LinkedHashMap<>();
+        Map<String, Flight<BufferedImage>> missing = new LinkedHashMap<>();
+        for (String frameId : frameIds) {
+            if (frames.containsKey(frameId)) {
+                continue;
+            }
+            Path cachedImage = imagePath(fileKey, version, frameId);
             if (Files.exists(cachedImage)) {
                 System.out.println("Figma cache hit: " + cachedImage);
-                return ImageIO.read(cachedImage.toFile());
+                frames.put(frameId, readCached(() -> ImageIO.read(cachedImage.toFile())));
+                continue;
+            }
+            FlightKey key = new FlightKey(fileKey, version, frameId, Kind.IMAGE);
+            Flight<BufferedImage> claim = new Flight<>(priority);
+            Flight<BufferedImage> pending = joinOrClaim(key, claim);
+            frames.put(frameId, pending != null ? pending.result : claim.result);
+            if (pending != null) {
+                System.out.println("Joining in-flight Figma frame fetch: " + frameId);
+                pending.want(priority);
+            } else if (Files.exists(cachedImage)) {
+                // Cached by a fetch that finished after the first check
+                settle(key, claim, () -> readCached(() -> ImageIO.read(cachedImage.toFile())));
+            } else {
+                missing.put(frameId, claim);
             }
+        }
 
-            Files.createDirectories(cachedImage.getParent());
+        carryOver(fileKey, version, missing).thenAccept(render -> renderFrames(fileKey, version, render));
+        return allOf(frames);
+    }
 
-            // ---------------- API CALL ----------------
-            String apiUrl = "https://api.figma.com/v1/images/" + fileKey +
-                    "?ids=" + frameId + "&format=png";
+    /**
+     * Settles frames whose node tree is unchanged since the previous cached
+     * version with that version's PNG.
+     *
+     * @return the claimed frames that still have to be rendered
+     */
+    private CompletableFuture<Map<String, Flight<BufferedImage>>> carryOver(String fileKey, String version,
+            Map<String, Flight<BufferedImage>> missing) {
+        String previous = previousVersion(fileKey, version);
+        List<String> candidates = new ArrayList<>();
+        if (previous != null) {
+            for (String frameId : missing.keySet()) {
+                if (Files.exists(imagePath(fileKey, previous, frameId))
+                        && Files.exists(structurePath(fileKey, previous, frameId))) {
+                    candidates.add(frameId);
+                }
+            }
+        }
+        if (candidates.isEmpty()) {
+            return CompletableFuture.completedFuture(missing);
+        }
+        String reading = fileKey + "/" + previous;
+        versionReaders.merge(reading, 1, Integer::sum);
+        return send(() -> structuresAsync(fileKey, version, candidates)).handle((current, error) -> {
+            if (error != null) {
+                System.out.println("Warning: could not compare Figma frames with version " + previous + " ("
+                        + error.getMessage() + "), rendering them again");
+                return missing;
+            }
+            Map<String, Flight<BufferedImage>> render = new LinkedHashMap<>();
+            missing.forEach((frameId, claim) -> {
+                if (!candidates.contains(frameId) || !unchanged(fileKey, previous, frameId, current.get(frameId))) {
+                    render.put(frameId, claim);
+                    return;
+                }
+                System.out.println("Figma frame " + frameId + " unchanged since version " + previous
+                        + ", reusing its render");
+                Path previousImage = imagePath(fileKey, previous, frameId);
+                Path cachedImage = imagePath(fileKey, version, frameId);
+                settle(new FlightKey(fileKey, version, frameId, Kind.IMAGE), claim, () -> readCached(() -> {
+                    byte[] png = Files.readAllBytes(previousImage);
+                    writeCache(cachedImage, png);
+                    return ImageIO.read(new ByteArrayInputStream(png));
+                }));
+            });
+            return render;
+        }).whenComplete((render, error) -> {
+            versionReaders.computeIfPresent(reading, (key, count) -> count > 1 ? count - 1 : null);
+            collectIfPending(fileKey);
+        });
+    }
 
-            HttpURLConnection conn = createConnection(apiUrl);
-            JsonNode json = readResponse(conn);
+    private boolean unchanged(String fileKey, String previous, String frameId, JsonNode current) {
+        try {
+            return current != null
+                    && current.equals(OBJECT_MAPPER.readTree(structurePath(fileKey, previous, frameId).toFile()));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void renderFrames(String fileKey, String version, Map<String, Flight<BufferedImage>> claims) {
+        // ---------------- API CALL ----------------
+        for (List<String> batch : batches(new ArrayList<>(claims.keySet()))) {
+            String apiUrl = baseUrl + "/v1/images/" + fileKey +
+                    "?ids=" + String.join(",", batch) + "&format=png";
+            FigmaRequestScheduler.Request call = apiCall(apiUrl);
+            CompletableFuture<JsonNode> rendered = call.response().thenApply(this::readResponse);
+
+            // ---------------- IMAGE DOWNLOADS ----------------
+            for (String frameId : batch) {
+                Flight<BufferedImage> claim = claims.get(frameId);
+                claim.attach(call);
+                settle(new FlightKey(fileKey, version, frameId, Kind.IMAGE), claim, () -> rendered
+                        .thenCompose(json -> downloadAsync(imageUrl(json, frameId)))
+                        .thenApply(png -> storeFrame(imagePath(fileKey, version, frameId), frameId, png)));
+            }
+        }
+    }
 
-            String imageUrl = json.get("images").get(frameId).asText();
+    private static String imageUrl(JsonNode json, String frameId) {
+        JsonNode images = json.path("images");
+        JsonNode imageUrl = images.get(frameId);
+        if (imageUrl == null) {
+            // Figma answers with : separated ids when - was used in the request
+            imageUrl = images.get(frameId.replace("-", ":"));
+        }
+        if (imageUrl == null || imageUrl.isNull()) {
+            throw new RuntimeException("Figma did not render frame '" + frameId + "'. Response: " + json);
+        }
+        return imageUrl.asText();
+    }
 
-            // ---------------- IMAGE DOWNLOAD ----------------
-            BufferedImage image;
-            try (InputStream imgStream = URI.create(imageUrl).toURL().openStream()) {
-                image = ImageIO.read(imgStream);
+    private static BufferedImage storeFrame(Path cachedImage, String frameId, byte[] png) {
+        try {
+            BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+            if (image == null) {
+                throw new IOException("Rendered Figma frame '" + frameId + "' is not a readable image");
             }
 
             // ---------------- SAVE CACHE ----------------
-            ImageIO.write(image, "png", cachedImage.toFile());
+            // The downloaded PNG is stored as is instead of being re-encoded
+            writeCache(cachedImage, png);
             System.out.println("Figma image cached: " + cachedImage);
 
             return image;
-
         } catch (IOException e) {
-            throw new RuntimeException("Failed to fetch Figma frame", e);
+            throw new UncheckedIOException(e);
         }
     }
 
     @Override
     public JsonNode getStructure(String fileKey, String frameId) {
-        if ("YOUR_FIGMA_TOKEN".equals(FIGMA_TOKEN)) {
-            throw new RuntimeException("FIGMA_TOKEN not configured");
-        }
+        return await(getStructureAsync(fileKey, frameId), "Failed to fetch Figma structure");
+    }
 
-        try {
-            // ---------------- CACHE ----------------
-            Path cachedFile = CACHE_DIR
-                    .resolve(fileKey)
-                    .resolve(frameId + ".json");
+    /**
+     * Fetches the frame's document node through the nodes endpoint, or reads it
+     * from the disk cache.
+     */
+    public CompletableFuture<JsonNode> getStructureAsync(String fileKey, String frameId) {
+        return getStructuresAsync(fileKey, List.of(frameId)).thenApply(structures -> structures.get(frameId));
+    }
 
+    @Override
+    public Map<String, JsonNode> getStructures(String fileKey, List<String> frameIds) {
+        return await(getStructuresAsync(fileKey, frameIds), "Failed to fetch Figma structures");
+    }
+
+    public CompletableFuture<Map<String, JsonNode>> getStructuresAsync(String fileKey, List<String> frameIds) {
+        checkToken();
+        return fileVersionAsync(fileKey).thenCompose(version -> structuresAsync(fileKey, version, frameIds));
+    }
+
+    private CompletableFuture<Map<String, JsonNode>> structuresAsync(String fileKey, String version,
+            List<String> frameIds) {
+
+        // ---------------- CACHE ----------------
+        Map<String, CompletableFuture<JsonNode>> structures = new LinkedHashMap<>();
+        Map<String, Flight<JsonNode>> missing = new LinkedHashMap<>();
+        for (String frameId : frameIds) {
+            if (structures.containsKey(frameId)) {
+                continue;
+            }
+            Path cachedFile = structurePath(fileKey, version, frameId);
             if (Files.exists(cachedFile)) {
                 System.out.println("Figma structure cache hit: " + cachedFile);
-                return new ObjectMapper().readTree(cachedFile.toFile());
+                structures.put(frameId, readCached(() -> OBJECT_MAPPER.readTree(cachedFile.toFile())));
+                continue;
+            }
+            FlightKey key = new FlightKey(fileKey, version, frameId, Kind.STRUCTURE);
+            Flight<JsonNode> claim = new Flight<>(priority);
+            Flight<JsonNode> pending = joinOrClaim(key, claim);
+            structures.put(frameId, pending != null ? pending.result : claim.result);
+            if (pending != null) {
+                System.out.println("Joining in-flight Figma structure fetch: " + frameId);
+                pending.want(priority);
+            } else if (Files.exists(cachedFile)) {
+                settle(key, claim, () -> readCached(() -> OBJECT_MAPPER.readTree(cachedFile.toFile())));
+            } else {
+                missing.put(frameId, claim);
             }
+        }
+
+        // ---------------- API CALL ----------------
+        // Fetch node data
+        for (List<String> batch : batches(new ArrayList<>(missing.keySet()))) {
+            String apiUrl = baseUrl + "/v1/files/" + fileKey +
+                    "/nodes?ids=" + String.join(",", batch);
+            FigmaRequestScheduler.Request call = apiCall(apiUrl);
+            CompletableFuture<JsonNode> nodes = call.response().thenApply(this::readResponse);
 
-            Files.createDirectories(cachedFile.getParent());
+            for (String frameId : batch) {
+                Flight<JsonNode> claim = missing.get(frameId);
+                claim.attach(call);
+                settle(new FlightKey(fileKey, version, frameId, Kind.STRUCTURE), claim,
+                        () -> nodes.thenApply(json -> storeStructure(structurePath(fileKey, version, frameId),
+                                extractNode(json, frameId))));
+            }
+        }
+        return allOf(structures);
+    }
 
-            // ---------------- API CALL ----------------
-            // Fetch node data
-            String apiUrl = "https://api.figma.com/v1/files/" + fileKey +
-                    "/nodes?ids=" + frameId;
+    private static JsonNode storeStructure(Path cachedFile, JsonNode nodeData) {
+        // ---------------- SAVE CACHE ----------------
+        try {
+            writeCache(cachedFile, OBJECT_MAPPER.writeValueAsBytes(nodeData));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        System.out.println("Figma structure cached: " + cachedFile);
 
-            HttpURLConnection conn = createConnection(apiUrl);
-            JsonNode json = readResponse(conn);
+        return nodeData;
+    }
 
-            // Response is { nodes: { "ID": { document: ... } } }
-            JsonNode nodes = json.get("nodes");
-            if (nodes == null || nodes.isMissingNode()) {
-                throw new RuntimeException(
-                        "Figma API response is missing the 'nodes' object. Response: " + json.toString());
-            }
+    private static JsonNode extractNode(JsonNode json, String frameId) {
+        // Response is { nodes: { "ID": { document: ... } } }
+        JsonNode nodes = json.get("nodes");
+        if (nodes == null || nodes.isMissingNode()) {
+            throw new RuntimeException(
+                    "Figma API response is missing the 'nodes' object. Response: " + json.toString());
+        }
 
-            // Try to find the node. Users often input 1-4 instead of 1:4.
-            JsonNode nodeResult = nodes.get(frameId);
+        // Try to find the node. Users often input 1-4 instead of 1:4.
+        JsonNode nodeResult = nodes.get(frameId);
+        if (nodeResult == null) {
+            // Try replacing - with : as Figma often uses : internal but - in URLs
+            String altId = frameId.replace("-", ":");
+            nodeResult = nodes.get(altId);
             if (nodeResult == null) {
-                // Try replacing - with : as Figma often uses : internal but - in URLs
-                String altId = frameId.replace("-", ":");
-                nodeResult = nodes.get(altId);
-                if (nodeResult == null) {
-                    // Still not found, list available keys to help user
-                    StringBuilder available = new StringBuilder();
-                    nodes.fieldNames().forEachRemaining(name -> available.append(name).append(", "));
-                    throw new RuntimeException("Node ID '" + frameId + "' (or '" + altId
-                            + "') not found in Figma response. Available nodes in this file: [" + available.toString()
-                            + "]");
+                // Still not found, list available keys to help user
+                StringBuilder available = new StringBuilder();
+                nodes.fieldNames().forEachRemaining(name -> available.append(name).append(", "));
+                throw new RuntimeException("Node ID '" + frameId + "' (or '" + altId
+                        + "') not found in Figma response. Available nodes in this file: [" + available.toString()
+                        + "]");
+            }
+        }
+
+        JsonNode nodeData = nodeResult.get("document");
+        if (nodeData == null || nodeData.isMissingNode()) {
+            throw new RuntimeException("Node '" + frameId + "' found, but it has no 'document' data.");
+        }
+        return nodeData;
+    }
+
+    private Path imagePath(String fileKey, String version, String frameId) {
+        return cacheDir.resolve(fileKey).resolve(version).resolve(frameId + ".png");
+    }
+
+    private Path structurePath(String fileKey, String version, String frameId) {
+        return cacheDir.resolve(fileKey).resolve(version).resolve(frameId + ".json");
+    }
+
+    /**
+     * The file's current version, looked up at most once per TTL. If the lookup
+     * fails, the newest cached version is used so the cache keeps working offline.
+     */
+    private CompletableFuture<String> fileVersionAsync(String fileKey) {
+        VersionCheck check = versions.compute(fileKey, (key, current) ->
+                current != null && !current.isStale() ? current : checkVersion(key));
+        if (check.call != null) {
+            check.call.promote(priority);
+        }
+        return check.version;
+    }
+
+    private VersionCheck checkVersion(String fileKey) {
+        FigmaRequestScheduler.Request call = apiCall(baseUrl + "/v1/files/" + fileKey + "?depth=1");
+        CompletableFuture<String> current = call.response().thenApply(this::readResponse).thenApply(json -> {
+            String id = json.path("version").asText("");
+            if (id.isEmpty()) {
+                id = json.path("lastModified").asText("");
+            }
+            if (id.isEmpty()) {
+                throw new RuntimeException("Figma file '" + fileKey + "' response has no version. Response: " + json);
+            }
+            String version = id.replaceAll("[^A-Za-z0-9._-]", "_");
+            activateVersion(fileKey, version);
+            return version;
+        }).exceptionally(error -> {
+            String cached = previousVersion(fileKey, null);
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error;
+            if (cached == null) {
+                throw cause instanceof RuntimeException ? (RuntimeException) cause : new CompletionException(cause);
+            }
+            System.out.println("Warning: could not check the version of Figma file " + fileKey + " ("
+                    + cause.getMessage() + "), using cached version " + cached);
+            return cached;
+        });
+        return new VersionCheck(current, call);
+    }
+
+    /**
+     * Marks the version as the most recently used and, when the file changed,
+     * deletes all but the {@value #KEPT_VERSIONS} newest versions.
+     */
+    private void activateVersion(String fileKey, String version) {
+        Path fileDir = cacheDir.resolve(fileKey);
+        Path versionDir = fileDir.resolve(version);
+        try {
+            boolean changed = !Files.isDirectory(versionDir);
+            Files.createDirectories(versionDir);
+            Files.write(versionDir.resolve(USED_MARKER), new byte[0]);
+            if (!changed) {
+                return;
+            }
+            System.out.println("Figma file " + fileKey + " is at version " + version);
+            collectVersions(fileKey);
+            // Entries from before the cache was versioned
+            try (DirectoryStream<Path> legacy = Files.newDirectoryStream(fileDir, Files::isRegularFile)) {
+                for (Path file : legacy) {
+                    Files.deleteIfExists(file);
                 }
             }
+        } catch (IOException e) {
+            System.out.println("Warning: could not update Figma cache versions of " + fileKey + " ("
+                    + e.getMessage() + ")");
+        }
+    }
 
-            JsonNode nodeData = nodeResult.get("document");
-            if (nodeData == null || nodeData.isMissingNode()) {
-                throw new RuntimeException("Node '" + frameId + "' found, but it has no 'document' data.");
+    /**
+     * Deletes all but the {@value #KEPT_VERSIONS} most recently used versions,
+     * except versions that in-flight fetches or carry-overs still use; those are
+     * retried when the file's fetches settle.
+     */
+    private void collectVersions(String fileKey) {
+        List<Path> dirs = versionDirs(fileKey);
+        boolean skipped = false;
+        for (Path old : dirs.subList(Math.min(dirs.size(), KEPT_VERSIONS), dirs.size())) {
+            String version = old.getFileName().toString();
+            if (inUse(fileKey, version)) {
+                skipped = true;
+                continue;
+            }
+            try {
+                deleteRecursively(old);
+                System.out.println("Deleted cached Figma version " + fileKey + "/" + version);
+            } catch (IOException e) {
+                System.out.println("Warning: could not delete cached Figma version " + fileKey + "/" + version
+                        + " (" + e.getMessage() + ")");
             }
+        }
+        if (skipped) {
+            uncollected.add(fileKey);
+        } else {
+            uncollected.remove(fileKey);
+        }
+    }
 
-            // ---------------- SAVE CACHE ----------------
-            new ObjectMapper().writeValue(cachedFile.toFile(), nodeData);
-            System.out.println("Figma structure cached: " + cachedFile);
+    private void collectIfPending(String fileKey) {
+        if (uncollected.contains(fileKey)) {
+            collectVersions(fileKey);
+        }
+    }
+
+    private boolean inUse(String fileKey, String version) {
+        if (versionReaders.containsKey(fileKey + "/" + version)) {
+            return true;
+        }
+        for (FlightKey key : inFlight.keySet()) {
+            if (key.fileKey.equals(fileKey) && key.version.equals(version)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The most recently used cached version other than {@code except}, or null.
+     */
+    private String previousVersion(String fileKey, String except) {
+        for (Path dir : versionDirs(fileKey)) {
+            String version = dir.getFileName().toString();
+            if (!version.equals(except)) {
+                return version;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Cached version directories of a file, most recently used first.
+     */
+    private List<Path> versionDirs(String fileKey) {
+        Path fileDir = cacheDir.resolve(fileKey);
+        List<Path> dirs = new ArrayList<>();
+        if (!Files.isDirectory(fileDir)) {
+            return dirs;
+        }
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(fileDir, Files::isDirectory)) {
+            entries.forEach(dirs::add);
+        } catch (IOException e) {
+            System.out.println("Warning: could not list cached Figma versions of " + fileKey);
+        }
+        dirs.sort(Comparator.comparing(FigmaServiceImpl::lastUsed).reversed());
+        return dirs;
+    }
+
+    private static FileTime lastUsed(Path versionDir) {
+        Path marker = versionDir.resolve(USED_MARKER);
+        try {
+            return Files.getLastModifiedTime(Files.exists(marker) ? marker : versionDir);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
 
-            return nodeData;
+    private interface CacheRead<T> {
+        T read() throws IOException;
+    }
 
+    private static <T> CompletableFuture<T> readCached(CacheRead<T> read) {
+        try {
+            return CompletableFuture.completedFuture(read.read());
         } catch (IOException e) {
-            throw new RuntimeException("Failed to fetch Figma structure", e);
+            return CompletableFuture.failedFuture(e);
         }
     }
 
-    private HttpURLConnection createConnection(String urlStr) throws IOException {
-        URL url = URI.create(urlStr).toURL();
-        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-        conn.setRequestMethod("GET");
-        conn.setRequestProperty("X-Figma-Token", FIGMA_TOKEN);
-        conn.setConnectTimeout(10_000);
-        conn.setReadTimeout(10_000);
-        return conn;
+    /**
+     * Returns the pending fetch for the key, or registers {@code claim} as the
+     * key's fetch and returns null, making the caller responsible for settling it.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> Flight<T> joinOrClaim(FlightKey key, Flight<T> claim) {
+        return (Flight<T>) inFlight.putIfAbsent(key, claim);
+    }
+
+    /**
+     * Runs the fetch for a claimed key and passes its outcome to everyone waiting
+     * on the claim.
+     */
+    private <T> void settle(FlightKey key, Flight<T> claim, Supplier<CompletableFuture<T>> fetch) {
+        send(fetch).whenComplete((value, error) -> {
+            // Results are cached by now, so callers arriving after the removal read them from disk
+            inFlight.remove(key, claim);
+            collectIfPending(key.fileKey);
+            if (error != null) {
+                claim.result.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error);
+            } else {
+                claim.result.complete(value);
+            }
+        });
+    }
+
+    /**
+     * Starts a request, turning a failure to even build it into a failed future
+     * so that claimed keys are always settled.
+     */
+    private static <T> CompletableFuture<T> send(Supplier<CompletableFuture<T>> request) {
+        try {
+            return request.get();
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static List<List<String>> batches(List<String> ids) {
+        List<List<String>> batches = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += MAX_IDS_PER_REQUEST) {
+            batches.add(ids.subList(i, Math.min(ids.size(), i + MAX_IDS_PER_REQUEST)));
+        }
+        return batches;
+    }
+
+    /**
+     * Completes with every value once all futures are done, keeping the map's order.
+     */
+    private static <T> CompletableFuture<Map<String, T>> allOf(Map<String, CompletableFuture<T>> futures) {
+        return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+            Map<String, T> values = new LinkedHashMap<>();
+            futures.forEach((id, future) -> values.put(id, future.join()));
+            return values;
+        });
+    }
+
+    private void checkToken() {
+        if (token == null || "YOUR_FIGMA_TOKEN".equals(token)) {
+            throw new RuntimeException("FIGMA_TOKEN not configured");
+        }
+    }
+
+    /**
+     * Queues an API GET with the scheduler at this view's priority.
+     */
+    private FigmaRequestScheduler.Request apiCall(String url) {
+        return scheduler.submit(priority, () -> {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                    .header("X-Figma-Token", token)
+                    .header("Accept-Encoding", "gzip")
+                    .timeout(REQUEST_TIMEOUT)
+                    .GET()
+                    .build();
+            return HTTP_CLIENT.sendAsync(request, gzipAwareBody());
+        });
+    }
+
+    /**
+     * Downloads a rendered image from Figma's storage (no API token needed).
+     */
+    private CompletableFuture<byte[]> downloadAsync(String url) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .header("Accept-Encoding", "gzip")
+                .timeout(REQUEST_TIMEOUT)
+                .GET()
+                .build();
+        return HTTP_CLIENT.sendAsync(request, gzipAwareBody()).thenApply(response -> {
+            if (response.statusCode() != 200) {
+                throw new RuntimeException("Figma image download failed: HTTP " + response.statusCode()
+                        + " for URL: " + response.uri());
+            }
+            return response.body();
+        });
+    }
+
+    /**
+     * Reads the body as bytes, inflating it when the server gzip-encoded it
+     * (HttpClient does not decompress on its own).
+     */
+    private static HttpResponse.BodyHandler<byte[]> gzipAwareBody() {
+        return info -> {
+            boolean gzip = info.headers().firstValue("Content-Encoding")
+                    .map(encoding -> encoding.equalsIgnoreCase("gzip"))
+                    .orElse(false);
+            HttpResponse.BodySubscriber<byte[]> bytes = HttpResponse.BodySubscribers.ofByteArray();
+            return gzip ? HttpResponse.BodySubscribers.mapping(bytes, FigmaServiceImpl::gunzip) : bytes;
+        };
+    }
+
+    private static byte[] gunzip(byte[] body) {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to decompress Figma response", e);
+        }
     }
 
-    private JsonNode readResponse(HttpURLConnection conn) throws IOException {
-        int status = conn.getResponseCode();
+    private JsonNode readResponse(HttpResponse<byte[]> response) {
+        int status = response.statusCode();
         if (status == 429) {
-            String retryAfter = conn.getHeaderField("Retry-After");
-            int waitSeconds = retryAfter != null ? Integer.parseInt(retryAfter) : 60;
+            // Reached only once the scheduler has given up retrying
+            long waitSeconds = TimeUnit.NANOSECONDS.toSeconds(FigmaRequestScheduler.retryAfterNanos(response, 0));
             throw new RuntimeException("Figma rate limit hit. Retry after " + waitSeconds + " seconds.");
         }
         if (status == 403) {
             throw new RuntimeException(
                     "Figma API 403 Forbidden: Access denied. Please check your FIGMA_TOKEN permissions or if the File ID '"
-                            + conn.getURL().toString() + "' is correct and accessible.");
+                            + response.uri() + "' is correct and accessible.");
         }
         if (status == 401) {
             throw new RuntimeException(
                     "Figma API 401 Unauthorized: Invalid FIGMA_TOKEN. Current token (first 5 chars): "
-                            + (FIGMA_TOKEN != null && FIGMA_TOKEN.length() > 5 ? FIGMA_TOKEN.substring(0, 5) : "None"));
+                            + (token != null && token.length() > 5 ? token.substring(0, 5) : "None"));
         }
         if (status != 200) {
-            throw new RuntimeException("Figma API failed: HTTP " + status + " for URL: " + conn.getURL());
+            throw new RuntimeException("Figma API failed: HTTP " + status + " for URL: " + response.uri());
+        }
+        try {
+            return OBJECT_MAPPER.readTree(response.body());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Invalid JSON from Figma API: " + response.uri(), e);
+        }
+    }
+
+    /**
+     * Writes through a temporary file so concurrent readers never see a partial entry.
+     */
+    private static void writeCache(Path target, byte[] content) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path temp = target.resolveSibling(target.getFileName() + "." + System.nanoTime() + ".tmp");
+        Files.write(temp, content);
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Waits for a request, rethrowing runtime failures as they are and wrapping
+     * I/O failures like the blocking client did.
+     */
+    private static <T> T await(CompletableFuture<T> future, String message) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof UncheckedIOException) {
+                throw new RuntimeException(message, cause.getCause());
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RuntimeException(message, cause);
+        }
+    }
+
+    private static double envNumber(String name, double defaultValue) {
+        String value = System.getenv(name);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            System.out.println("Warning: ignoring invalid " + name + "=" + value);
+            return defaultValue;
+        }
+    }
+
+    private enum Kind { IMAGE, STRUCTURE }
+
+    private static final class VersionCheck {
+        final CompletableFuture<String> version;
+        // The metadata call while it may still be queued, so that waiting callers can promote it
+        final FigmaRequestScheduler.Request call;
+        final long checkedAt = System.nanoTime();
+
+        VersionCheck(CompletableFuture<String> version, FigmaRequestScheduler.Request call) {
+            this.version = version;
+            this.call = call;
+        }
+
+        boolean isStale() {
+            return version.isCompletedExceptionally()
+                    || System.nanoTime() - checkedAt > TimeUnit.SECONDS.toNanos(VERSION_TTL_SECONDS);
+        }
+    }
+
+    /**
+     * A claimed fetch: its result, and the API call it waits on so that joining
+     * callers can raise that call's priority.
+     */
+    private static final class Flight<T> {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        private Priority wanted;
+        private FigmaRequestScheduler.Request call;
+
+        Flight(Priority priority) {
+            this.wanted = priority;
+        }
+
+        synchronized void attach(FigmaRequestScheduler.Request call) {
+            this.call = call;
+            // A caller may have joined at a higher priority before the call was queued
+            call.promote(wanted);
+        }
+
+        synchronized void want(Priority priority) {
+            if (priority.compareTo(wanted) < 0) {
+                wanted = priority;
+                if (call != null) {
+                    call.promote(priority);
+                }
+            }
+        }
+    }
+
+    private static final class FlightKey {
+        private final String fileKey;
+        private final String version;
+        private final String frameId;
+        private final Kind kind;
+
+        FlightKey(String fileKey, String version, String frameId, Kind kind) {
+            this.fileKey = fileKey;
+            this.version = version;
+            this.frameId = frameId;
+            this.kind = kind;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof FlightKey)) {
+                return false;
+            }
+            FlightKey other = (FlightKey) o;
+            return fileKey.equals(other.fileKey) && version.equals(other.version) && frameId.equals(other.frameId)
+                    && kind == other.kind;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(fileKey, version, frameId, kind);
         }
-        return new ObjectMapper().readTree(conn.getInputStream());
     }
 }
@@ -117,10 +117,17 @@ public class OpenCvDiffEngine implements VisualDiffEngine {
         return result;
     }
 
+    @Override
+    public TiledDiffSession startTiled(BufferedImage figma) {
+        System.out.println("=== OPENCV TILED COMPARISON ===");
+        System.out.println("  Figma: " + figma.getWidth() + " x " + figma.getHeight());
+        return new TiledDiffSession(figma, PIXEL_DIFF_THRESHOLD);
+    }
+
     /**
      * Creates a highlighted diff image with red overlay on mismatched pixels
      */
-    private BufferedImage createHighlightedDiffImage(BufferedImage baseImage, Mat diffMask) {
+    static BufferedImage createHighlightedDiffImage(BufferedImage baseImage, Mat diffMask) {
         BufferedImage highlighted = new BufferedImage(
                 baseImage.getWidth(),
                 baseImage.getHeight(),
@@ -153,7 +160,7 @@ public class OpenCvDiffEngine implements VisualDiffEngine {
     /**
      * Generates human-readable observations from diff regions
      */
-    private void generateObservations(DiffResult result, List<DiffRegion> regions) {
+    static void generateObservations(DiffResult result, List<DiffRegion> regions) {
         // Add spacing observations
         List<String> spacingIssues = VisualDiffClassifier.analyzeSpacingIssues(
                 result.getFigmaImage(),
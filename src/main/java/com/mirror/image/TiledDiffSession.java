@@ -0,0 +1,177 @@
+package com.mirror.image;
+
+import com.mirror.model.DiffRegion;
+import com.mirror.model.DiffResult;
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfPoint;
+import org.opencv.core.Rect;
+import org.opencv.imgproc.Imgproc;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Incremental pixel comparison of a tiled live capture against a Figma frame.
+ *
+ * Every live tile is diffed against the Figma band at the same offset
+ * ({@code getSubimage}, no copy), then dropped, so memory is bounded by the tile
+ * size rather than the page height. Mismatch counts and regions are accumulated
+ * in page coordinates; a region crossing a tile boundary is reported once per
+ * tile. The figma, live and diff images in the result are downscaled previews
+ * for the report, and there is no full-page diff mask.
+ */
+public class TiledDiffSession {
+
+    // Upper bound on the pixels of each preview image in the result
+    private static final double PREVIEW_MAX_PIXELS = 4_000_000;
+
+    private final BufferedImage figma;
+    private final int threshold;
+
+    private final List<DiffRegion> regions = new ArrayList<>();
+    private long mismatchPixels;
+    private long totalPixels;
+    private int comparedHeight;
+    private int width;
+    private int tileHeight;
+
+    private double previewScale;
+    private BufferedImage figmaPreview;
+    private BufferedImage livePreview;
+    private BufferedImage diffPreview;
+
+    TiledDiffSession(BufferedImage figma, int threshold) {
+        this.figma = figma;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Diffs one live tile. Tiles must arrive top to bottom without gaps.
+     *
+     * @param tile live screenshot band
+     * @param y    offset of the tile's top edge within the page
+     * @param pageWidth  full live page width
+     * @param pageHeight full live page height
+     */
+    public void addTile(BufferedImage tile, int y, int pageWidth, int pageHeight) {
+        if (figmaPreview == null) {
+            tileHeight = tile.getHeight();
+            startPreviews(Math.max(pageWidth, tile.getWidth()), pageHeight);
+        }
+        compareBand(tile, y, tile.getHeight());
+    }
+
+    private void startPreviews(int liveWidth, int liveHeight) {
+        width = Math.max(figma.getWidth(), liveWidth);
+        int height = Math.max(figma.getHeight(), liveHeight);
+        previewScale = Math.min(1.0, Math.sqrt(PREVIEW_MAX_PIXELS / ((double) width * height)));
+        int previewWidth = Math.max(1, (int) Math.round(width * previewScale));
+        int previewHeight = Math.max(1, (int) Math.round(height * previewScale));
+        figmaPreview = whiteImage(previewWidth, previewHeight);
+        livePreview = whiteImage(previewWidth, previewHeight);
+        diffPreview = whiteImage(previewWidth, previewHeight);
+    }
+
+    private void compareBand(BufferedImage liveTile, int y, int height) {
+        // Same alignment as ImageAligner: top-left anchored on a white canvas
+        BufferedImage figmaBand = whiteImage(width, height);
+        if (y < figma.getHeight()) {
+            int bandHeight = Math.min(height, figma.getHeight() - y);
+            drawOnto(figmaBand, figma.getSubimage(0, y, figma.getWidth(), bandHeight));
+        }
+        BufferedImage liveBand = whiteImage(width, height);
+        if (liveTile != null) {
+            drawOnto(liveBand, liveTile);
+        }
+
+        Mat img1 = ImageUtil.toMat(figmaBand);
+        Mat img2 = ImageUtil.toMat(liveBand);
+        Mat diff = new Mat();
+        Mat gray = new Mat();
+        Mat thresh = new Mat();
+        try {
+            Core.absdiff(img1, img2, diff);
+            Imgproc.cvtColor(diff, gray, Imgproc.COLOR_BGR2GRAY);
+            Imgproc.threshold(gray, thresh, threshold, 255, Imgproc.THRESH_BINARY);
+
+            List<MatOfPoint> contours = new ArrayList<>();
+            Imgproc.findContours(thresh, contours, new Mat(), Imgproc.RETR_EXTERNAL, Imgproc.CHAIN_APPROX_SIMPLE);
+            for (MatOfPoint cnt : contours) {
+                Rect r = Imgproc.boundingRect(cnt);
+                // Impact is relative to the page-wide mismatch, filled in by finish()
+                regions.add(new DiffRegion(r.x, y + r.y, r.width, r.height, Imgproc.contourArea(cnt), 0));
+            }
+            mismatchPixels += Core.countNonZero(thresh);
+            totalPixels += (long) thresh.rows() * thresh.cols();
+            comparedHeight = y + height;
+
+            drawPreview(figmaPreview, figmaBand, y);
+            drawPreview(livePreview, liveBand, y);
+            drawPreview(diffPreview, OpenCvDiffEngine.createHighlightedDiffImage(liveBand, thresh), y);
+        } finally {
+            img1.release();
+            img2.release();
+            diff.release();
+            gray.release();
+            thresh.release();
+        }
+    }
+
+    /**
+     * Compares any part of the Figma frame below the end of the live page against
+     * white, then assembles the result.
+     */
+    public DiffResult finish() {
+        if (figmaPreview == null) {
+            throw new IllegalStateException("No tiles were captured");
+        }
+        while (comparedHeight < figma.getHeight()) {
+            compareBand(null, comparedHeight, Math.min(tileHeight, figma.getHeight() - comparedHeight));
+        }
+
+        double mismatchPercent = totalPixels == 0 ? 0 : (mismatchPixels * 100.0) / totalPixels;
+        List<DiffRegion> result = new ArrayList<>(regions.size());
+        for (DiffRegion r : regions) {
+            double impact = mismatchPixels > 0 ? (r.getArea() / mismatchPixels) * 100.0 : 0;
+            result.add(new DiffRegion(r.getX(), r.getY(), r.getWidth(), r.getHeight(), r.getArea(), impact));
+        }
+
+        System.out.println("Tiled comparison results:");
+        System.out.println("  Compared: " + width + " x " + comparedHeight);
+        System.out.println("  Diff regions found: " + result.size());
+        System.out.println("  Mismatch percentage: " + String.format("%.2f%%", mismatchPercent));
+
+        DiffResult diffResult = new DiffResult(figmaPreview, livePreview, null, mismatchPercent, result);
+        VisualDiffClassifier.classifyRegions(result, figmaPreview, livePreview);
+        diffResult.setDiffImage(diffPreview);
+        OpenCvDiffEngine.generateObservations(diffResult, result);
+        return diffResult;
+    }
+
+    private void drawPreview(BufferedImage preview, BufferedImage band, int y) {
+        Graphics2D g2d = preview.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        int top = (int) Math.round(y * previewScale);
+        int bottom = (int) Math.round((y + band.getHeight()) * previewScale);
+        g2d.drawImage(band, 0, top, preview.getWidth(), Math.max(1, bottom - top), null);
+        g2d.dispose();
+    }
+
+    private static void drawOnto(BufferedImage canvas, BufferedImage image) {
+        Graphics2D g2d = canvas.createGraphics();
+        g2d.drawImage(image, 0, 0, null);
+        g2d.dispose();
+    }
+
+    private static BufferedImage whiteImage(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = image.createGraphics();
+        g2d.setColor(Color.WHITE);
+        g2d.fillRect(0, 0, width, height);
+        g2d.dispose();
+        return image;
+    }
+}
@@ -6,4 +6,10 @@ import java.awt.image.BufferedImage;
 
 public interface VisualDiffEngine {
     DiffResult compare(BufferedImage figma, BufferedImage live);
+
+    /**
+     * Starts a tile-by-tile comparison against the Figma frame, for live pages
+     * captured in bands rather than as one image.
+     */
+    TiledDiffSession startTiled(BufferedImage figma);
 }
@@ -0,0 +1,75 @@
+package com.mirror.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * Pixel comparison of one page section (header, hero, ...) against the
+ * matching crop of the Figma frame. Region coordinates are relative to the
+ * section, not the page.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SectionDiffResult {
+
+    public enum Status {
+        COMPARED,
+        // Present in the Figma frame but not found on the live page
+        MISSING_LIVE,
+        // Found on the live page but there is no matching Figma layer
+        MISSING_FIGMA
+    }
+
+    @JsonProperty("section")
+    private final String section;
+
+    @JsonProperty("status")
+    private final Status status;
+
+    @JsonProperty("mismatch_percent")
+    private final Double mismatchPercent;
+
+    @JsonProperty("severity")
+    private final IssueSeverity severity;
+
+    @JsonProperty("regions")
+    private final List<DiffRegion> regions;
+
+    @JsonProperty("observations")
+    private final List<String> observations;
+
+    private final DiffResult diff;
+
+    private SectionDiffResult(String section, Status status, DiffResult diff) {
+        this.section = section;
+        this.status = status;
+        this.diff = diff;
+        this.mismatchPercent = diff != null ? diff.getMismatchPercent() : null;
+        this.severity = diff != null ? diff.getSeverity() : null;
+        this.regions = diff != null ? diff.getRegions() : null;
+        this.observations = diff != null ? diff.getObservations() : null;
+    }
+
+    public static SectionDiffResult compared(String section, DiffResult diff) {
+        return new SectionDiffResult(section, Status.COMPARED, diff);
+    }
+
+    public static SectionDiffResult missing(String section, Status status) {
+        return new SectionDiffResult(section, status, null);
+    }
+
+    public String getSection() { return section; }
+    public Status getStatus() { return status; }
+    public Double getMismatchPercent() { return mismatchPercent; }
+    public IssueSeverity getSeverity() { return severity; }
+    public List<DiffRegion> getRegions() { return regions; }
+    public List<String> getObservations() { return observations; }
+
+    /**
+     * Full pixel result including images, for reports; not serialized.
+     */
+    @JsonIgnore
+    public DiffResult getDiff() { return diff; }
+}
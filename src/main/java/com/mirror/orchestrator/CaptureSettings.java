@@ -0,0 +1,43 @@
+package com.mirror.orchestrator;
+
+import com.mirror.capture.CaptureConfig;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Builds the server's {@link CaptureConfig} from {@code mirror.capture.*}
+ * properties, e.g. {@code mirror.capture.tiled-capture=true} in
+ * application.properties, {@code --mirror.capture.captureWorkers=2} on the
+ * command line or {@code MIRROR_CAPTURE_PERSISTENTPROFILES=true} in the
+ * environment. Unset settings keep their defaults.
+ */
+@Configuration
+public class CaptureSettings {
+
+    static final String PREFIX = "mirror.capture.";
+
+    @Bean
+    public CaptureConfig captureConfig(Environment environment) {
+        Map<String, String> settings = new LinkedHashMap<>();
+        for (String name : CaptureConfig.settingNames()) {
+            String value = environment.getProperty(PREFIX + kebabCase(name));
+            if (value != null) {
+                settings.put(name, value);
+            }
+        }
+        if (!settings.isEmpty()) {
+            System.out.println("Capture settings: " + settings);
+        }
+        return CaptureConfig.fromSettings(settings);
+    }
+
+    // The canonical property form, which Spring's relaxed binding matches against camelCase and env names too
+    static String kebabCase(String name) {
+        return name.replaceAll("([A-Z])", "-$1").toLowerCase(Locale.ROOT);
+    }
+}
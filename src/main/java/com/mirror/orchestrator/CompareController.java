@@ -1,12 +1,29 @@
 package com.mirror.orchestrator;
 
+import com.mirror.capture.BrowserPool;
+import com.mirror.capture.BrowserProfileStore;
+import com.mirror.capture.CaptureCache;
+import com.mirror.capture.CaptureConfig;
+import com.mirror.capture.CaptureMetrics;
+import com.mirror.capture.CaptureScheduler;
+import com.mirror.capture.CaptureWorkerPool;
+import com.mirror.capture.PageSection;
+import com.mirror.capture.SnapshotEngine;
+import com.mirror.figma.FigmaRequestScheduler;
+import com.mirror.model.SectionDiffResult;
 import com.mirror.model.SemanticComparisonResult;
 import com.mirror.model.Viewport;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
  * REST Controller for visual comparison API
  */
@@ -14,17 +31,123 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping("/api")
 public class CompareController {
 
-    private final ComparisonOrchestrator orchestrator = new ComparisonOrchestrator();
+    private final ComparisonOrchestrator orchestrator;
+
+    public CompareController(CaptureConfig captureConfig) {
+        this.orchestrator = new ComparisonOrchestrator(captureConfig);
+    }
 
     @PostMapping("/compare")
     public SemanticComparisonResult compare(@RequestParam String url,
             @RequestParam String figmaFile,
             @RequestParam String figmaFrame,
             @RequestParam(required = false, defaultValue = "DESKTOP") String viewport,
-            @RequestParam(required = false, defaultValue = "false") boolean semanticOnly) {
+            @RequestParam(required = false, defaultValue = "false") boolean semanticOnly,
+            @RequestParam(required = false, defaultValue = "SCRIPT") String engine) {
 
         Viewport viewportEnum = Viewport.valueOf(viewport.toUpperCase());
+        SnapshotEngine engineEnum = SnapshotEngine.valueOf(engine.toUpperCase());
         // If semanticOnly is true, includePixelComparison should be false
-        return orchestrator.compareSemantic(url, figmaFile, figmaFrame, viewportEnum, !semanticOnly);
+        return orchestrator.compareSemantic(url, figmaFile, figmaFrame, viewportEnum, !semanticOnly, engineEnum);
+    }
+
+    /**
+     * Compares several viewports from one page load. Pass the Figma frame for
+     * each viewport to audit; omitted viewports are skipped.
+     */
+    @PostMapping("/compare/viewports")
+    public Map<Viewport, SemanticComparisonResult> compareViewports(@RequestParam String url,
+            @RequestParam String figmaFile,
+            @RequestParam(required = false) String desktopFrame,
+            @RequestParam(required = false) String tabletFrame,
+            @RequestParam(required = false) String mobileFrame,
+            @RequestParam(required = false, defaultValue = "false") boolean semanticOnly,
+            @RequestParam(required = false, defaultValue = "SCRIPT") String engine) {
+
+        Map<Viewport, String> figmaFrames = new LinkedHashMap<>();
+        if (desktopFrame != null) {
+            figmaFrames.put(Viewport.DESKTOP, desktopFrame);
+        }
+        if (tabletFrame != null) {
+            figmaFrames.put(Viewport.TABLET, tabletFrame);
+        }
+        if (mobileFrame != null) {
+            figmaFrames.put(Viewport.MOBILE, mobileFrame);
+        }
+        if (figmaFrames.isEmpty()) {
+            throw new IllegalArgumentException("At least one of desktopFrame, tabletFrame or mobileFrame is required");
+        }
+        return orchestrator.compareViewports(url, figmaFile, figmaFrames, !semanticOnly,
+                SnapshotEngine.valueOf(engine.toUpperCase()));
+    }
+
+    /**
+     * Pixel-compares only the page sections (header, hero, features, CTA,
+     * footer), each against its own crop of the Figma frame.
+     */
+    @PostMapping("/compare/sections")
+    public Map<PageSection, SectionDiffResult> compareSections(@RequestParam String url,
+            @RequestParam String figmaFile,
+            @RequestParam String figmaFrame,
+            @RequestParam(required = false, defaultValue = "DESKTOP") String viewport) {
+
+        return orchestrator.compareSections(url, figmaFile, figmaFrame, Viewport.valueOf(viewport.toUpperCase()));
+    }
+
+    /**
+     * Compares several pages concurrently. The body maps each page URL to its
+     * Figma frame.
+     */
+    @PostMapping("/compare/batch")
+    public Map<String, SemanticComparisonResult> compareBatch(@RequestBody Map<String, String> pages,
+            @RequestParam String figmaFile,
+            @RequestParam(required = false, defaultValue = "DESKTOP") String viewport,
+            @RequestParam(required = false, defaultValue = "false") boolean semanticOnly,
+            @RequestParam(required = false, defaultValue = "SCRIPT") String engine) {
+
+        return orchestrator.compareSemanticBatch(pages, figmaFile, Viewport.valueOf(viewport.toUpperCase()),
+                !semanticOnly, SnapshotEngine.valueOf(engine.toUpperCase()));
+    }
+
+    @GetMapping("/capture/pool")
+    public BrowserPool.Stats capturePool() {
+        return orchestrator.getBrowserPoolStats();
+    }
+
+    @GetMapping("/capture/cache")
+    public CaptureCache.Stats captureCache() {
+        return orchestrator.getCaptureCacheStats();
+    }
+
+    @GetMapping("/capture/scheduler")
+    public CaptureScheduler.Stats captureScheduler() {
+        return orchestrator.getSchedulerStats();
+    }
+
+    @GetMapping("/capture/workers")
+    public CaptureWorkerPool.Stats captureWorkers() {
+        return orchestrator.getCaptureWorkerStats();
+    }
+
+    @GetMapping("/capture/profiles")
+    public BrowserProfileStore.Stats captureProfiles() {
+        return orchestrator.getBrowserProfileStats();
+    }
+
+    @DeleteMapping("/capture/profiles")
+    public Map<String, Integer> invalidateCaptureProfiles(@RequestParam(required = false) String origin) {
+        Map<String, Integer> response = new LinkedHashMap<>();
+        response.put("invalidated", orchestrator.invalidateBrowserProfiles(origin));
+        return response;
+    }
+
+    @GetMapping("/figma/scheduler")
+    public FigmaRequestScheduler.Stats figmaScheduler() {
+        return orchestrator.getFigmaSchedulerStats();
+    }
+
+    @GetMapping("/capture/metrics")
+    public CaptureMetrics.Snapshot captureMetrics() {
+        return orchestrator.getCaptureMetrics();
     }
 }
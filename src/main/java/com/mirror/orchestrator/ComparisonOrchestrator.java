@@ -1,13 +1,30 @@
 package com.mirror.orchestrator;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.mirror.capture.BrowserPool;
+import com.mirror.capture.BrowserProfileStore;
+import com.mirror.capture.CachingCaptureService;
+import com.mirror.capture.CaptureCache;
+import com.mirror.capture.CaptureConfig;
+import com.mirror.capture.CaptureMetrics;
+import com.mirror.capture.CaptureResult;
+import com.mirror.capture.CaptureScheduler;
+import com.mirror.capture.CaptureWorkerPool;
+import com.mirror.capture.CdpSnapshotCaptureService;
+import com.mirror.capture.PageSection;
 import com.mirror.capture.PlaywrightCaptureService;
+import com.mirror.capture.RemoteCaptureService;
+import com.mirror.capture.SnapshotEngine;
 import com.mirror.capture.WebCaptureService;
+import com.mirror.figma.FigmaRequestScheduler;
 import com.mirror.figma.FigmaService;
 import com.mirror.figma.FigmaServiceImpl;
 import com.mirror.image.ImageAligner;
 import com.mirror.image.OpenCvDiffEngine;
+import com.mirror.image.TiledDiffSession;
 import com.mirror.image.VisualDiffEngine;
 import com.mirror.model.DiffResult;
+import com.mirror.model.SectionDiffResult;
 import com.mirror.model.SemanticComparisonResult;
 import com.mirror.model.Viewport;
 import com.mirror.report.HtmlReportService;
@@ -18,14 +35,36 @@ import com.mirror.semantic.FigmaSemanticSnapshot;
 import com.mirror.semantic.HtmlSemanticSnapshot;
 import com.mirror.semantic.SemanticAnalyzer;
 
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Orchestrates the entire visual comparison workflow
  */
 public class ComparisonOrchestrator {
 
-    private final WebCaptureService webCapture = new PlaywrightCaptureService();
+    // Figma frames decoded at once while prefetching a batch
+    private static final int FIGMA_PREFETCH_CHUNK = 8;
+
+    private final CaptureConfig captureConfig;
+    // Long-lived so the browser pool is shared across comparisons and snapshot engines
+    private final BrowserPool browserPool;
+    private final CaptureCache captureCache;
+    // Bounds parallel comparisons and the heap their full-page images may take
+    private final CaptureScheduler scheduler;
+    // Per-phase capture histograms shared by both snapshot engines
+    private final CaptureMetrics captureMetrics = new CaptureMetrics();
+    // Browsers run in separate worker processes when captureWorkers > 0
+    private final CaptureWorkerPool captureWorkers;
+    private final WebCaptureService webCapture;
+    private final WebCaptureService cdpCapture;
     private final FigmaService figmaService = new FigmaServiceImpl(); // CHANGED: Using real API to support dynamic file
                                                                       // IDs
     private final VisualDiffEngine diffEngine = new OpenCvDiffEngine();
@@ -34,6 +73,35 @@ public class ComparisonOrchestrator {
     private final FigmaSemanticExtractor figmaSemanticExtractor = new FigmaSemanticExtractor();
     private final SemanticAnalyzer semanticAnalyzer = new SemanticAnalyzer();
 
+    public ComparisonOrchestrator() {
+        this(new CaptureConfig());
+    }
+
+    public ComparisonOrchestrator(CaptureConfig captureConfig) {
+        this.captureConfig = captureConfig;
+        this.browserPool = new BrowserPool(captureConfig);
+        this.captureCache = new CaptureCache(captureConfig);
+        this.scheduler = new CaptureScheduler(captureConfig);
+        this.captureWorkers = captureConfig.captureWorkers > 0 ? new CaptureWorkerPool(captureConfig) : null;
+        this.webCapture = cached(captureService(SnapshotEngine.SCRIPT), SnapshotEngine.SCRIPT);
+        this.cdpCapture = cached(captureService(SnapshotEngine.CDP), SnapshotEngine.CDP);
+    }
+
+    private WebCaptureService captureService(SnapshotEngine engine) {
+        if (captureWorkers != null) {
+            return new RemoteCaptureService(captureWorkers, engine);
+        }
+        return engine == SnapshotEngine.CDP
+                ? new CdpSnapshotCaptureService(captureConfig, browserPool, captureMetrics)
+                : new PlaywrightCaptureService(captureConfig, browserPool, captureMetrics);
+    }
+
+    private WebCaptureService cached(WebCaptureService capture, SnapshotEngine engine) {
+        return captureConfig.captureCacheEnabled
+                ? new CachingCaptureService(capture, captureCache, engine)
+                : capture;
+    }
+
     /**
      * Compares Figma design with live HTML page
      * 
@@ -56,21 +124,76 @@ public class ComparisonOrchestrator {
      * @return DiffResult with comparison results
      */
     public DiffResult compare(String url, String figmaFile, String figmaFrame, Viewport viewport) {
+        return scheduler.run(scheduler.estimateBytes(viewport),
+                () -> runCompare(url, figmaFile, figmaFrame, viewport));
+    }
+
+    private DiffResult runCompare(String url, String figmaFile, String figmaFrame, Viewport viewport) {
 
+        logComparisonStart(url, figmaFile, figmaFrame, viewport);
+        String reportName = reportName(url, figmaFrame, viewport);
+
+        if (captureConfig.tiledCapture) {
+            TiledDiffSession session = startTiledComparison(figmaFile, figmaFrame);
+            System.out.println("Capturing live website in tiles...");
+            webCapture.captureTiles(url, viewport, tile -> session.addTile(tile.getImage(), tile.getY(),
+                    tile.getPageWidth(), tile.getPageHeight()));
+            return publishPixelResult(session.finish(), reportName);
+        }
+
+        // 1. Capture live website with specified viewport, fetching the Figma frame while the page loads
+        System.out.println("Capturing live website...");
+        CompletableFuture<BufferedImage> liveCapture = webCapture.captureAsync(url, viewport, null);
+        BufferedImage figma = fetchFigmaFrame(figmaFile, figmaFrame, liveCapture);
+
+        return comparePixels(WebCaptureService.await(liveCapture), figma, reportName);
+    }
+
+    /**
+     * Fetches the Figma frame while a capture is running, cancelling the capture
+     * if the fetch fails.
+     */
+    private BufferedImage fetchFigmaFrame(String figmaFile, String figmaFrame, CompletableFuture<?> capture) {
+        System.out.println("Fetching Figma design...");
+        try {
+            return figmaService.getFrame(figmaFile, figmaFrame);
+        } catch (RuntimeException e) {
+            capture.cancel(true);
+            throw e;
+        }
+    }
+
+    /**
+     * Name that keeps a comparison's report files apart from those of other
+     * comparisons finishing in the same second.
+     */
+    private static String reportName(String url, String figmaFrame, Viewport viewport) {
+        return url + "_" + figmaFrame + "_" + viewport.getName();
+    }
+
+    private void logComparisonStart(String url, String figmaFile, String figmaFrame, Viewport viewport) {
         System.out.println("Starting visual comparison...");
         System.out.println("  Web URL: " + url);
         System.out.println("  Figma File: " + figmaFile);
         System.out.println("  Figma Frame: " + figmaFrame);
         System.out.println("  Viewport: " + viewport.getName() + " (" + viewport.getDimensionString() + ")");
+    }
 
-        // 1. Capture live website with specified viewport
-        System.out.println("Capturing live website...");
-        BufferedImage live = webCapture.capture(url, viewport);
+    /**
+     * Runs the pixel comparison of an already captured live screenshot against
+     * the Figma frame.
+     */
+    private DiffResult comparePixels(BufferedImage live, String figmaFile, String figmaFrame, String reportName) {
 
         // 2. Fetch Figma frame
         System.out.println("Fetching Figma design...");
         BufferedImage figma = figmaService.getFrame(figmaFile, figmaFrame);
 
+        return comparePixels(live, figma, reportName);
+    }
+
+    private DiffResult comparePixels(BufferedImage live, BufferedImage figma, String reportName) {
+
         // 3. Align sizes
         System.out.println("Aligning image sizes...");
         BufferedImage aligned = ImageAligner.align(figma, live);
@@ -79,10 +202,24 @@ public class ComparisonOrchestrator {
         System.out.println("Comparing images pixel-to-pixel...");
         DiffResult result = diffEngine.compare(figma, aligned);
 
+        return publishPixelResult(result, reportName);
+    }
+
+    /**
+     * Fetches the Figma frame first so that live tiles can be diffed as soon as
+     * they are captured.
+     */
+    private TiledDiffSession startTiledComparison(String figmaFile, String figmaFrame) {
+        System.out.println("Fetching Figma design...");
+        BufferedImage figma = figmaService.getFrame(figmaFile, figmaFrame);
+        return diffEngine.startTiled(figma);
+    }
+
+    private DiffResult publishPixelResult(DiffResult result, String reportName) {
         // 5. Generate reports
         System.out.println("Generating reports...");
-        htmlReport.generate(result);
-        jsonReport.generate(result);
+        htmlReport.generate(result, reportName);
+        jsonReport.generate(result, reportName);
 
         // Print summary
         System.out.println("\n=== Comparison Complete ===");
@@ -94,6 +231,114 @@ public class ComparisonOrchestrator {
         return result;
     }
 
+    /**
+     * Pixel-compares only the page sections (header, hero, features, CTA, footer):
+     * each section element is screenshotted on its own and diffed against the
+     * matching Figma layer cropped out of the frame. Pixels outside the sections
+     * are skipped, and a section that moved vertically still lines up.
+     *
+     * @return one result per section found on the page or in the Figma frame
+     */
+    public Map<PageSection, SectionDiffResult> compareSections(String url, String figmaFile, String figmaFrame,
+            Viewport viewport) {
+        return scheduler.run(scheduler.estimateBytes(viewport),
+                () -> runCompareSections(url, figmaFile, figmaFrame, viewport));
+    }
+
+    private Map<PageSection, SectionDiffResult> runCompareSections(String url, String figmaFile,
+            String figmaFrame, Viewport viewport) {
+        logComparisonStart(url, figmaFile, figmaFrame, viewport);
+
+        System.out.println("Capturing live website sections...");
+        Map<PageSection, BufferedImage> live = webCapture.captureSections(url, viewport);
+
+        System.out.println("Fetching Figma design...");
+        BufferedImage figma = figmaService.getFrame(figmaFile, figmaFrame);
+        FigmaSemanticSnapshot figmaSnapshot = figmaSemanticExtractor.extract(
+                figmaService.getStructure(figmaFile, figmaFrame));
+
+        Map<PageSection, SectionDiffResult> results = new LinkedHashMap<>();
+        for (PageSection section : PageSection.values()) {
+            BufferedImage figmaSection = cropFigmaSection(figma, figmaSnapshot, section);
+            BufferedImage liveSection = live.get(section);
+            if (figmaSection == null && liveSection == null) {
+                continue;
+            }
+            if (figmaSection == null) {
+                results.put(section, SectionDiffResult.missing(section.getKey(),
+                        SectionDiffResult.Status.MISSING_FIGMA));
+            } else if (liveSection == null) {
+                results.put(section, SectionDiffResult.missing(section.getKey(),
+                        SectionDiffResult.Status.MISSING_LIVE));
+            } else {
+                System.out.println("Comparing section " + section.getKey() + "...");
+                results.put(section, SectionDiffResult.compared(section.getKey(),
+                        diffEngine.compare(figmaSection, liveSection)));
+            }
+        }
+
+        System.out.println("\n=== Section Comparison Complete ===");
+        results.values().forEach(r -> System.out.println("  " + r.getSection() + ": " + (r.getDiff() != null
+                ? String.format("%.2f%% (%s)", r.getMismatchPercent(), r.getSeverity().getLabel())
+                : r.getStatus())));
+        return results;
+    }
+
+    /**
+     * Cuts the Figma layer matching the section out of the rendered frame. Layer
+     * rects are absolute canvas coordinates, so they are offset by the frame
+     * origin; if Figma rendered at another scale the crop is resized back to
+     * design units, which match the live page's CSS pixels.
+     */
+    private static BufferedImage cropFigmaSection(BufferedImage figma, FigmaSemanticSnapshot snapshot,
+            PageSection section) {
+        FigmaSemanticSnapshot.Rect rect = figmaSectionRect(snapshot.getSections(), section);
+        if (rect == null || snapshot.getFrameWidth() <= 0) {
+            return null;
+        }
+        double scale = (double) figma.getWidth() / snapshot.getFrameWidth();
+        int x = (int) Math.round((rect.getX() - snapshot.getFrameX()) * scale);
+        int y = (int) Math.round((rect.getY() - snapshot.getFrameY()) * scale);
+        int right = Math.min(figma.getWidth(), (int) Math.round(x + rect.getWidth() * scale));
+        int bottom = Math.min(figma.getHeight(), (int) Math.round(y + rect.getHeight() * scale));
+        x = Math.max(0, x);
+        y = Math.max(0, y);
+        if (right <= x || bottom <= y) {
+            return null;
+        }
+
+        BufferedImage crop = figma.getSubimage(x, y, right - x, bottom - y);
+        if (Math.abs(scale - 1.0) < 0.01) {
+            return crop;
+        }
+        int width = Math.max(1, (int) Math.round(crop.getWidth() / scale));
+        int height = Math.max(1, (int) Math.round(crop.getHeight() / scale));
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = scaled.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g2d.drawImage(crop, 0, 0, width, height, null);
+        g2d.dispose();
+        return scaled;
+    }
+
+    private static FigmaSemanticSnapshot.Rect figmaSectionRect(FigmaSemanticSnapshot.Sections sections,
+            PageSection section) {
+        switch (section) {
+            case HEADER:
+                return sections.getHeader();
+            case HERO:
+                return sections.getHero();
+            case FEATURES:
+                return sections.getFeatures();
+            case CTAS:
+                return sections.getCtas();
+            case FOOTER:
+                return sections.getFooter();
+            default:
+                return null;
+        }
+    }
+
     /**
      * Performs semantic (non pixel-based) comparison and returns a JSON-ready
      * semantic result.
@@ -102,22 +347,188 @@ public class ComparisonOrchestrator {
      */
     public SemanticComparisonResult compareSemantic(String url, String figmaFile, String figmaFrame,
             Viewport viewport, boolean includePixelComparison) {
+        return compareSemantic(url, figmaFile, figmaFrame, viewport, includePixelComparison, SnapshotEngine.SCRIPT);
+    }
 
+    /**
+     * Semantic comparison with an explicit snapshot extraction engine, so the
+     * in-page script and the CDP DOMSnapshot engine can be compared run by run.
+     */
+    public SemanticComparisonResult compareSemantic(String url, String figmaFile, String figmaFrame,
+            Viewport viewport, boolean includePixelComparison, SnapshotEngine engine) {
+        return scheduler.run(estimateBytes(viewport, includePixelComparison),
+                () -> runCompareSemantic(url, figmaFile, figmaFrame, viewport, includePixelComparison, engine));
+    }
+
+    /**
+     * Compares several pages concurrently, as many at a time as the capture
+     * scheduler admits. Pages that fail are logged and left out of the result.
+     *
+     * @param figmaFrames Figma Node ID per page URL
+     * @return semantic results keyed by page URL
+     */
+    public Map<String, SemanticComparisonResult> compareSemanticBatch(Map<String, String> figmaFrames,
+            String figmaFile, Viewport viewport, boolean includePixelComparison, SnapshotEngine engine) {
+
+        prefetchFigma(figmaFile, new ArrayList<>(figmaFrames.values()), includePixelComparison);
+
+        long estimate = estimateBytes(viewport, includePixelComparison);
+        Map<String, CompletableFuture<SemanticComparisonResult>> futures = new LinkedHashMap<>();
+        // submit() blocks while the heap budget is exhausted, so this loop is throttled too
+        figmaFrames.forEach((url, figmaFrame) -> futures.put(url, scheduler.submit(estimate,
+                () -> runCompareSemantic(url, figmaFile, figmaFrame, viewport, includePixelComparison, engine))));
+
+        Map<String, SemanticComparisonResult> results = new LinkedHashMap<>();
+        futures.forEach((url, future) -> {
+            try {
+                results.put(url, future.join());
+            } catch (RuntimeException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                System.err.println("Comparison failed for " + url + ": " + cause.getMessage());
+            }
+        });
+        System.out.println("Batch complete: " + results.size() + "/" + figmaFrames.size() + " pages compared ("
+                + scheduler.stats() + ")");
+        return results;
+    }
+
+    /**
+     * Fills the Figma cache for all frames of a batch up front, with batched API
+     * calls instead of one or two calls per page. Frames are fetched a few at a
+     * time since every decoded image is held until its chunk completes. The API
+     * calls queue behind interactive ones; a page that needs a frame still being
+     * prefetched promotes its call. Failures only log: each page then fetches
+     * its own frame as usual.
+     */
+    private void prefetchFigma(String figmaFile, List<String> figmaFrames, boolean includeImages) {
+        List<String> frames = new ArrayList<>(new LinkedHashSet<>(figmaFrames));
+        if (frames.size() < 2) {
+            return;
+        }
+        FigmaService prefetch = figmaService.withPriority(FigmaRequestScheduler.Priority.PREFETCH);
+        try {
+            prefetch.getStructures(figmaFile, frames);
+            if (includeImages) {
+                for (int i = 0; i < frames.size(); i += FIGMA_PREFETCH_CHUNK) {
+                    int end = Math.min(frames.size(), i + FIGMA_PREFETCH_CHUNK);
+                    prefetch.getFrames(figmaFile, frames.subList(i, end));
+                }
+            }
+            System.out.println("Prefetched " + frames.size() + " Figma frames");
+        } catch (RuntimeException e) {
+            System.out.println("Warning: Figma prefetch failed (" + e.getMessage() + "), fetching per page");
+        }
+    }
+
+    private long estimateBytes(Viewport viewport, boolean includePixelComparison) {
+        // Semantic-only runs never hold page images
+        return includePixelComparison ? scheduler.estimateBytes(viewport) : 0;
+    }
+
+    private SemanticComparisonResult runCompareSemantic(String url, String figmaFile, String figmaFrame,
+            Viewport viewport, boolean includePixelComparison, SnapshotEngine engine) {
+
+        WebCaptureService webCapture = engine == SnapshotEngine.CDP ? cdpCapture : this.webCapture;
+        System.out.println("Semantic snapshot engine: " + engine);
+        // Batch pages run concurrently, so every page needs report files of its own
+        String reportName = reportName(url, figmaFrame, viewport);
+
+        HtmlSemanticSnapshot htmlSnapshot;
         if (includePixelComparison) {
-            // Preserve existing behaviour: still run pixel comparison and HTML report
-            compare(url, figmaFile, figmaFrame, viewport);
+            // Preserve existing behaviour: still run pixel comparison and HTML report,
+            // but load the page only once for both the screenshot and the snapshot
+            logComparisonStart(url, figmaFile, figmaFrame, viewport);
+            if (captureConfig.tiledCapture) {
+                TiledDiffSession session = startTiledComparison(figmaFile, figmaFrame);
+                System.out.println("Capturing live website (tiles + semantic snapshot)...");
+                htmlSnapshot = webCapture.captureTilesWithSnapshot(url, viewport, tile -> session.addTile(
+                        tile.getImage(), tile.getY(), tile.getPageWidth(), tile.getPageHeight()));
+                publishPixelResult(session.finish(), reportName);
+            } else {
+                System.out.println("Capturing live website (screenshot + semantic snapshot)...");
+                CaptureResult capture = webCapture.captureWithSnapshot(url, viewport);
+                comparePixels(capture.getScreenshot(), figmaFile, figmaFrame, reportName);
+                htmlSnapshot = capture.getSnapshot();
+            }
         } else {
             System.out.println("Skipping pixel-to-pixel comparison (Semantic Mode only).");
+            htmlSnapshot = null;
         }
 
         System.out.println("\nStarting semantic comparison (layout, typography, spacing)...");
 
-        // 1. Capture semantic HTML snapshot
-        HtmlSemanticSnapshot htmlSnapshot = webCapture.captureSemantic(url, viewport);
+        // 1. Capture semantic HTML snapshot (unless already taken with the screenshot),
+        // fetching the Figma structure while the page loads
+        if (htmlSnapshot == null) {
+            CompletableFuture<HtmlSemanticSnapshot> snapshotCapture =
+                    webCapture.captureSemanticAsync(url, viewport, null);
+            JsonNode figmaJson;
+            try {
+                figmaJson = figmaService.getStructure(figmaFile, figmaFrame);
+            } catch (RuntimeException e) {
+                snapshotCapture.cancel(true);
+                throw e;
+            }
+            return analyzeSemantic(WebCaptureService.await(snapshotCapture), figmaJson, reportName);
+        }
+
+        return analyzeSemantic(htmlSnapshot, figmaFile, figmaFrame, reportName);
+    }
+
+    /**
+     * Audits several viewports from a single page load: the page is captured once
+     * and resized for each viewport, then every capture is compared against its
+     * own Figma frame.
+     *
+     * @param figmaFrames Figma Node ID per viewport, in the order to capture
+     * @return semantic results keyed by viewport
+     */
+    public Map<Viewport, SemanticComparisonResult> compareViewports(String url, String figmaFile,
+            Map<Viewport, String> figmaFrames, boolean includePixelComparison, SnapshotEngine engine) {
+        long estimate = 0;
+        for (Viewport viewport : figmaFrames.keySet()) {
+            estimate += estimateBytes(viewport, includePixelComparison);
+        }
+        return scheduler.run(estimate,
+                () -> runCompareViewports(url, figmaFile, figmaFrames, includePixelComparison, engine));
+    }
+
+    private Map<Viewport, SemanticComparisonResult> runCompareViewports(String url, String figmaFile,
+            Map<Viewport, String> figmaFrames, boolean includePixelComparison, SnapshotEngine engine) {
+
+        WebCaptureService webCapture = engine == SnapshotEngine.CDP ? cdpCapture : this.webCapture;
+        List<Viewport> viewports = new ArrayList<>(figmaFrames.keySet());
+        prefetchFigma(figmaFile, new ArrayList<>(figmaFrames.values()), includePixelComparison);
+        System.out.println("Capturing live website once for viewports " + viewports + " (engine: " + engine + ")...");
+        Map<Viewport, CaptureResult> captures = webCapture.captureViewports(url, viewports);
+
+        Map<Viewport, SemanticComparisonResult> results = new LinkedHashMap<>();
+        for (Viewport viewport : viewports) {
+            String figmaFrame = figmaFrames.get(viewport);
+            CaptureResult capture = captures.get(viewport);
+            // All viewports finish within moments of each other, so their reports are told apart by name
+            String reportName = reportName(url, figmaFrame, viewport);
+            if (includePixelComparison) {
+                logComparisonStart(url, figmaFile, figmaFrame, viewport);
+                comparePixels(capture.getScreenshot(), figmaFile, figmaFrame, reportName);
+            }
+            System.out.println("\nStarting semantic comparison for " + viewport.getName() + "...");
+            results.put(viewport, analyzeSemantic(capture.getSnapshot(), figmaFile, figmaFrame, reportName));
+        }
+        return results;
+    }
+
+    private SemanticComparisonResult analyzeSemantic(HtmlSemanticSnapshot htmlSnapshot, String figmaFile,
+            String figmaFrame, String reportName) {
 
         // 2. Fetch semantic structure from Figma API
         // File figmaStructure = new File("figma_structure.json"); // REMOVED
-        com.fasterxml.jackson.databind.JsonNode figmaJson = figmaService.getStructure(figmaFile, figmaFrame);
+        JsonNode figmaJson = figmaService.getStructure(figmaFile, figmaFrame);
+        return analyzeSemantic(htmlSnapshot, figmaJson, reportName);
+    }
+
+    private SemanticComparisonResult analyzeSemantic(HtmlSemanticSnapshot htmlSnapshot, JsonNode figmaJson,
+            String reportName) {
         FigmaSemanticSnapshot figmaSnapshot = figmaSemanticExtractor.extract(figmaJson);
 
         // 3. Analyze semantically
@@ -128,8 +539,8 @@ public class ComparisonOrchestrator {
         System.out.println("Semantic severity: " + semanticResult.getSummary().getSeverity());
 
         // Generate reports
-        htmlReport.generate(semanticResult);
-        jsonReport.generate(semanticResult);
+        htmlReport.generate(semanticResult, reportName);
+        jsonReport.generate(semanticResult, reportName);
 
         return semanticResult;
     }
@@ -142,4 +553,65 @@ public class ComparisonOrchestrator {
             Viewport viewport) {
         return compareSemantic(url, figmaFile, figmaFrame, viewport, true);
     }
-}
\ No newline at end of file
+
+    /**
+     * Current browser pool metrics (size, idle, in-use and queued captures).
+     */
+    public BrowserPool.Stats getBrowserPoolStats() {
+        return browserPool.stats();
+    }
+
+    /**
+     * Capture cache metrics (entries, bytes, hits, misses, evictions).
+     */
+    public CaptureCache.Stats getCaptureCacheStats() {
+        return captureCache.stats();
+    }
+
+    /**
+     * Capture scheduler metrics (parallelism, running, waiting, admitted heap).
+     */
+    public CaptureScheduler.Stats getSchedulerStats() {
+        return scheduler.stats();
+    }
+
+    /**
+     * Capture worker process metrics, or null when capturing in-process.
+     */
+    public CaptureWorkerPool.Stats getCaptureWorkerStats() {
+        return captureWorkers != null ? captureWorkers.stats() : null;
+    }
+
+    /**
+     * Figma API request scheduler metrics, or null for a client without one.
+     */
+    public FigmaRequestScheduler.Stats getFigmaSchedulerStats() {
+        return figmaService instanceof FigmaServiceImpl
+                ? ((FigmaServiceImpl) figmaService).getSchedulerStats()
+                : null;
+    }
+
+    /**
+     * Persistent browser profile metrics, or null when profiles are disabled.
+     */
+    public BrowserProfileStore.Stats getBrowserProfileStats() {
+        return browserPool.profiles() != null ? browserPool.profiles().stats() : null;
+    }
+
+    /**
+     * Deletes the persistent browser profile of one origin, or all profiles when
+     * no origin is given, so the next capture starts cold and logged out.
+     *
+     * @return number of profiles deleted or marked for wiping
+     */
+    public int invalidateBrowserProfiles(String origin) {
+        return browserPool.invalidateProfiles(origin == null || origin.isBlank() ? null : origin);
+    }
+
+    /**
+     * Histograms of capture phase durations and payload sizes.
+     */
+    public CaptureMetrics.Snapshot getCaptureMetrics() {
+        return captureMetrics.snapshot();
+    }
+}
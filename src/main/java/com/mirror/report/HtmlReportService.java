@@ -10,7 +10,6 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
@@ -25,10 +24,15 @@ public class HtmlReportService implements ReportService {
 
     @Override
     public void generate(com.mirror.model.SemanticComparisonResult result) {
+        generate(result, null);
+    }
+
+    @Override
+    public void generate(com.mirror.model.SemanticComparisonResult result, String reportName) {
         try {
             Files.createDirectories(Paths.get(OUTPUT_DIR));
-            String timestamp = new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
-            String htmlPath = OUTPUT_DIR + "report_" + timestamp + ".html";
+            // Own prefix, so it does not collide with the pixel report of the same comparison
+            String htmlPath = OUTPUT_DIR + ReportNames.baseName("semantic_report", reportName) + ".html";
 
             FileWriter writer = new FileWriter(htmlPath);
             writer.write(generateSemanticHtmlContent(result));
@@ -324,12 +328,17 @@ public class HtmlReportService implements ReportService {
 
     @Override
     public void generate(DiffResult result) {
+        generate(result, null);
+    }
+
+    @Override
+    public void generate(DiffResult result, String reportName) {
         try {
             // Create directories
             Files.createDirectories(Paths.get(IMAGES_DIR));
 
             // Save images
-            String timestamp = new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
+            String timestamp = ReportNames.stamp(reportName);
             String figmaPath = IMAGES_DIR + "figma_" + timestamp + ".png";
             String livePath = IMAGES_DIR + "live_" + timestamp + ".png";
             String diffPath = IMAGES_DIR + "diff_" + timestamp + ".png";
@@ -7,8 +7,6 @@ import com.mirror.model.SemanticComparisonResult;
 
 import java.io.File;
 import java.io.IOException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 
@@ -28,21 +26,30 @@ public class JsonReportService implements ReportService {
 
     @Override
     public void generate(SemanticComparisonResult result) {
-        saveJson(result, "semantic_report");
+        generate(result, null);
+    }
+
+    @Override
+    public void generate(SemanticComparisonResult result, String reportName) {
+        saveJson(result, "semantic_report", reportName);
     }
 
     @Override
     public void generate(DiffResult result) {
+        generate(result, null);
+    }
+
+    @Override
+    public void generate(DiffResult result, String reportName) {
         // Visual diff results are usually heavy due to images,
         // we summary the metadata for JSON.
-        saveJson(result, "visual_report");
+        saveJson(result, "visual_report", reportName);
     }
 
-    private void saveJson(Object data, String prefix) {
+    private void saveJson(Object data, String prefix, String reportName) {
         try {
             Files.createDirectories(Paths.get(OUTPUT_DIR));
-            String timestamp = new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
-            String path = OUTPUT_DIR + prefix + "_" + timestamp + ".json";
+            String path = OUTPUT_DIR + ReportNames.baseName(prefix, reportName) + ".json";
 
             mapper.writeValue(new File(path), data);
             System.out.println("JSON Report generated: " + path);
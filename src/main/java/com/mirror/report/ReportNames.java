@@ -0,0 +1,67 @@
+package com.mirror.report;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.Locale;
+
+/**
+ * Report file names: a prefix, the generation time and an optional report name
+ * (e.g. page URL, frame and viewport) that keeps reports of comparisons
+ * finishing in the same second apart. The name appears as a readable, possibly
+ * truncated slug followed by a short hash of the whole name, so names that only
+ * differ beyond the cut (such as the viewport after a long URL) stay distinct.
+ */
+final class ReportNames {
+
+    private static final int MAX_SLUG_LENGTH = 80;
+    // Hex characters of the SHA-256 of the full report name
+    private static final int HASH_LENGTH = 8;
+
+    private ReportNames() {
+    }
+
+    static String baseName(String prefix, String reportName) {
+        return prefix + "_" + stamp(reportName);
+    }
+
+    /**
+     * Generation time plus the report name, shared by all files of one report.
+     */
+    static String stamp(String reportName) {
+        String timestamp = new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
+        String name = name(reportName);
+        return name.isEmpty() ? timestamp : timestamp + "_" + name;
+    }
+
+    /**
+     * The file name part for a report name: slug plus hash, or empty without one.
+     */
+    static String name(String reportName) {
+        if (reportName == null || reportName.isEmpty()) {
+            return "";
+        }
+        String slug = reportName.toLowerCase(Locale.ROOT)
+                .replaceFirst("^[a-z]+://", "")
+                .replaceAll("[^a-z0-9]+", "_")
+                .replaceAll("^_+|_+$", "");
+        if (slug.length() > MAX_SLUG_LENGTH) {
+            slug = slug.substring(0, MAX_SLUG_LENGTH).replaceAll("_+$", "");
+        }
+        String hash = hash(reportName);
+        return slug.isEmpty() ? hash : slug + "_" + hash;
+    }
+
+    private static String hash(String reportName) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(reportName.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest).substring(0, HASH_LENGTH);
+        } catch (NoSuchAlgorithmException e) {
+            // Every JRE is required to provide SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -6,4 +6,17 @@ public interface ReportService {
     void generate(DiffResult result);
 
     void generate(com.mirror.model.SemanticComparisonResult result);
+
+    /**
+     * Like {@link #generate(DiffResult)}, with the report name (e.g. page URL,
+     * frame and viewport) in the file names so that concurrent comparisons do not
+     * overwrite each other's reports.
+     */
+    default void generate(DiffResult result, String reportName) {
+        generate(result);
+    }
+
+    default void generate(com.mirror.model.SemanticComparisonResult result, String reportName) {
+        generate(result);
+    }
 }
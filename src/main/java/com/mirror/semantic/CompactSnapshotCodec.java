@@ -0,0 +1,445 @@
+package com.mirror.semantic;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Compact, columnar text encoding of {@link HtmlSemanticSnapshot}.
+ *
+ * Instead of one JSON object per node, nodes are written as blocks of parallel
+ * columns: numeric columns for geometry and typography and index columns into a
+ * shared string table for text, tags, font families, weights, colors and parent
+ * ids. Repeated values are therefore sent once and decode to the same String
+ * instance. Decoding is a hand-written line scanner with no Jackson involvement.
+ *
+ * Format (one record per line, fields separated by a tab):
+ * <pre>
+ * MSNAP1                          magic, full documents only
+ * M  vw,vh,dw,dh                  viewport and document size
+ * R  name  x,y,w,h                one section rect (header, hero, features, ctas, footer)
+ * S  value                        appends one entry to the string table
+ * T  count                        text node block, followed by its columns in TEXT_COLUMNS order
+ * I  count                        interactive block, followed by its columns in INTERACTIVE_COLUMNS order
+ * </pre>
+ * String columns hold table indices (-1 for null). Newlines and backslashes in
+ * strings are escaped. The string table is cumulative, so a snapshot can be
+ * streamed as several chunks through one {@link Decoder}.
+ */
+public class CompactSnapshotCodec {
+
+    public static final String MAGIC = "MSNAP1";
+
+    static final String[] TEXT_COLUMNS = {
+            "x", "y", "font_size", "line_height", "letter_spacing",
+            "id", "tag", "text", "font_family", "font_weight", "color", "parent_id"
+    };
+
+    static final String[] INTERACTIVE_COLUMNS = {
+            "x", "y", "width", "height",
+            "text", "tag", "background_color", "border_radius", "padding", "color", "parent_id"
+    };
+
+    public String encode(HtmlSemanticSnapshot snapshot) {
+        Encoder encoder = new Encoder();
+        StringBuilder out = new StringBuilder(64 + snapshot.getTextNodes().size() * 48);
+        out.append(MAGIC).append('\n');
+        out.append("M\t").append(snapshot.getViewportWidth()).append(',').append(snapshot.getViewportHeight())
+                .append(',').append(snapshot.getDocumentWidth()).append(',').append(snapshot.getDocumentHeight())
+                .append('\n');
+
+        HtmlSemanticSnapshot.Sections sections = snapshot.getSections();
+        if (sections != null) {
+            appendSection(out, "header", sections.getHeader());
+            appendSection(out, "hero", sections.getHero());
+            appendSection(out, "features", sections.getFeatures());
+            appendSection(out, "ctas", sections.getCtas());
+            appendSection(out, "footer", sections.getFooter());
+        }
+
+        encoder.appendTextNodes(out, snapshot.getTextNodes());
+        encoder.appendInteractiveElements(out, snapshot.getInteractiveElements());
+        return out.toString();
+    }
+
+    public HtmlSemanticSnapshot decode(String data) {
+        if (!data.startsWith(MAGIC)) {
+            throw new IllegalArgumentException("Not a compact snapshot (missing " + MAGIC + " header)");
+        }
+        HtmlSemanticSnapshot snapshot = new HtmlSemanticSnapshot();
+        Decoder decoder = new Decoder(snapshot);
+        decoder.decode(data.substring(data.indexOf('\n') + 1));
+        return snapshot;
+    }
+
+    /**
+     * Creates a decoder that appends chunks to the given snapshot, sharing one
+     * string table across all chunks.
+     */
+    public Decoder newDecoder(HtmlSemanticSnapshot target) {
+        return new Decoder(target);
+    }
+
+    private static void appendSection(StringBuilder out, String name, HtmlSemanticSnapshot.Rect rect) {
+        if (rect == null) {
+            return;
+        }
+        out.append("R\t").append(name).append('\t')
+                .append(num(rect.getX())).append(',').append(num(rect.getY())).append(',')
+                .append(num(rect.getWidth())).append(',').append(num(rect.getHeight())).append('\n');
+    }
+
+    private static String num(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        }
+        double rounded = Math.round(value * 100.0) / 100.0;
+        long whole = (long) rounded;
+        return whole == rounded ? Long.toString(whole) : Double.toString(rounded);
+    }
+
+    private static String escape(String value) {
+        if (value.indexOf('\\') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return value.replace("\\", "\\\\").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    private static String unescape(String value) {
+        if (value.indexOf('\\') < 0) {
+            return value;
+        }
+        StringBuilder sb = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                sb.append(next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static class Encoder {
+        private final Map<String, Integer> table = new HashMap<>();
+
+        private int index(String value, StringBuilder out) {
+            if (value == null) {
+                return -1;
+            }
+            Integer idx = table.get(value);
+            if (idx == null) {
+                idx = table.size();
+                table.put(value, idx);
+                out.append("S\t").append(escape(value)).append('\n');
+            }
+            return idx;
+        }
+
+        void appendTextNodes(StringBuilder out, List<HtmlSemanticSnapshot.TextNode> nodes) {
+            int n = nodes.size();
+            int[][] strings = new int[7][n];
+            for (int i = 0; i < n; i++) {
+                HtmlSemanticSnapshot.TextNode node = nodes.get(i);
+                strings[0][i] = index(node.getId(), out);
+                strings[1][i] = index(node.getTag(), out);
+                strings[2][i] = index(node.getText(), out);
+                strings[3][i] = index(node.getFontFamily(), out);
+                strings[4][i] = index(node.getFontWeight(), out);
+                strings[5][i] = index(node.getColor(), out);
+                strings[6][i] = index(node.getParentId(), out);
+            }
+            out.append("T\t").append(n).append('\n');
+            appendNumbers(out, "x", nodes, HtmlSemanticSnapshot.TextNode::getX);
+            appendNumbers(out, "y", nodes, HtmlSemanticSnapshot.TextNode::getY);
+            appendNumbers(out, "font_size", nodes, HtmlSemanticSnapshot.TextNode::getFontSize);
+            appendNumbers(out, "line_height", nodes, HtmlSemanticSnapshot.TextNode::getLineHeight);
+            appendNumbers(out, "letter_spacing", nodes, HtmlSemanticSnapshot.TextNode::getLetterSpacing);
+            for (int c = 0; c < strings.length; c++) {
+                appendIndices(out, TEXT_COLUMNS[5 + c], strings[c]);
+            }
+        }
+
+        void appendInteractiveElements(StringBuilder out, List<HtmlSemanticSnapshot.InteractiveElement> elements) {
+            int n = elements.size();
+            int[][] strings = new int[7][n];
+            for (int i = 0; i < n; i++) {
+                HtmlSemanticSnapshot.InteractiveElement el = elements.get(i);
+                strings[0][i] = index(el.getText(), out);
+                strings[1][i] = index(el.getTag(), out);
+                strings[2][i] = index(el.getBackgroundColor(), out);
+                strings[3][i] = index(el.getBorderRadius(), out);
+                strings[4][i] = index(el.getPadding(), out);
+                strings[5][i] = index(el.getColor(), out);
+                strings[6][i] = index(el.getParentId(), out);
+            }
+            out.append("I\t").append(n).append('\n');
+            appendNumbers(out, "x", elements, e -> e.getRect() != null ? e.getRect().getX() : Double.NaN);
+            appendNumbers(out, "y", elements, e -> e.getRect() != null ? e.getRect().getY() : Double.NaN);
+            appendNumbers(out, "width", elements, e -> e.getRect() != null ? e.getRect().getWidth() : Double.NaN);
+            appendNumbers(out, "height", elements, e -> e.getRect() != null ? e.getRect().getHeight() : Double.NaN);
+            for (int c = 0; c < strings.length; c++) {
+                appendIndices(out, INTERACTIVE_COLUMNS[4 + c], strings[c]);
+            }
+        }
+
+        private static <T> void appendNumbers(StringBuilder out, String name, List<T> items,
+                ToDoubleFunction<T> getter) {
+            out.append(name).append('\t');
+            for (int i = 0; i < items.size(); i++) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                out.append(num(getter.applyAsDouble(items.get(i))));
+            }
+            out.append('\n');
+        }
+
+        private static void appendIndices(StringBuilder out, String name, int[] indices) {
+            out.append(name).append('\t');
+            for (int i = 0; i < indices.length; i++) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                out.append(indices[i]);
+            }
+            out.append('\n');
+        }
+    }
+
+    /**
+     * Stateful decoder; the string table persists across {@link #decode} calls.
+     */
+    public static class Decoder {
+        private final HtmlSemanticSnapshot target;
+        private final List<String> table = new ArrayList<>();
+
+        private String data;
+        private int pos;
+
+        Decoder(HtmlSemanticSnapshot target) {
+            this.target = target;
+        }
+
+        public void decode(String chunk) {
+            this.data = chunk;
+            this.pos = 0;
+            while (pos < data.length()) {
+                int tab = data.indexOf('\t', pos);
+                int eol = lineEnd();
+                if (tab < 0 || tab > eol) {
+                    pos = eol + 1; // blank or unknown line
+                    continue;
+                }
+                String tag = data.substring(pos, tab);
+                int valueStart = tab + 1;
+                switch (tag) {
+                    case "S":
+                        table.add(unescape(data.substring(valueStart, eol)));
+                        pos = eol + 1;
+                        break;
+                    case "M":
+                        readMetrics(valueStart, eol);
+                        pos = eol + 1;
+                        break;
+                    case "R":
+                        readSection(valueStart, eol);
+                        pos = eol + 1;
+                        break;
+                    case "T":
+                        pos = eol + 1;
+                        readTextBlock(parseInt(valueStart, eol));
+                        break;
+                    case "I":
+                        pos = eol + 1;
+                        readInteractiveBlock(parseInt(valueStart, eol));
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown compact snapshot record '" + tag + "'");
+                }
+            }
+            this.data = null;
+        }
+
+        private int lineEnd() {
+            int eol = data.indexOf('\n', pos);
+            return eol < 0 ? data.length() : eol;
+        }
+
+        private void readMetrics(int start, int end) {
+            double[] m = parseNumbers(start, end, 4);
+            target.setViewportWidth((int) m[0]);
+            target.setViewportHeight((int) m[1]);
+            target.setDocumentWidth((int) m[2]);
+            target.setDocumentHeight((int) m[3]);
+        }
+
+        private void readSection(int start, int end) {
+            int tab = data.indexOf('\t', start);
+            String name = data.substring(start, tab);
+            double[] v = parseNumbers(tab + 1, end, 4);
+            HtmlSemanticSnapshot.Rect rect = rect(v[0], v[1], v[2], v[3]);
+            HtmlSemanticSnapshot.Sections sections = target.getSections();
+            switch (name) {
+                case "header": sections.setHeader(rect); break;
+                case "hero": sections.setHero(rect); break;
+                case "features": sections.setFeatures(rect); break;
+                case "ctas": sections.setCtas(rect); break;
+                case "footer": sections.setFooter(rect); break;
+                default: break;
+            }
+        }
+
+        private void readTextBlock(int count) {
+            double[][] nums = new double[5][];
+            for (int c = 0; c < nums.length; c++) {
+                nums[c] = numberColumn(TEXT_COLUMNS[c], count);
+            }
+            int[][] strs = new int[7][];
+            for (int c = 0; c < strs.length; c++) {
+                strs[c] = indexColumn(TEXT_COLUMNS[5 + c], count);
+            }
+
+            List<HtmlSemanticSnapshot.TextNode> nodes = target.getTextNodes();
+            for (int i = 0; i < count; i++) {
+                HtmlSemanticSnapshot.TextNode node = new HtmlSemanticSnapshot.TextNode();
+                node.setX(nums[0][i]);
+                node.setY(nums[1][i]);
+                node.setFontSize(nums[2][i]);
+                node.setLineHeight(nums[3][i]);
+                node.setLetterSpacing(nums[4][i]);
+                node.setId(string(strs[0][i]));
+                node.setTag(string(strs[1][i]));
+                node.setText(string(strs[2][i]));
+                node.setFontFamily(string(strs[3][i]));
+                node.setFontWeight(string(strs[4][i]));
+                node.setColor(string(strs[5][i]));
+                node.setParentId(string(strs[6][i]));
+                nodes.add(node);
+            }
+        }
+
+        private void readInteractiveBlock(int count) {
+            double[][] nums = new double[4][];
+            for (int c = 0; c < nums.length; c++) {
+                nums[c] = numberColumn(INTERACTIVE_COLUMNS[c], count);
+            }
+            int[][] strs = new int[7][];
+            for (int c = 0; c < strs.length; c++) {
+                strs[c] = indexColumn(INTERACTIVE_COLUMNS[4 + c], count);
+            }
+
+            List<HtmlSemanticSnapshot.InteractiveElement> elements = target.getInteractiveElements();
+            for (int i = 0; i < count; i++) {
+                HtmlSemanticSnapshot.InteractiveElement el = new HtmlSemanticSnapshot.InteractiveElement();
+                el.setRect(Double.isNaN(nums[0][i]) ? null : rect(nums[0][i], nums[1][i], nums[2][i], nums[3][i]));
+                el.setText(string(strs[0][i]));
+                el.setTag(string(strs[1][i]));
+                el.setBackgroundColor(string(strs[2][i]));
+                el.setBorderRadius(string(strs[3][i]));
+                el.setPadding(string(strs[4][i]));
+                el.setColor(string(strs[5][i]));
+                el.setParentId(string(strs[6][i]));
+                elements.add(el);
+            }
+        }
+
+        private static HtmlSemanticSnapshot.Rect rect(double x, double y, double width, double height) {
+            HtmlSemanticSnapshot.Rect rect = new HtmlSemanticSnapshot.Rect();
+            rect.setX(x);
+            rect.setY(y);
+            rect.setWidth(width);
+            rect.setHeight(height);
+            return rect;
+        }
+
+        private String string(int index) {
+            return index < 0 ? null : table.get(index);
+        }
+
+        private int columnStart(String expected) {
+            int tab = data.indexOf('\t', pos);
+            int eol = lineEnd();
+            if (tab < 0 || tab > eol || !data.regionMatches(pos, expected, 0, expected.length())
+                    || tab - pos != expected.length()) {
+                throw new IllegalArgumentException("Expected column '" + expected + "' at offset " + pos);
+            }
+            return tab + 1;
+        }
+
+        private double[] numberColumn(String name, int count) {
+            int start = columnStart(name);
+            int eol = lineEnd();
+            double[] values = parseNumbers(start, eol, count);
+            pos = eol + 1;
+            return values;
+        }
+
+        private int[] indexColumn(String name, int count) {
+            int start = columnStart(name);
+            int eol = lineEnd();
+            int[] values = new int[count];
+            int p = start;
+            for (int i = 0; i < count; i++) {
+                int comma = i == count - 1 ? eol : data.indexOf(',', p);
+                values[i] = parseInt(p, comma);
+                p = comma + 1;
+            }
+            pos = eol + 1;
+            return values;
+        }
+
+        private double[] parseNumbers(int start, int end, int count) {
+            double[] values = new double[count];
+            int p = start;
+            for (int i = 0; i < count; i++) {
+                int comma = i == count - 1 ? end : data.indexOf(',', p);
+                values[i] = parseDouble(p, comma);
+                p = comma + 1;
+            }
+            return values;
+        }
+
+        private int parseInt(int start, int end) {
+            boolean negative = data.charAt(start) == '-';
+            int value = 0;
+            for (int i = negative ? start + 1 : start; i < end; i++) {
+                value = value * 10 + (data.charAt(i) - '0');
+            }
+            return negative ? -value : value;
+        }
+
+        // Fast path for plain decimals; anything else (exponents, NaN) goes through the JDK parser
+        private double parseDouble(int start, int end) {
+            boolean negative = data.charAt(start) == '-';
+            long intPart = 0;
+            long fraction = 0;
+            long scale = 1;
+            boolean inFraction = false;
+            for (int i = negative ? start + 1 : start; i < end; i++) {
+                char c = data.charAt(i);
+                if (c >= '0' && c <= '9') {
+                    if (inFraction) {
+                        if (scale >= 1_000_000_000_000_000L) {
+                            return Double.parseDouble(data.substring(start, end));
+                        }
+                        fraction = fraction * 10 + (c - '0');
+                        scale *= 10;
+                    } else {
+                        intPart = intPart * 10 + (c - '0');
+                    }
+                } else if (c == '.' && !inFraction) {
+                    inFraction = true;
+                } else {
+                    return Double.parseDouble(data.substring(start, end));
+                }
+            }
+            double value = intPart + (double) fraction / scale;
+            return negative ? -value : value;
+        }
+    }
+}
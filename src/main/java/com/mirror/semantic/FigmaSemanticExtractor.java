@@ -53,6 +53,8 @@ public class FigmaSemanticExtractor {
             if (box != null) {
                 snapshot.setFrameWidth((int) box.path("width").asDouble(0));
                 snapshot.setFrameHeight((int) box.path("height").asDouble(0));
+                snapshot.setFrameX(box.path("x").asDouble(0));
+                snapshot.setFrameY(box.path("y").asDouble(0));
             }
 
             // Sections by name heuristics
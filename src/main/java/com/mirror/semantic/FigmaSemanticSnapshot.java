@@ -19,6 +19,13 @@ public class FigmaSemanticSnapshot {
     @JsonProperty("frame_height")
     private int frameHeight;
 
+    // Absolute canvas position of the frame; section rects are absolute too
+    @JsonProperty("frame_x")
+    private double frameX;
+
+    @JsonProperty("frame_y")
+    private double frameY;
+
     @JsonProperty("sections")
     private Sections sections = new Sections();
 
@@ -41,6 +48,22 @@ public class FigmaSemanticSnapshot {
         this.frameHeight = frameHeight;
     }
 
+    public double getFrameX() {
+        return frameX;
+    }
+
+    public void setFrameX(double frameX) {
+        this.frameX = frameX;
+    }
+
+    public double getFrameY() {
+        return frameY;
+    }
+
+    public void setFrameY(double frameY) {
+        this.frameY = frameY;
+    }
+
     public Sections getSections() {
         return sections;
     }
@@ -0,0 +1,58 @@
+package com.mirror.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Generates synthetic, content-heavy HTML pages for capture benchmarks.
+ */
+public final class BenchmarkPages {
+
+    private BenchmarkPages() {
+    }
+
+    /**
+     * Builds a page with roughly {@code textElements} text-bearing elements laid
+     * out as a grid of cards (headings, paragraphs with inline spans, links,
+     * labels and table cells), mimicking a long marketing or catalogue page.
+     */
+    public static String textHeavy(int textElements) {
+        // Each card contributes ~10 text-bearing elements
+        int cards = Math.max(1, textElements / 10);
+        StringBuilder html = new StringBuilder(cards * 600);
+        html.append("<!DOCTYPE html><html><head><meta charset=\"utf-8\"><style>")
+                .append("body{font-family:Arial,sans-serif;margin:0}")
+                .append("header,footer{padding:24px;background:#f5f5f5}")
+                .append(".grid{display:grid;grid-template-columns:repeat(4,1fr);gap:16px;padding:16px}")
+                .append(".card{border:1px solid #ddd;border-radius:8px;padding:12px}")
+                .append(".card h3{font-size:18px;margin:0 0 8px}.card p{font-size:14px;line-height:20px}")
+                .append("</style></head><body>")
+                .append("<header><h1>Benchmark catalogue</h1><a href=\"#\">Home</a></header>")
+                .append("<main><section class=\"features\"><div class=\"grid\">");
+
+        for (int i = 0; i < cards; i++) {
+            html.append("<div class=\"card\" id=\"card-").append(i).append("\">")
+                    .append("<h3>Product ").append(i).append("</h3>")
+                    .append("<p>Short description for item <span>#").append(i)
+                    .append("</span> with <strong>bold</strong> and <em>emphasis</em>.</p>")
+                    .append("<label>Qty</label>")
+                    .append("<table><tr><td>Price</td><td>").append(10 + i % 90).append(".99</td></tr></table>")
+                    .append("<a href=\"#item-").append(i).append("\">View details</a>")
+                    .append("<button>Add to cart</button>")
+                    .append("</div>");
+        }
+
+        html.append("</div></section></main>")
+                .append("<footer><p>Footer text</p><small>Copyright</small></footer>")
+                .append("</body></html>");
+        return html.toString();
+    }
+
+    public static Path writeTextHeavy(Path dir, int textElements) throws IOException {
+        Files.createDirectories(dir);
+        Path file = dir.resolve("text-heavy-" + textElements + ".html");
+        Files.writeString(file, textHeavy(textElements));
+        return file;
+    }
+}
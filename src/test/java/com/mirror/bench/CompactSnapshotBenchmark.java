@@ -0,0 +1,134 @@
+package com.mirror.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mirror.semantic.CompactSnapshotCodec;
+import com.mirror.semantic.HtmlSemanticSnapshot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Compares Jackson JSON parsing with {@link CompactSnapshotCodec} decoding for a
+ * synthetic snapshot: payload size, median decode time and retained heap.
+ *
+ * Usage (after mvn test-compile):
+ *   java -cp target/test-classes:target/classes:... com.mirror.bench.CompactSnapshotBenchmark [textNodes]
+ */
+public class CompactSnapshotBenchmark {
+
+    private static final int WARMUP_RUNS = 20;
+    private static final int MEASURED_RUNS = 30;
+    // Decoded copies kept alive at once when measuring retained heap
+    private static final int HEAP_COPIES = 10;
+
+    private static final String[] FONTS = { "\"Inter\", sans-serif", "Arial, sans-serif", "Georgia, serif" };
+    private static final String[] WEIGHTS = { "400", "500", "700" };
+    private static final String[] COLORS = { "rgb(17, 24, 39)", "rgb(107, 114, 128)", "rgb(255, 255, 255)",
+            "rgb(37, 99, 235)" };
+    private static final String[] TAGS = { "p", "span", "h3", "a", "li", "div", "label" };
+
+    public static void main(String[] args) throws Exception {
+        int textNodes = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        HtmlSemanticSnapshot snapshot = synthetic(textNodes, textNodes / 10);
+
+        ObjectMapper mapper = new ObjectMapper();
+        CompactSnapshotCodec codec = new CompactSnapshotCodec();
+        String json = mapper.writeValueAsString(snapshot);
+        String compact = codec.encode(snapshot);
+
+        Supplier<HtmlSemanticSnapshot> jackson = () -> {
+            try {
+                return mapper.readValue(json, HtmlSemanticSnapshot.class);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        };
+        Supplier<HtmlSemanticSnapshot> columnar = () -> codec.decode(compact);
+
+        System.out.printf("Snapshot: %d text nodes, %d interactive elements%n",
+                snapshot.getTextNodes().size(), snapshot.getInteractiveElements().size());
+        System.out.println("format      payload KB   median ms   retained KB");
+        report("json", json.length(), jackson);
+        report("compact", compact.length(), columnar);
+    }
+
+    private static void report(String name, int payloadChars, Supplier<HtmlSemanticSnapshot> decoder) {
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            decoder.get();
+        }
+        double[] runs = new double[MEASURED_RUNS];
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            long start = System.nanoTime();
+            decoder.get();
+            runs[i] = (System.nanoTime() - start) / 1_000_000.0;
+        }
+        Arrays.sort(runs);
+
+        long before = usedHeapAfterGc();
+        List<HtmlSemanticSnapshot> retained = new ArrayList<>();
+        for (int i = 0; i < HEAP_COPIES; i++) {
+            retained.add(decoder.get());
+        }
+        long after = usedHeapAfterGc();
+        long perCopyKb = (after - before) / HEAP_COPIES / 1024;
+
+        System.out.printf("%-9s %12.1f %11.2f %13d%n", name, payloadChars / 1024.0,
+                runs[MEASURED_RUNS / 2], perCopyKb);
+        retained.clear();
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    static HtmlSemanticSnapshot synthetic(int textNodes, int interactive) {
+        Random random = new Random(42);
+        HtmlSemanticSnapshot snapshot = new HtmlSemanticSnapshot();
+        snapshot.setViewportWidth(1920);
+        snapshot.setViewportHeight(1080);
+        snapshot.setDocumentWidth(1920);
+        snapshot.setDocumentHeight(textNodes * 6);
+
+        for (int i = 0; i < textNodes; i++) {
+            HtmlSemanticSnapshot.TextNode node = new HtmlSemanticSnapshot.TextNode();
+            node.setTag(TAGS[random.nextInt(TAGS.length)]);
+            node.setText("Item " + i + " description text");
+            node.setX(16 + (i % 4) * 472.5);
+            node.setY(i * 6 + random.nextInt(4) * 0.25);
+            node.setFontFamily(FONTS[random.nextInt(FONTS.length)]);
+            node.setFontSize(12 + random.nextInt(4) * 2);
+            node.setFontWeight(WEIGHTS[random.nextInt(WEIGHTS.length)]);
+            node.setLineHeight(20);
+            node.setLetterSpacing(0);
+            node.setColor(COLORS[random.nextInt(COLORS.length)]);
+            node.setParentId("card-" + (i / 10));
+            snapshot.getTextNodes().add(node);
+        }
+
+        for (int i = 0; i < interactive; i++) {
+            HtmlSemanticSnapshot.InteractiveElement el = new HtmlSemanticSnapshot.InteractiveElement();
+            HtmlSemanticSnapshot.Rect rect = new HtmlSemanticSnapshot.Rect();
+            rect.setX(16 + (i % 4) * 472.5);
+            rect.setY(i * 60);
+            rect.setWidth(120);
+            rect.setHeight(40);
+            el.setRect(rect);
+            el.setText(i % 2 == 0 ? "Add to cart" : "View details");
+            el.setTag(i % 2 == 0 ? "button" : "a");
+            el.setBackgroundColor(COLORS[i % COLORS.length]);
+            el.setBorderRadius("8px");
+            el.setPadding("8px 16px");
+            el.setColor(COLORS[(i + 1) % COLORS.length]);
+            el.setParentId("card-" + i);
+            snapshot.getInteractiveElements().add(el);
+        }
+        return snapshot;
+    }
+}
@@ -0,0 +1,308 @@
+package com.mirror.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.mirror.figma.FigmaRequestScheduler;
+import com.mirror.figma.FigmaService;
+import com.mirror.figma.FigmaServiceImpl;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compares the pooled {@link FigmaServiceImpl} with the previous client (a new
+ * HttpURLConnection, ObjectMapper and image stream per request) against a local
+ * stand-in for the Figma API: wall time per round of frame + structure fetches,
+ * sequential and concurrent, and bytes sent by the server.
+ *
+ * The stand-in serves plain HTTP on loopback with an artificial per-request
+ * latency, so TLS handshakes saved by connection reuse are not part of the
+ * numbers; real API calls gain more.
+ *
+ * Usage (after mvn test-compile):
+ *   java -cp target/test-classes:target/classes:... com.mirror.bench.FigmaClientBenchmark [framesPerRound] [latencyMs]
+ */
+public class FigmaClientBenchmark {
+
+    private static final int WARMUP_ROUNDS = 2;
+    private static final int MEASURED_ROUNDS = 5;
+    private static final int THREADS = 8;
+    private static final String FILE_KEY = "bench";
+    // The stand-in server has no rate limit, so pacing would only measure the bucket
+    private static final FigmaRequestScheduler UNTHROTTLED =
+            new FigmaRequestScheduler(1_000_000, 1_000, 0, Duration.ZERO);
+
+    private static final AtomicLong bytesSent = new AtomicLong();
+    private static final AtomicLong requests = new AtomicLong();
+
+    public static void main(String[] args) throws Exception {
+        int frames = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        long latencyMs = args.length > 1 ? Long.parseLong(args[1]) : 20;
+
+        byte[] png = syntheticPng(1440, 3000);
+        byte[] nodes = syntheticNodes(400);
+        HttpServer server = startServer(png, nodes, latencyMs);
+        String baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        System.out.printf("Stand-in Figma API at %s: PNG %d KB, node JSON %d KB, latency %d ms%n",
+                baseUrl, png.length / 1024, nodes.length / 1024, latencyMs);
+
+        Path cacheRoot = Files.createTempDirectory("figma-bench");
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            System.out.println("client      mode         median ms/round   KB sent/round   requests/round");
+            for (boolean concurrent : new boolean[] { false, true }) {
+                report("legacy", concurrent, frames, pool, cacheRoot,
+                        cacheDir -> new LegacyFigmaClient(baseUrl, cacheDir));
+                report("pooled", concurrent, frames, pool, cacheRoot,
+                        cacheDir -> new FigmaServiceImpl(baseUrl, "bench-token", cacheDir, UNTHROTTLED));
+            }
+        } finally {
+            pool.shutdownNow();
+            server.stop(0);
+            deleteRecursively(cacheRoot);
+        }
+    }
+
+    private interface ClientFactory {
+        FigmaService create(Path cacheDir);
+    }
+
+    private static void report(String name, boolean concurrent, int frames, ExecutorService pool, Path cacheRoot,
+            ClientFactory factory) throws Exception {
+        int rounds = WARMUP_ROUNDS + MEASURED_ROUNDS;
+        double[] times = new double[MEASURED_ROUNDS];
+        long bytes = 0;
+        long count = 0;
+        for (int round = 0; round < rounds; round++) {
+            // A fresh cache directory per round, so every fetch goes to the server
+            FigmaService client = factory.create(Files.createTempDirectory(cacheRoot, name));
+            long bytesBefore = bytesSent.get();
+            long requestsBefore = requests.get();
+            long start = System.nanoTime();
+            if (concurrent) {
+                List<Future<?>> pending = new ArrayList<>();
+                for (int i = 0; i < frames; i++) {
+                    String frameId = "1:" + i;
+                    pending.add(pool.submit(() -> fetch(client, frameId)));
+                }
+                for (Future<?> future : pending) {
+                    future.get();
+                }
+            } else {
+                for (int i = 0; i < frames; i++) {
+                    fetch(client, "1:" + i);
+                }
+            }
+            if (round >= WARMUP_ROUNDS) {
+                times[round - WARMUP_ROUNDS] = (System.nanoTime() - start) / 1_000_000.0;
+                bytes += bytesSent.get() - bytesBefore;
+                count += requests.get() - requestsBefore;
+            }
+        }
+        Arrays.sort(times);
+        System.out.printf("%-11s %-12s %15.1f %15d %16d%n", name, concurrent ? "concurrent" : "sequential",
+                times[MEASURED_ROUNDS / 2], bytes / MEASURED_ROUNDS / 1024, count / MEASURED_ROUNDS);
+    }
+
+    private static Void fetch(FigmaService client, String frameId) {
+        client.getFrame(FILE_KEY, frameId);
+        client.getStructure(FILE_KEY, frameId);
+        return null;
+    }
+
+    private static HttpServer startServer(byte[] png, byte[] nodes, long latencyMs) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(Executors.newFixedThreadPool(THREADS * 2, r -> {
+            Thread thread = new Thread(r, "figma-stand-in");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        server.createContext("/v1/images/", exchange -> {
+            String id = query(exchange, "ids");
+            String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/render/" + id + ".png";
+            String json = "{\"err\":null,\"images\":{\"" + id + "\":\"" + url + "\"}}";
+            respond(exchange, json.getBytes(StandardCharsets.UTF_8), "application/json", latencyMs);
+        });
+        server.createContext("/v1/files/", exchange -> {
+            if (!exchange.getRequestURI().getPath().endsWith("/nodes")) {
+                // Version lookup (depth=1)
+                String json = "{\"name\":\"bench\",\"version\":\"1\",\"lastModified\":\"2024-01-01T00:00:00Z\"}";
+                respond(exchange, json.getBytes(StandardCharsets.UTF_8), "application/json", latencyMs);
+                return;
+            }
+            String id = query(exchange, "ids");
+            String json = "{\"name\":\"bench\",\"nodes\":{\"" + id + "\":{\"document\":"
+                    + new String(nodes, StandardCharsets.UTF_8) + "}}}";
+            respond(exchange, json.getBytes(StandardCharsets.UTF_8), "application/json", latencyMs);
+        });
+        server.createContext("/render/", exchange -> respond(exchange, png, "image/png", latencyMs));
+        server.start();
+        return server;
+    }
+
+    private static String query(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getQuery();
+        for (String part : query.split("&")) {
+            if (part.startsWith(name + "=")) {
+                return part.substring(name.length() + 1);
+            }
+        }
+        return "";
+    }
+
+    private static void respond(HttpExchange exchange, byte[] body, String contentType, long latencyMs)
+            throws IOException {
+        try {
+            Thread.sleep(latencyMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        // Like the real API, compress JSON but not PNGs
+        if (contentType.startsWith("application/json") && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            body = gzip(body);
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+        bytesSent.addAndGet(body.length);
+        requests.incrementAndGet();
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+            out.write(body);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static byte[] syntheticPng(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, width, height);
+        for (int y = 0; y < height; y += 120) {
+            g.setColor(new Color((y * 7) % 256, (y * 13) % 256, 200));
+            g.fillRect(80, y + 20, width - 160, 80);
+            g.setColor(Color.DARK_GRAY);
+            g.drawString("Section " + y / 120, 100, y + 64);
+        }
+        g.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private static byte[] syntheticNodes(int children) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        ObjectNode frame = mapper.createObjectNode();
+        frame.put("id", "1:0").put("name", "Landing").put("type", "FRAME");
+        frame.putObject("absoluteBoundingBox").put("x", 0).put("y", 0).put("width", 1440).put("height", 3000);
+        ArrayNode nodes = frame.putArray("children");
+        for (int i = 0; i < children; i++) {
+            ObjectNode text = nodes.addObject();
+            text.put("id", "2:" + i).put("name", "Text " + i).put("type", "TEXT")
+                    .put("characters", "Build better products faster with item " + i);
+            text.putObject("absoluteBoundingBox").put("x", 80).put("y", i * 7).put("width", 600).put("height", 24);
+            text.putObject("style").put("fontFamily", "Inter").put("fontWeight", 400).put("fontSize", 16)
+                    .put("lineHeightPx", 24);
+        }
+        return mapper.writeValueAsBytes(frame);
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /**
+     * The client as it was before connection pooling: one HttpURLConnection and
+     * ObjectMapper per request, images re-encoded into the cache.
+     */
+    private static class LegacyFigmaClient implements FigmaService {
+        private final String baseUrl;
+        private final Path cacheDir;
+
+        LegacyFigmaClient(String baseUrl, Path cacheDir) {
+            this.baseUrl = baseUrl;
+            this.cacheDir = cacheDir;
+        }
+
+        @Override
+        public BufferedImage getFrame(String fileKey, String frameId) {
+            try {
+                Path cached = cacheDir.resolve(fileKey).resolve(frameId + ".png");
+                Files.createDirectories(cached.getParent());
+                JsonNode json = get(baseUrl + "/v1/images/" + fileKey + "?ids=" + frameId + "&format=png");
+                BufferedImage image;
+                try (InputStream in = URI.create(json.get("images").get(frameId).asText()).toURL().openStream()) {
+                    image = ImageIO.read(in);
+                }
+                ImageIO.write(image, "png", cached.toFile());
+                return image;
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        @Override
+        public JsonNode getStructure(String fileKey, String frameId) {
+            try {
+                Path cached = cacheDir.resolve(fileKey).resolve(frameId + ".json");
+                Files.createDirectories(cached.getParent());
+                JsonNode node = get(baseUrl + "/v1/files/" + fileKey + "/nodes?ids=" + frameId)
+                        .get("nodes").get(frameId).get("document");
+                new ObjectMapper().writeValue(cached.toFile(), node);
+                return node;
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        private JsonNode get(String url) throws IOException {
+            HttpURLConnection conn = (HttpURLConnection) URI.create(url).toURL().openConnection();
+            conn.setRequestProperty("X-Figma-Token", "bench-token");
+            conn.setConnectTimeout(10_000);
+            conn.setReadTimeout(10_000);
+            if (conn.getResponseCode() != 200) {
+                throw new IOException("HTTP " + conn.getResponseCode());
+            }
+            return new ObjectMapper().readTree(conn.getInputStream());
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.mirror.bench;
+
+import com.microsoft.playwright.Browser;
+import com.microsoft.playwright.BrowserType;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.Playwright;
+import com.mirror.capture.SnapshotScript;
+import com.mirror.model.Viewport;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Measures in-page snapshot extraction time on synthetic text-heavy pages of
+ * growing size. With linear scaling the per-element cost stays flat.
+ *
+ * Usage (after mvn test-compile):
+ *   java -cp target/test-classes:target/classes:... com.mirror.bench.SnapshotScriptBenchmark [maxElements]
+ */
+public class SnapshotScriptBenchmark {
+
+    private static final int WARMUP_RUNS = 2;
+    private static final int MEASURED_RUNS = 5;
+
+    public static void main(String[] args) throws Exception {
+        int maxElements = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        Path pageDir = Path.of("target", "bench");
+
+        try (Playwright playwright = Playwright.create()) {
+            Browser browser = playwright.chromium().launch(new BrowserType.LaunchOptions().setHeadless(true));
+            Page page = browser.newContext(new Browser.NewContextOptions()
+                    .setViewportSize(Viewport.DESKTOP.getWidth(), Viewport.DESKTOP.getHeight())).newPage();
+
+            String script = SnapshotScript.build(0);
+
+            System.out.println("elements      median ms     us/element");
+            for (int elements = 1_250; elements <= maxElements; elements *= 2) {
+                Path file = BenchmarkPages.writeTextHeavy(pageDir, elements);
+                page.navigate(file.toUri().toString());
+
+                for (int i = 0; i < WARMUP_RUNS; i++) {
+                    page.evaluate(script);
+                }
+                double[] runs = new double[MEASURED_RUNS];
+                for (int i = 0; i < MEASURED_RUNS; i++) {
+                    long start = System.nanoTime();
+                    page.evaluate(script);
+                    runs[i] = (System.nanoTime() - start) / 1_000_000.0;
+                }
+                Arrays.sort(runs);
+                double median = runs[MEASURED_RUNS / 2];
+                System.out.printf("%8d  %12.1f  %13.2f%n", elements, median, median * 1000.0 / elements);
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.mirror.capture;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CaptureConfigTest {
+
+    @Test
+    void overridesSettingsGivenAsStrings() {
+        CaptureConfig config = CaptureConfig.fromSettings(Map.of(
+                "tiledCapture", "true",
+                "captureWorkers", " 2 ",
+                "captureHeapBudgetBytes", "1073741824",
+                "snapshotEncoding", "JSON",
+                "blockedResourceTypes", "media, font,,image"));
+
+        assertTrue(config.tiledCapture);
+        assertEquals(2, config.captureWorkers);
+        assertEquals(1073741824L, config.captureHeapBudgetBytes);
+        assertEquals(CaptureConfig.SnapshotEncoding.JSON, config.snapshotEncoding);
+        assertEquals(Set.of("media", "font", "image"), config.blockedResourceTypes);
+    }
+
+    @Test
+    void replacesDefaultListsInsteadOfAppending() {
+        CaptureConfig config = CaptureConfig.fromSettings(Map.of("blockedUrlPatterns", "ads.example.com"));
+
+        assertEquals(List.of("ads.example.com"), config.blockedUrlPatterns);
+    }
+
+    @Test
+    void keepsDefaultsForUnsetSettings() {
+        CaptureConfig config = CaptureConfig.fromSettings(Map.of());
+
+        assertFalse(config.tiledCapture);
+        assertEquals(new CaptureConfig().blockedUrlPatterns, config.blockedUrlPatterns);
+    }
+
+    @Test
+    void rejectsUnknownSettingsAndMalformedValues() {
+        assertThrows(IllegalArgumentException.class, () -> CaptureConfig.fromSettings(Map.of("tiles", "true")));
+        assertThrows(IllegalArgumentException.class,
+                () -> CaptureConfig.fromSettings(Map.of("captureWorkers", "two")));
+    }
+
+    @Test
+    void listsEveryPublicSetting() {
+        List<String> names = CaptureConfig.settingNames();
+
+        assertTrue(names.contains("persistentProfiles"));
+        assertTrue(names.contains("freezeAnimations"));
+        assertEquals(names.size(), Set.copyOf(names).size());
+    }
+}
@@ -0,0 +1,125 @@
+package com.mirror.capture;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.mirror.semantic.HtmlSemanticSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CdpSnapshotExtractorTest {
+
+    @Test
+    void locatesSectionsWithThePageSectionSelectors() {
+        FixturePage page = new FixturePage();
+        int body = page.element(-1, "BODY");
+        // Matches a later header selector, the header tag still wins
+        page.element(body, "DIV", "data-figma-section", "header");
+        int header = page.element(body, "HEADER");
+        // Not inside main, so not the hero
+        int features = page.element(body, "SECTION", "class", "cta features");
+        int main = page.element(body, "MAIN");
+        int wrapper = page.element(main, "DIV");
+        int hero = page.element(wrapper, "SECTION");
+        int footer = page.element(body, "DIV", "data-section", "footer");
+
+        HtmlSemanticSnapshot.Sections sections = page.sections();
+
+        assertEquals(page.y(header), sections.getHeader().getY());
+        assertEquals(page.y(hero), sections.getHero().getY());
+        assertEquals(page.y(features), sections.getFeatures().getY());
+        assertEquals(page.y(features), sections.getCtas().getY());
+        assertEquals(page.y(footer), sections.getFooter().getY());
+    }
+
+    @Test
+    void leavesMissingSectionsEmpty() {
+        FixturePage page = new FixturePage();
+        int body = page.element(-1, "BODY");
+        page.element(body, "SECTION", "class", "featuresque");
+
+        HtmlSemanticSnapshot.Sections sections = page.sections();
+
+        assertNull(sections.getHero());
+        assertNull(sections.getFeatures());
+        assertNull(sections.getFooter());
+    }
+
+    /**
+     * Builds a DOMSnapshot document where every element is laid out at y = 10 * its node index.
+     */
+    private static class FixturePage {
+        private final List<String> strings = new ArrayList<>();
+        private final JsonArray parentIndex = new JsonArray();
+        private final JsonArray nodeType = new JsonArray();
+        private final JsonArray nodeName = new JsonArray();
+        private final JsonArray nodeValue = new JsonArray();
+        private final JsonArray attributes = new JsonArray();
+        private final JsonArray layoutNodes = new JsonArray();
+        private final JsonArray bounds = new JsonArray();
+        private final JsonArray styles = new JsonArray();
+        private final JsonArray text = new JsonArray();
+
+        int element(int parent, String tag, String... attrs) {
+            int node = parentIndex.size();
+            parentIndex.add(parent);
+            nodeType.add(1);
+            nodeName.add(string(tag));
+            nodeValue.add(-1);
+            JsonArray pairs = new JsonArray();
+            for (String attr : attrs) {
+                pairs.add(string(attr));
+            }
+            attributes.add(pairs);
+
+            layoutNodes.add(node);
+            JsonArray rect = new JsonArray();
+            rect.add(0);
+            rect.add(y(node));
+            rect.add(100);
+            rect.add(10);
+            bounds.add(rect);
+            styles.add(new JsonArray());
+            text.add(-1);
+            return node;
+        }
+
+        double y(int node) {
+            return node * 10.0;
+        }
+
+        HtmlSemanticSnapshot.Sections sections() {
+            JsonObject nodes = new JsonObject();
+            nodes.add("parentIndex", parentIndex);
+            nodes.add("nodeType", nodeType);
+            nodes.add("nodeName", nodeName);
+            nodes.add("nodeValue", nodeValue);
+            nodes.add("attributes", attributes);
+            JsonObject layout = new JsonObject();
+            layout.add("nodeIndex", layoutNodes);
+            layout.add("bounds", bounds);
+            layout.add("styles", styles);
+            layout.add("text", text);
+            JsonObject document = new JsonObject();
+            document.add("nodes", nodes);
+            document.add("layout", layout);
+
+            JsonArray table = new JsonArray();
+            strings.forEach(table::add);
+            return CdpSnapshotExtractor.extractSections(table, document);
+        }
+
+        private int string(String value) {
+            int index = strings.indexOf(value);
+            if (index < 0) {
+                strings.add(value);
+                index = strings.size() - 1;
+            }
+            return index;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.mirror.report;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReportNamesTest {
+
+    private static final String LONG_URL = "https://www.example.com/en-us/products/enterprise/visual-regression"
+            + "/pricing-and-plans?utm_source=newsletter&utm_campaign=spring";
+
+    @Test
+    void keepsLongUrlsThatDifferOnlyInViewportApart() {
+        String desktop = ReportNames.name(LONG_URL + "_12:34_Desktop");
+        String mobile = ReportNames.name(LONG_URL + "_12:34_Mobile");
+
+        assertNotEquals(desktop, mobile);
+        assertEquals(desktop.length(), mobile.length());
+    }
+
+    @Test
+    void keepsReadablePrefixAndBoundsLength() {
+        String name = ReportNames.name(LONG_URL + "_12:34_Desktop");
+
+        assertTrue(name.startsWith("www_example_com_en_us_products_enterprise"), name);
+        assertTrue(name.length() <= 80 + 1 + 8, name);
+        assertTrue(name.matches("[a-z0-9_]+_[0-9a-f]{8}"), name);
+    }
+
+    @Test
+    void isStableForTheSameName() {
+        assertEquals(ReportNames.name("https://example.com_1:2_Tablet"),
+                ReportNames.name("https://example.com_1:2_Tablet"));
+    }
+
+    @Test
+    void omitsNameWhenThereIsNone() {
+        assertEquals("", ReportNames.name(null));
+        assertTrue(ReportNames.stamp(null).matches("\\d{8}_\\d{6}"));
+    }
+
+    @Test
+    void keepsNamesWithTheSameSlugApart() {
+        assertNotEquals(ReportNames.name("https://example.com/a/b"), ReportNames.name("https://example.com/a_b"));
+    }
+}
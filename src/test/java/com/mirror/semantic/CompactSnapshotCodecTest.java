@@ -0,0 +1,195 @@
+package com.mirror.semantic;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompactSnapshotCodecTest {
+
+    private final CompactSnapshotCodec codec = new CompactSnapshotCodec();
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void roundTripsRealisticSnapshot() {
+        HtmlSemanticSnapshot snapshot = landingPage();
+
+        HtmlSemanticSnapshot decoded = codec.decode(codec.encode(snapshot));
+
+        assertSameSnapshot(snapshot, decoded);
+    }
+
+    @Test
+    void roundTripsEmptyUnicodeAndEscapedStrings() {
+        HtmlSemanticSnapshot snapshot = new HtmlSemanticSnapshot();
+        snapshot.setViewportWidth(390);
+        snapshot.setViewportHeight(844);
+        List<String> texts = List.of(
+                "",
+                "Grüße aus Köln — «Prix» 価格 😀",
+                "line one\nline two\r\nline three",
+                "C:\\Users\\figma\\",
+                "literal \\n is not a newline",
+                "tab\tinside",
+                "ends with a backslash \\");
+        for (int i = 0; i < texts.size(); i++) {
+            snapshot.getTextNodes().add(textNode("t" + i, "p", texts.get(i), 16, 24 * i, "main"));
+        }
+        HtmlSemanticSnapshot.InteractiveElement link = button("", "a", "transparent", null);
+        link.setParentId("Ünïcode-parent");
+        snapshot.getInteractiveElements().add(link);
+
+        HtmlSemanticSnapshot decoded = codec.decode(codec.encode(snapshot));
+
+        assertSameSnapshot(snapshot, decoded);
+        for (int i = 0; i < texts.size(); i++) {
+            assertEquals(texts.get(i), decoded.getTextNodes().get(i).getText());
+        }
+    }
+
+    @Test
+    void roundTripsEmptySnapshot() {
+        HtmlSemanticSnapshot snapshot = new HtmlSemanticSnapshot();
+
+        HtmlSemanticSnapshot decoded = codec.decode(codec.encode(snapshot));
+
+        assertSameSnapshot(snapshot, decoded);
+        assertTrue(decoded.getTextNodes().isEmpty());
+        assertTrue(decoded.getInteractiveElements().isEmpty());
+        assertNull(decoded.getSections().getHero());
+    }
+
+    @Test
+    void keepsNullStringsAndMissingRects() {
+        HtmlSemanticSnapshot snapshot = new HtmlSemanticSnapshot();
+        HtmlSemanticSnapshot.TextNode node = textNode(null, "span", "No parent", 12, 0, null);
+        node.setFontFamily(null);
+        node.setColor(null);
+        snapshot.getTextNodes().add(node);
+        HtmlSemanticSnapshot.InteractiveElement hidden = button("Hidden", "button", null, null);
+        hidden.setRect(null);
+        snapshot.getInteractiveElements().add(hidden);
+
+        HtmlSemanticSnapshot decoded = codec.decode(codec.encode(snapshot));
+
+        assertSameSnapshot(snapshot, decoded);
+        assertNull(decoded.getTextNodes().get(0).getId());
+        assertNull(decoded.getInteractiveElements().get(0).getRect());
+    }
+
+    @Test
+    void sharesRepeatedStrings() {
+        HtmlSemanticSnapshot decoded = codec.decode(codec.encode(landingPage()));
+
+        List<HtmlSemanticSnapshot.TextNode> nodes = decoded.getTextNodes();
+        assertSame(nodes.get(0).getFontFamily(), nodes.get(1).getFontFamily());
+        assertSame(nodes.get(1).getColor(), nodes.get(2).getColor());
+    }
+
+    @Test
+    void decodesChunksWithSharedStringTable() {
+        HtmlSemanticSnapshot snapshot = landingPage();
+        String encoded = codec.encode(snapshot);
+        String body = encoded.substring(encoded.indexOf('\n') + 1);
+        // The first chunk ends with the string table, the second only refers to it
+        int split = body.indexOf("\nT\t") + 1;
+
+        HtmlSemanticSnapshot decoded = new HtmlSemanticSnapshot();
+        CompactSnapshotCodec.Decoder decoder = codec.newDecoder(decoded);
+        decoder.decode(body.substring(0, split));
+        decoder.decode(body.substring(split));
+
+        assertSameSnapshot(snapshot, decoded);
+    }
+
+    @Test
+    void rejectsDataWithoutHeader() {
+        assertThrows(IllegalArgumentException.class, () -> codec.decode("{\"text_nodes\":[]}"));
+    }
+
+    private void assertSameSnapshot(HtmlSemanticSnapshot expected, HtmlSemanticSnapshot actual) {
+        assertEquals(mapper.valueToTree(expected), mapper.valueToTree(actual));
+    }
+
+    private static HtmlSemanticSnapshot landingPage() {
+        HtmlSemanticSnapshot snapshot = new HtmlSemanticSnapshot();
+        snapshot.setViewportWidth(1440);
+        snapshot.setViewportHeight(900);
+        snapshot.setDocumentWidth(1440);
+        snapshot.setDocumentHeight(3120);
+
+        HtmlSemanticSnapshot.Sections sections = snapshot.getSections();
+        sections.setHeader(rect(0, 0, 1440, 80));
+        sections.setHero(rect(0, 80, 1440, 640.5));
+        sections.setFeatures(rect(120, 720.5, 1200, 1100.25));
+        sections.setFooter(rect(0, 2800, 1440, 320));
+
+        List<HtmlSemanticSnapshot.TextNode> nodes = snapshot.getTextNodes();
+        nodes.add(textNode("nav-home", "a", "Home", 16, 28, "header"));
+        nodes.add(textNode("nav-pricing", "a", "Pricing", 16, 28, "header"));
+        HtmlSemanticSnapshot.TextNode title = textNode("hero-title", "h1", "Design to code, pixel for pixel", 56,
+                200, "hero");
+        title.setFontWeight("700");
+        title.setLineHeight(64.8);
+        title.setLetterSpacing(-1.12);
+        nodes.add(title);
+        nodes.add(textNode("hero-lead", "p", "Compare your Figma frames with the live page.", 20, 300, "hero"));
+        for (int i = 0; i < 6; i++) {
+            nodes.add(textNode("feature-" + i, "h3", "Feature " + (i + 1), 24, 800 + 180 * i, "features"));
+        }
+        nodes.add(textNode(null, "small", "© 2024 Mirror", 12, 3050.33, "footer"));
+
+        List<HtmlSemanticSnapshot.InteractiveElement> elements = snapshot.getInteractiveElements();
+        elements.add(button("Get started", "button", "rgb(37, 99, 235)", "8px"));
+        elements.add(button("Book a demo", "a", "rgba(0, 0, 0, 0)", "8px"));
+        elements.add(button("Subscribe", "button", "rgb(37, 99, 235)", "9999px"));
+        return snapshot;
+    }
+
+    private static HtmlSemanticSnapshot.TextNode textNode(String id, String tag, String text, double fontSize,
+            double y, String parentId) {
+        HtmlSemanticSnapshot.TextNode node = new HtmlSemanticSnapshot.TextNode();
+        node.setId(id);
+        node.setTag(tag);
+        node.setText(text);
+        node.setX(120);
+        node.setY(y);
+        node.setFontFamily("Inter, sans-serif");
+        node.setFontSize(fontSize);
+        node.setFontWeight("400");
+        node.setLineHeight(fontSize * 1.5);
+        node.setLetterSpacing(0);
+        node.setColor("rgb(17, 24, 39)");
+        node.setParentId(parentId);
+        return node;
+    }
+
+    private static HtmlSemanticSnapshot.InteractiveElement button(String text, String tag, String background,
+            String radius) {
+        HtmlSemanticSnapshot.InteractiveElement element = new HtmlSemanticSnapshot.InteractiveElement();
+        element.setText(text);
+        element.setTag(tag);
+        element.setRect(rect(120, 420, 180.5, 48));
+        element.setBackgroundColor(background);
+        element.setBorderRadius(radius);
+        element.setPadding("12px 24px");
+        element.setColor("rgb(255, 255, 255)");
+        element.setParentId("hero");
+        return element;
+    }
+
+    private static HtmlSemanticSnapshot.Rect rect(double x, double y, double width, double height) {
+        HtmlSemanticSnapshot.Rect rect = new HtmlSemanticSnapshot.Rect();
+        rect.setX(x);
+        rect.setY(y);
+        rect.setWidth(width);
+        rect.setHeight(height);
+        return rect;
+    }
+}